@@ -1,15 +0,0 @@
-package Ori.Coval.Logging;
-
-import java.lang.annotation.ElementType;
-import java.lang.annotation.Retention;
-import java.lang.annotation.RetentionPolicy;
-import java.lang.annotation.Target;
-
-/**
- * Marks a class for which an AutoLogged subclass will be generated.
- */
-@Retention(RetentionPolicy.SOURCE)
-@Target(ElementType.TYPE)
-public @interface AutoLog {
-    boolean postToFtcDashboard() default true;
-}
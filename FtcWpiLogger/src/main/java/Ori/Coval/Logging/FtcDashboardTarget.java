@@ -0,0 +1,20 @@
+package Ori.Coval.Logging;
+
+import com.acmerobotics.dashboard.FtcDashboard;
+import com.acmerobotics.dashboard.telemetry.TelemetryPacket;
+
+import java.util.Map;
+
+/**
+ * Sends published log values to FTC Dashboard as one telemetry packet per update.
+ */
+final class FtcDashboardTarget implements TelemetryTarget {
+    static final FtcDashboardTarget INSTANCE = new FtcDashboardTarget();
+
+    @Override
+    public void send(Map<String, Object> values) {
+        TelemetryPacket packet = new TelemetryPacket();
+        packet.putAll(values);
+        FtcDashboard.getInstance().sendTelemetryPacket(packet);
+    }
+}
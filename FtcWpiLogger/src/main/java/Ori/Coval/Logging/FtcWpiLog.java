@@ -0,0 +1,72 @@
+package Ori.Coval.Logging;
+
+import android.content.Context;
+import android.os.Environment;
+
+import com.qualcomm.robotcore.hardware.HardwareMap;
+
+import java.io.File;
+
+/**
+ * Android side of the logger: picks where log files go on the Control Hub and
+ * forwards dashboard values to FTC Dashboard. Everything else lives in {@link WpiLog}.
+ */
+public class FtcWpiLog {
+    private static int mappedSegmentBytes = 0;
+
+    /**
+     * Makes later {@code setup} calls write through memory-mapped file segments of the given
+     * size (see {@link MappedLogChannel}), so records cost a memory copy instead of a syscall.
+     *
+     * @param segmentBytes segment size, e.g. {@link MappedLogChannel#DEFAULT_SEGMENT_BYTES};
+     *                     0 goes back to plain file writes
+     */
+    public static void setMappedSegmentSize(int segmentBytes) {
+        mappedSegmentBytes = segmentBytes;
+    }
+
+    /**
+     * Splits later logs into segments and caps the space they take; see {@link RotationPolicy}.
+     * Same as {@link WpiLog#setRotation(RotationPolicy)}.
+     */
+    public static void setRotation(RotationPolicy policy) {
+        WpiLog.setRotation(policy);
+    }
+
+    /**
+     * Set up logging to a timestamped file (e.g. 2025-05-22_15-42-10.wpilog) in SD or internal.
+     */
+    public static void setup(HardwareMap hardwareMap) {
+        setup(hardwareMap, WpiLog.timestampedFileName());
+    }
+
+    /**
+     * Set up logging to the given filename, choosing SD if present.
+     */
+    public static void setup(HardwareMap hardwareMap, String filename) {
+        File out = chooseLogFile(hardwareMap.appContext, filename);
+        // java.nio.file is not available on the Control Hub's Android version, so hand over a channel factory
+        final int segmentBytes = mappedSegmentBytes;
+        LogChannelFactory factory = segmentBytes > 0
+                ? file -> new MappedLogChannel(file, segmentBytes)
+                : LogChannelFactory.FILE;
+        WpiLog.setup(out, factory);
+        WpiLog.setTelemetryTarget(FtcDashboardTarget.INSTANCE);
+    }
+
+    /**
+     * Picks removable SD card if mounted, otherwise primary external-files dir.
+     */
+    static File chooseLogFile(Context hwMap, String filename) {
+        File[] extDirs = hwMap.getExternalFilesDirs(null);
+        File sd = null;
+        for (File d : extDirs) {
+            if (d != null && Environment.isExternalStorageRemovable(d) && d.exists()) {
+                sd = d;
+                break;
+            }
+        }
+        File root = (sd != null) ? sd : extDirs[0];
+        return new File(root, filename);
+    }
+}
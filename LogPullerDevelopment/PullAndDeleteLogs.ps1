@@ -97,8 +97,8 @@ if (-not (Test-Path $AdbPath)) {
     Download-And-Extract-Adb -downloadUrl $platformToolsUrl -extractTargetPath $AdbPath
 }
 
-# Find remote .wpilog files
-$AllFiles = & $AdbPath shell "find /sdcard/Android/data -type f -name '*.wpilog' 2>/dev/null" |
+# Find remote .wpilog files (and .wpilogz files compressed on the robot)
+$AllFiles = & $AdbPath shell "find /sdcard/Android/data -type f \( -name '*.wpilog' -o -name '*.wpilogz' \) 2>/dev/null" |
             ForEach-Object { $_.Trim() }
 if (-not $AllFiles) {
     Show-TopmostMessageBox "No .wpilog files found in Android/data" "FTC Log Puller"
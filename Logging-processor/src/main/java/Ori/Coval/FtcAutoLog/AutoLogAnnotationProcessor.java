@@ -1,11 +1,16 @@
 package Ori.Coval.FtcAutoLog;
 
+import com.squareup.javapoet.ArrayTypeName;
 import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.JavaFile;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.WildcardTypeName;
 
 import javax.annotation.processing.AbstractProcessor;
 import javax.annotation.processing.RoundEnvironment;
@@ -21,20 +26,28 @@ import javax.lang.model.element.PackageElement;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
 import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 /**
  * Annotation processor that generates an AutoLogged subclass which
- * overrides fields and methods to log via WpiLog.
+ * overrides fields and methods to log via WpiLog, and a StructSerializer
+ * for each {@code @LogStruct} class.
  */
-@SupportedAnnotationTypes("Ori.Coval.Logging.AutoLog")
+@SupportedAnnotationTypes({"Ori.Coval.Logging.AutoLog", "Ori.Coval.Logging.LogStruct"})
 @SupportedSourceVersion(SourceVersion.RELEASE_8)
 public class AutoLogAnnotationProcessor extends AbstractProcessor {
     // Adjust this to your WpiLog package
@@ -42,27 +55,66 @@ public class AutoLogAnnotationProcessor extends AbstractProcessor {
     private static final ClassName LOGGED = ClassName.get("Ori.Coval.Logging", "Logged");
     private static final ClassName AUTO_LOG_MANAGER = ClassName.get("Ori.Coval.Logging", "AutoLogManager");
     private static final ClassName SUPPLIER_LOG = ClassName.get("Ori.Coval.Logging", "SupplierLog");
+    private static final ClassName STRUCT_SERIALIZER = ClassName.get("Ori.Coval.Logging", "StructSerializer");
+    private static final ClassName LOGGED_REGISTRY = ClassName.get("Ori.Coval.Logging", "LoggedRegistry");
+    private static final ClassName LOG_REPLAY = ClassName.get("Ori.Coval.Logging", "LogReplay");
+    private static final String REGISTRY_NAME = "AutoLoggedRegistry";
+    private static final String AUTO_LOG = "Ori.Coval.Logging.AutoLog";
+    private static final String LOG_STRUCT = "Ori.Coval.Logging.LogStruct";
+    private static final String LOG_RATE = "Ori.Coval.Logging.LogRate";
+    private static final String REPLAY = "Ori.Coval.Logging.Replay";
+
+    /** Packages whose registry has been written; the Filer can't create a file twice. */
+    private final Set<String> writtenRegistries = new HashSet<>();
 
     @Override
     public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        // AutoLogged classes to put in each package's flattened registry
+        Map<String, List<ClassName>> registries = new LinkedHashMap<>();
+        // and the number of entries their classes register
+        Map<String, Integer> registryEntries = new HashMap<>();
         for (TypeElement annotation : annotations) {
             for (Element e : roundEnv.getElementsAnnotatedWith(annotation)) {
-                if (e.getKind() == ElementKind.CLASS) {
+                if (e.getKind() != ElementKind.CLASS) continue;
+                if (annotation.getQualifiedName().contentEquals(LOG_STRUCT)) {
+                    generateStruct((TypeElement) e);
+                } else {
                     boolean postToFtc = getAnnotationValue(e, "postToFtcDashboard", true);
-                    generate((TypeElement) e, postToFtc);
+                    int entries = generate((TypeElement) e, postToFtc);
+                    if (getAnnotationValue(e, "flattenRegistry", false)) {
+                        String pkg = getPackageName((TypeElement) e);
+                        registries.computeIfAbsent(pkg, k -> new ArrayList<>())
+                                .add(ClassName.get(pkg, e.getSimpleName() + "AutoLogged"));
+                        registryEntries.merge(pkg, entries, Integer::sum);
+                    }
                 }
             }
         }
+        for (Map.Entry<String, List<ClassName>> registry : registries.entrySet()) {
+            if (writtenRegistries.add(registry.getKey())) {
+                generateRegistry(registry.getKey(), registry.getValue(), registryEntries.get(registry.getKey()));
+            } else {
+                // e.g. classes generated by another processor: the registry is already written without them
+                processingEnv.getMessager().printMessage(javax.tools.Diagnostic.Kind.ERROR,
+                        "flattenRegistry classes of package " + registry.getKey() + " found in a later round "
+                                + "can't be added to its " + REGISTRY_NAME + ": " + registry.getValue());
+            }
+        }
         return true;
     }
 
-    private boolean getAnnotationValue(Element element, String key, boolean defaultValue) {
+    private <T> T getAnnotationValue(Element element, String key, T defaultValue) {
+        return getAnnotationValue(element, AUTO_LOG, key, defaultValue);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T getAnnotationValue(Element element, String annotation, String key, T defaultValue) {
         for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
-            if (mirror.getAnnotationType().toString().equals("Ori.Coval.Logging.AutoLog")) {
+            if (mirror.getAnnotationType().toString().equals(annotation)) {
                 for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
                         mirror.getElementValues().entrySet()) {
                     if (entry.getKey().getSimpleName().toString().equals(key)) {
-                        return Boolean.parseBoolean(entry.getValue().getValue().toString());
+                        return (T) entry.getValue().getValue();
                     }
                 }
             }
@@ -71,7 +123,8 @@ public class AutoLogAnnotationProcessor extends AbstractProcessor {
     }
 
 
-    private void generate(TypeElement classElem, boolean postToFtcDashBoard) {
+    /** Generates {@code <Class>AutoLogged}; returns the number of entries it registers. */
+    private int generate(TypeElement classElem, boolean postToFtcDashBoard) {
         String pkg = getPackageName(classElem);
         String orig = classElem.getSimpleName().toString();
         String autoName = orig + "AutoLogged";
@@ -88,9 +141,30 @@ public class AutoLogAnnotationProcessor extends AbstractProcessor {
                 .addJavadoc("Auto-generated telemetry logging\n");
 
 
+        // one static entry handle per logged key, resolved once when the class loads
+        Map<String, String> handles = new LinkedHashMap<>();
+        // their registrations, run in the static block after the entries are reserved
+        CodeBlock.Builder handleInits = CodeBlock.builder();
+        // rate limits (Hz) to apply to individual handles
+        Map<String, Double> handleRates = new LinkedHashMap<>();
+        // a class-level rate gates toLog() in AutoLogManager and caps methods and suppliers
+        Double classRate = getAnnotationValue(classElem, LOG_RATE, "value", null);
+        boolean captureMethodResults = getAnnotationValue(classElem, "captureMethodResults", false);
+        boolean flattenRegistry = getAnnotationValue(classElem, "flattenRegistry", false);
+        // methods whose results are kept for toLog(); overloads after the first log on every call
+        Set<String> capturedMethods = new HashSet<>();
+        // @Replay on the class makes every supplier and parameterless getter an input
+        boolean replayClass = hasAnnotation(classElem, REPLAY);
+        // whether any member is replayed, which needs the cycle marks in the log
+        boolean replayed = false;
+        // replayed members by handle name, to catch a field and a getter sharing one
+        Map<String, Element> replayHandles = new HashMap<>();
+
         // collect supplier fields so we can make one constructor
         List<String> supplierFields = new ArrayList<>();
-        List<String> supplierKeys = new ArrayList<>();
+        List<String> supplierHandles = new ArrayList<>();
+        // replay handles of the supplier fields, null for suppliers that aren't replayed
+        List<String> supplierReplays = new ArrayList<>();
 
         // Fields
         for (Element fe : classElem.getEnclosedElements()) {
@@ -102,20 +176,36 @@ public class AutoLogAnnotationProcessor extends AbstractProcessor {
             TypeMirror t = field.asType();
             TypeKind k = t.getKind();
 
-            boolean isSupplier = (k == TypeKind.DECLARED && t.toString().equals("java.util.function.LongSupplier"))
-                    || (k == TypeKind.DECLARED && t.toString().equals("java.util.function.DoubleSupplier"))
-                    || (k == TypeKind.DECLARED && t.toString().equals("java.util.function.IntSupplier"))
-                    || (k == TypeKind.DECLARED && t.toString().equals("java.util.function.BooleanSupplier"));
+            String supplierType = supplierLogType(t);
+            boolean isSupplier = supplierType != null;
 
-            if (!(k.isPrimitive() || (k == TypeKind.DECLARED && t.toString().equals("java.lang.String")) || k == TypeKind.ARRAY || isSupplier))
+            String key = orig + "/" + fname;
+            ClassName struct = isSupplier ? null : structSerializerOf(t);
+            CodeBlock init = isSupplier ? entryInitializer(key, supplierType) : entryInitializer(key, t);
+            if (init == null)
                 continue;
 
-            String key = orig + "/" + fname;
+            String handle = entryHandle(clsBuilder, handles, handleInits, key, fname, init);
+            Double fieldRate = getAnnotationValue(field, LOG_RATE, "value", isSupplier ? classRate : null);
+            if (fieldRate != null) {
+                handleRates.put(handle, fieldRate);
+            }
+            boolean replay = hasAnnotation(field, REPLAY);
+            if (replay && !isSupplier) {
+                processingEnv.getMessager().printMessage(javax.tools.Diagnostic.Kind.ERROR,
+                        "only supplier fields can be replayed", field);
+            }
             if (isSupplier) {
                 supplierFields.add(fname);
-                supplierKeys.add(key);
+                supplierHandles.add(handle);
+                supplierReplays.add(replay || replayClass
+                        ? replayHandle(clsBuilder, replayHandles, field, key, supplierType) : null);
+                replayed |= replay || replayClass;
+            } else if (struct != null) {
+                toLog.addStatement("$T.log($L, this.$L, $T.INSTANCE, $L)",
+                        WPILOG, handle, fname, struct, postToFtcDashBoard);
             } else {
-                toLog.addStatement("$T.log($S, this.$L, $L)", WPILOG, key, fname, postToFtcDashBoard);
+                toLog.addStatement("$T.log($L, this.$L, $L)", WPILOG, handle, fname, postToFtcDashBoard);
             }
         }
 
@@ -144,16 +234,31 @@ public class AutoLogAnnotationProcessor extends AbstractProcessor {
             if (!supplierFields.isEmpty()) {
                 for (int i = 0; i < supplierFields.size(); i++) {
                     String fname = supplierFields.get(i);
-                    String key = supplierKeys.get(i);
-                    ctor.addStatement(
-                            "super.$L = $T.wrap($S, super.$L, $L)",
-                            fname, SUPPLIER_LOG, key, fname, postToFtcDashBoard
-                    );
+                    String handle = supplierHandles.get(i);
+                    String replay = supplierReplays.get(i);
+                    if (replay != null) {
+                        ctor.addStatement(
+                                "super.$L = $T.wrap($L, $T.wrap($L, super.$L), $L)",
+                                fname, SUPPLIER_LOG, handle, LOG_REPLAY, replay, fname, postToFtcDashBoard
+                        );
+                    } else {
+                        ctor.addStatement(
+                                "super.$L = $T.wrap($L, super.$L, $L)",
+                                fname, SUPPLIER_LOG, handle, fname, postToFtcDashBoard
+                        );
+                    }
                 }
             }
 
-            // Register with AutoLogManager
-            ctor.addStatement("$T.register(this)", AUTO_LOG_MANAGER);
+            // Register with AutoLogManager, or with the package's flattened registry
+            if (flattenRegistry) {
+                ctor.addStatement("$T.register(this, $L)", ClassName.get(pkg, REGISTRY_NAME),
+                        classRate != null ? classRate : 0.0);
+            } else if (classRate != null) {
+                ctor.addStatement("$T.register(this, $L)", AUTO_LOG_MANAGER, classRate);
+            } else {
+                ctor.addStatement("$T.register(this)", AUTO_LOG_MANAGER);
+            }
 
             // Add the constructor to the class
             clsBuilder.addMethod(ctor.build());
@@ -169,11 +274,18 @@ public class AutoLogAnnotationProcessor extends AbstractProcessor {
 //            if (!method.getParameters().isEmpty()) continue;
             TypeMirror rt = method.getReturnType();
             TypeKind rtk = rt.getKind();
-            if (!(rtk.isPrimitive() || (rtk == TypeKind.DECLARED && rt.toString().equals("java.lang.String"))))
+            ClassName struct = structSerializerOf(rt);
+            if (!(rtk.isPrimitive() || (rtk == TypeKind.DECLARED && rt.toString().equals("java.lang.String"))
+                    || struct != null))
                 continue;
             String mname = method.getSimpleName().toString();
             TypeName rtn = TypeName.get(rt);
             String key = orig + "/" + mname;
+            String handle = entryHandle(clsBuilder, handles, handleInits, key, mname, entryInitializer(key, rt));
+            Double methodRate = getAnnotationValue(method, LOG_RATE, "value", classRate);
+            if (methodRate != null) {
+                handleRates.put(handle, methodRate);
+            }
             StringBuilder params = new StringBuilder();
             List<ParameterSpec> paramList = new ArrayList<>();
             for (VariableElement parameter : method.getParameters()) {
@@ -185,14 +297,55 @@ public class AutoLogAnnotationProcessor extends AbstractProcessor {
                 params = new StringBuilder(params.substring(1));
             }
 
+            // inputs marked @Replay return the recorded result while a log is replayed
+            boolean replay = hasAnnotation(method, REPLAY);
+            if (replay && !method.getParameters().isEmpty()) {
+                processingEnv.getMessager().printMessage(javax.tools.Diagnostic.Kind.ERROR,
+                        "only methods without parameters can be replayed", method);
+            } else if (replay && struct != null) {
+                processingEnv.getMessager().printMessage(javax.tools.Diagnostic.Kind.ERROR,
+                        "struct results can't be replayed", method);
+            }
+            replay = (replay || replayClass) && method.getParameters().isEmpty() && struct == null;
+
             // override method
             MethodSpec.Builder overrideBuilder = MethodSpec.methodBuilder(mname)
                     .addAnnotation(Override.class)
                     .addModifiers(Modifier.PUBLIC)
                     .returns(rtn)
-                    .addStatement("$T result = super.$L($L)", rtn, mname, params.toString())
-                    .addParameters(paramList)
-                    .addStatement("return $T.log($S, result, $L)", WPILOG, key, postToFtcDashBoard);
+                    .addParameters(paramList);
+            if (replay) {
+                replayed = true;
+                String replayHandle = replayHandle(clsBuilder, replayHandles, method, key, wpiLogType(rt));
+                overrideBuilder.addStatement("$T result = $T.isActive() ? $L : super.$L()",
+                        rtn, LOG_REPLAY, replayedValue(rt, replayHandle), mname);
+            } else {
+                overrideBuilder.addStatement("$T result = super.$L($L)", rtn, mname, params.toString());
+            }
+            if (captureMethodResults && capturedMethods.add(mname)) {
+                // keep the latest result; toLog() writes it once per cycle
+                String value = mname + "$value";
+                String fresh = mname + "$fresh";
+                clsBuilder.addField(rtn, value, Modifier.PRIVATE);
+                clsBuilder.addField(TypeName.BOOLEAN, fresh, Modifier.PRIVATE);
+                overrideBuilder.addStatement("this.$L = result", value)
+                        .addStatement("this.$L = true", fresh);
+                toLog.beginControlFlow("if (this.$L)", fresh)
+                        .addStatement("this.$L = false", fresh);
+                if (struct != null) {
+                    toLog.addStatement("$T.log($L, this.$L, $T.INSTANCE, $L)",
+                            WPILOG, handle, value, struct, postToFtcDashBoard);
+                } else {
+                    toLog.addStatement("$T.log($L, this.$L, $L)", WPILOG, handle, value, postToFtcDashBoard);
+                }
+                toLog.endControlFlow();
+            } else if (struct != null) {
+                overrideBuilder.addStatement("$T.log($L, result, $T.INSTANCE, $L)",
+                        WPILOG, handle, struct, postToFtcDashBoard);
+            } else {
+                overrideBuilder.addStatement("$T.log($L, result, $L)", WPILOG, handle, postToFtcDashBoard);
+            }
+            overrideBuilder.addStatement("return result");
 
             MethodSpec override  = overrideBuilder.build();
 
@@ -205,6 +358,36 @@ public class AutoLogAnnotationProcessor extends AbstractProcessor {
 
         clsBuilder.addMethod(toLog.build());
 
+        // entries sized up front, registered and declared to the open log in one batch
+        // once when the class loads, then the per-entry options from the annotation
+        boolean onlyOnChange = getAnnotationValue(classElem, "onlyOnChange", false);
+        double keyframeSeconds = getAnnotationValue(classElem, "keyframeSeconds", 0.0);
+        CodeBlock.Builder options = CodeBlock.builder();
+        if (!handles.isEmpty()) {
+            if (flattenRegistry) {
+                // the registry reserves room for all of its classes at once
+                options.addStatement("$T.reserveEntries()", ClassName.get(pkg, REGISTRY_NAME));
+            } else {
+                options.addStatement("$T.reserveEntries($L)", WPILOG, handles.size());
+            }
+            options.add(handleInits.build())
+                    .addStatement("$T.declareEntries()", WPILOG);
+        }
+        if (onlyOnChange) {
+            for (String handle : handles.values()) {
+                options.addStatement("$T.setOnlyOnChange($L, $L)", WPILOG, handle, keyframeSeconds);
+            }
+        }
+        for (Map.Entry<String, Double> rate : handleRates.entrySet()) {
+            options.addStatement("$T.setMaxRate($L, $L)", WPILOG, rate.getKey(), rate.getValue());
+        }
+        if (replayed) {
+            options.addStatement("$T.recordCycles()", AUTO_LOG_MANAGER);
+        }
+        if (!options.isEmpty()) {
+            clsBuilder.addStaticBlock(options.build());
+        }
+
         // Write file
         try {
             assert pkg != null;
@@ -213,6 +396,398 @@ public class AutoLogAnnotationProcessor extends AbstractProcessor {
             processingEnv.getMessager().printMessage(javax.tools.Diagnostic.Kind.ERROR,
                     "Failed to write AutoLogged: " + ex.getMessage());
         }
+        return handles.size();
+    }
+
+    /**
+     * Generates the {@code AutoLoggedRegistry} of a package: one array of instances per
+     * AutoLogged class, each walked by its own loop so the {@code toLog()} call in it only
+     * ever sees that class. Instances of a class are recorded in registration order, and
+     * classes in the order they were processed. The first class to load reserves the
+     * {@code entries} of all of them, so the entry arrays are sized once.
+     */
+    private void generateRegistry(String pkg, List<ClassName> classes, int entries) {
+        ClassName registry = ClassName.get(pkg, REGISTRY_NAME);
+        TypeSpec.Builder cls = TypeSpec.classBuilder(registry)
+                .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                .addSuperinterface(LOGGED_REGISTRY)
+                .addJavadoc("Auto-generated flattened registry of the {@code @AutoLog(flattenRegistry = true)} "
+                        + "classes in this package\n")
+                .addField(FieldSpec.builder(registry, "INSTANCE",
+                                Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                        .initializer("new $T()", registry)
+                        .build())
+                .addStaticBlock(CodeBlock.of("$T.register(INSTANCE);\n", AUTO_LOG_MANAGER))
+                .addField(FieldSpec.builder(TypeName.BOOLEAN, "reserved", Modifier.PRIVATE, Modifier.STATIC)
+                        .build())
+                .addMethod(MethodSpec.constructorBuilder().addModifiers(Modifier.PRIVATE).build())
+                .addMethod(MethodSpec.methodBuilder("reserveEntries")
+                        .addJavadoc("Makes room for the entries of every class in this registry, once\n")
+                        .addModifiers(Modifier.STATIC, Modifier.SYNCHRONIZED)
+                        .addStatement("if (reserved) return")
+                        .addStatement("reserved = true")
+                        .addStatement("$T.reserveEntries($L)", WPILOG, entries)
+                        .build());
+
+        MethodSpec.Builder periodic = MethodSpec.methodBuilder("periodic")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(TypeName.LONG, "now");
+        MethodSpec.Builder setRate = MethodSpec.methodBuilder("setRate")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(LOGGED, "logged")
+                .addParameter(TypeName.LONG, "periodNanos");
+
+        for (ClassName autoLogged : classes) {
+            String name = Character.toLowerCase(autoLogged.simpleName().charAt(0))
+                    + autoLogged.simpleName().substring(1);
+            String periods = name + "Periods";
+            String due = name + "Due";
+            cls.addField(FieldSpec.builder(ArrayTypeName.of(autoLogged), name, Modifier.PRIVATE, Modifier.STATIC)
+                    .initializer("new $T[0]", autoLogged)
+                    .build());
+            cls.addField(FieldSpec.builder(long[].class, periods, Modifier.PRIVATE, Modifier.STATIC)
+                    .initializer("new long[0]")
+                    .build());
+            cls.addField(FieldSpec.builder(long[].class, due, Modifier.PRIVATE, Modifier.STATIC)
+                    .initializer("new long[0]")
+                    .build());
+
+            cls.addMethod(MethodSpec.methodBuilder("register")
+                    .addModifiers(Modifier.STATIC)
+                    .addParameter(autoLogged, "logged")
+                    .addParameter(TypeName.DOUBLE, "hz")
+                    .addStatement("int n = $L.length", name)
+                    .addStatement("$L = $T.copyOf($L, n + 1)", name, Arrays.class, name)
+                    .addStatement("$L = $T.copyOf($L, n + 1)", periods, Arrays.class, periods)
+                    .addStatement("$L = $T.copyOf($L, n + 1)", due, Arrays.class, due)
+                    .addStatement("$L[n] = logged", name)
+                    .addStatement("$L[n] = $T.toPeriodNanos(hz)", periods, AUTO_LOG_MANAGER)
+                    .build());
+
+            periodic.beginControlFlow("for (int i = 0; i < $L.length; i++)", name)
+                    .beginControlFlow("if ($L[i] != 0)", periods)
+                    .addStatement("if (now - $L[i] < 0) continue", due)
+                    .addStatement("$L[i] = $T.nextDue(now, $L[i], $L[i])", due, AUTO_LOG_MANAGER, due, periods)
+                    .endControlFlow()
+                    .addStatement("$L[i].toLog()", name)
+                    .endControlFlow();
+
+            setRate.beginControlFlow("for (int i = 0; i < $L.length; i++)", name)
+                    .addStatement("if ($L[i] == logged) $L[i] = periodNanos", name, periods)
+                    .endControlFlow();
+        }
+        cls.addMethod(periodic.build()).addMethod(setRate.build());
+
+        try {
+            JavaFile.builder(pkg, cls.build()).build().writeTo(processingEnv.getFiler());
+        } catch (IOException ex) {
+            processingEnv.getMessager().printMessage(javax.tools.Diagnostic.Kind.ERROR,
+                    "Failed to write AutoLoggedRegistry: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Returns the name of the static handle field for {@code key}, adding the field
+     * to the generated class, and its registration to {@code handleInits}, the first time
+     * the key is seen.
+     */
+    private String entryHandle(TypeSpec.Builder clsBuilder, Map<String, String> handles,
+                               CodeBlock.Builder handleInits, String key, String memberName,
+                               CodeBlock initializer) {
+        String handle = handles.get(key);
+        if (handle == null) {
+            handle = "ENTRY_" + memberName;
+            clsBuilder.addField(TypeName.INT, handle, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL);
+            handleInits.addStatement("$L = $L", handle, initializer);
+            handles.put(key, handle);
+        }
+        return handle;
+    }
+
+    /**
+     * Adds the static {@code LogReplay} handle of a replayed field or method and returns
+     * its name. {@code wpiType} is the name of the WpiLog TYPE_* constant it was logged as.
+     * A field and a getter of the same name would need the same handle, so replaying both
+     * is reported as an error.
+     */
+    private String replayHandle(TypeSpec.Builder clsBuilder, Map<String, Element> replayHandles,
+                                Element member, String key, String wpiType) {
+        String handle = "REPLAY_" + member.getSimpleName();
+        Element other = replayHandles.put(handle, member);
+        if (other != null) {
+            processingEnv.getMessager().printMessage(javax.tools.Diagnostic.Kind.ERROR,
+                    "a field and a method named " + member.getSimpleName() + " are both replayed; "
+                            + "replay only one of them", member);
+            return handle;
+        }
+        clsBuilder.addField(FieldSpec.builder(TypeName.INT, handle,
+                        Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                .initializer("$T.entry($S, $T.$L)", LOG_REPLAY, key, WPILOG, wpiType)
+                .build());
+        return handle;
+    }
+
+    /** Returns the expression reading the recorded value of a primitive or String getter. */
+    private CodeBlock replayedValue(TypeMirror t, String handle) {
+        switch (t.getKind()) {
+            case BOOLEAN:
+                return CodeBlock.of("$T.getBoolean($L, false)", LOG_REPLAY, handle);
+            case BYTE:
+            case SHORT:
+            case CHAR:
+            case INT:
+                return CodeBlock.of("($T) $T.getLong($L, 0)", TypeName.get(t), LOG_REPLAY, handle);
+            case LONG:
+                return CodeBlock.of("$T.getLong($L, 0)", LOG_REPLAY, handle);
+            case FLOAT:
+                return CodeBlock.of("$T.getFloat($L, 0)", LOG_REPLAY, handle);
+            case DOUBLE:
+                return CodeBlock.of("$T.getDouble($L, 0)", LOG_REPLAY, handle);
+            default:
+                return CodeBlock.of("$T.getString($L, \"\")", LOG_REPLAY, handle);
+        }
+    }
+
+    /**
+     * Returns the expression registering the entry for a value of type {@code t},
+     * or null if WpiLog can't log it.
+     */
+    private CodeBlock entryInitializer(String key, TypeMirror t) {
+        ClassName struct = structSerializerOf(t);
+        if (struct != null) {
+            String register = t.getKind() == TypeKind.ARRAY ? "structArrayEntry" : "structEntry";
+            return CodeBlock.of("$T.$L($S, $T.INSTANCE)", WPILOG, register, key, struct);
+        }
+        return entryInitializer(key, wpiLogType(t));
+    }
+
+    private CodeBlock entryInitializer(String key, String wpiType) {
+        if (wpiType == null) return null;
+        return CodeBlock.of("$T.entry($S, $T.$L)", WPILOG, key, WPILOG, wpiType);
+    }
+
+    /**
+     * Returns the generated serializer of a {@code @LogStruct} type, or of the component
+     * type of an array of one, or null for any other type.
+     */
+    private ClassName structSerializerOf(TypeMirror t) {
+        if (t.getKind() == TypeKind.ARRAY) {
+            t = ((ArrayType) t).getComponentType();
+        }
+        if (t.getKind() != TypeKind.DECLARED) return null;
+        Element type = ((DeclaredType) t).asElement();
+        if (!hasAnnotation(type, LOG_STRUCT)) return null;
+        return ClassName.get(getPackageName((TypeElement) type), type.getSimpleName() + "Struct");
+    }
+
+    private boolean hasAnnotation(Element element, String annotation) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (mirror.getAnnotationType().toString().equals(annotation)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Generates {@code <Class>Struct}, packing the non-static fields of a {@code @LogStruct}
+     * class in declaration order.
+     */
+    private void generateStruct(TypeElement classElem) {
+        String pkg = getPackageName(classElem);
+        String orig = classElem.getSimpleName().toString();
+        ClassName serializer = ClassName.get(pkg, orig + "Struct");
+        TypeName valueType = TypeName.get(classElem.asType());
+
+        List<String> schema = new ArrayList<>();
+        int fixedSize = 0;
+        CodeBlock.Builder nestedSizes = CodeBlock.builder();
+        List<ClassName> nested = new ArrayList<>();
+        MethodSpec.Builder pack = MethodSpec.methodBuilder("pack")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(ByteBuffer.class, "bb")
+                .addParameter(valueType, "value");
+
+        for (Element fe : classElem.getEnclosedElements()) {
+            if (fe.getKind() != ElementKind.FIELD) continue;
+            if (fe.getModifiers().contains(Modifier.STATIC)) continue;
+            String fname = fe.getSimpleName().toString();
+            if (fe.getModifiers().contains(Modifier.PRIVATE)) {
+                processingEnv.getMessager().printMessage(javax.tools.Diagnostic.Kind.ERROR,
+                        "@LogStruct fields can't be private", fe);
+                continue;
+            }
+            TypeMirror t = fe.asType();
+            switch (t.getKind()) {
+                case BOOLEAN:
+                    schema.add("bool " + fname);
+                    fixedSize += 1;
+                    pack.addStatement("bb.put((byte) (value.$L ? 1 : 0))", fname);
+                    break;
+                case BYTE:
+                    schema.add("int8 " + fname);
+                    fixedSize += 1;
+                    pack.addStatement("bb.put(value.$L)", fname);
+                    break;
+                case SHORT:
+                    schema.add("int16 " + fname);
+                    fixedSize += 2;
+                    pack.addStatement("bb.putShort(value.$L)", fname);
+                    break;
+                case CHAR:
+                    schema.add("uint16 " + fname);
+                    fixedSize += 2;
+                    pack.addStatement("bb.putChar(value.$L)", fname);
+                    break;
+                case INT:
+                    schema.add("int32 " + fname);
+                    fixedSize += 4;
+                    pack.addStatement("bb.putInt(value.$L)", fname);
+                    break;
+                case LONG:
+                    schema.add("int64 " + fname);
+                    fixedSize += 8;
+                    pack.addStatement("bb.putLong(value.$L)", fname);
+                    break;
+                case FLOAT:
+                    schema.add("float " + fname);
+                    fixedSize += 4;
+                    pack.addStatement("bb.putFloat(value.$L)", fname);
+                    break;
+                case DOUBLE:
+                    schema.add("double " + fname);
+                    fixedSize += 8;
+                    pack.addStatement("bb.putDouble(value.$L)", fname);
+                    break;
+                default:
+                    ClassName struct = t.getKind() == TypeKind.DECLARED ? structSerializerOf(t) : null;
+                    if (struct == null) {
+                        processingEnv.getMessager().printMessage(javax.tools.Diagnostic.Kind.ERROR,
+                                "@LogStruct fields must be primitives or @LogStruct types", fe);
+                        continue;
+                    }
+                    schema.add(((DeclaredType) t).asElement().getSimpleName() + " " + fname);
+                    nestedSizes.add(" + $T.INSTANCE.getSize()", struct);
+                    pack.addStatement("$T.INSTANCE.pack(bb, value.$L)", struct, fname);
+                    if (!nested.contains(struct)) nested.add(struct);
+            }
+        }
+
+        CodeBlock.Builder nestedArray = CodeBlock.builder().add("new $T<?>[] {", STRUCT_SERIALIZER);
+        for (int i = 0; i < nested.size(); i++) {
+            nestedArray.add(i == 0 ? "$T.INSTANCE" : ", $T.INSTANCE", nested.get(i));
+        }
+        nestedArray.add("}");
+
+        TypeSpec cls = TypeSpec.classBuilder(serializer)
+                .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                .addSuperinterface(ParameterizedTypeName.get(STRUCT_SERIALIZER, valueType))
+                .addJavadoc("Auto-generated struct layout of {@link $T}\n", valueType)
+                .addField(FieldSpec.builder(TypeName.INT, "SIZE",
+                                Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                        .initializer(CodeBlock.builder().add("$L", fixedSize).add(nestedSizes.build()).build())
+                        .build())
+                .addField(FieldSpec.builder(serializer, "INSTANCE",
+                                Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+                        .initializer("new $T()", serializer)
+                        .build())
+                .addMethod(MethodSpec.constructorBuilder().addModifiers(Modifier.PRIVATE).build())
+                .addMethod(MethodSpec.methodBuilder("getTypeName")
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .returns(String.class)
+                        .addStatement("return $S", orig)
+                        .build())
+                .addMethod(MethodSpec.methodBuilder("getSchema")
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .returns(String.class)
+                        .addStatement("return $S", String.join(";", schema))
+                        .build())
+                .addMethod(MethodSpec.methodBuilder("getSize")
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .returns(TypeName.INT)
+                        .addStatement("return SIZE")
+                        .build())
+                .addMethod(pack.build())
+                .addMethod(MethodSpec.methodBuilder("getNested")
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .returns(ArrayTypeName.of(ParameterizedTypeName.get(STRUCT_SERIALIZER,
+                                WildcardTypeName.subtypeOf(Object.class))))
+                        .addStatement("return $L", nestedArray.build())
+                        .build())
+                .build();
+
+        try {
+            assert pkg != null;
+            JavaFile.builder(pkg, cls).build().writeTo(processingEnv.getFiler());
+        } catch (IOException ex) {
+            processingEnv.getMessager().printMessage(javax.tools.Diagnostic.Kind.ERROR,
+                    "Failed to write Struct: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Maps a supplier field type to the WpiLog TYPE_* constant of the value it supplies,
+     * or null if the field is not a supported supplier.
+     */
+    private String supplierLogType(TypeMirror t) {
+        if (t.getKind() != TypeKind.DECLARED) return null;
+        switch (t.toString()) {
+            case "java.util.function.BooleanSupplier":
+                return "TYPE_BOOLEAN";
+            case "java.util.function.IntSupplier":
+            case "java.util.function.LongSupplier":
+                return "TYPE_INT64";
+            case "java.util.function.DoubleSupplier":
+                return "TYPE_DOUBLE";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Maps a field or return type to the name of the matching WpiLog TYPE_* constant,
+     * or null if WpiLog has no overload for it.
+     */
+    private String wpiLogType(TypeMirror t) {
+        switch (t.getKind()) {
+            case BOOLEAN:
+                return "TYPE_BOOLEAN";
+            case BYTE:
+            case SHORT:
+            case CHAR:
+            case INT:
+            case LONG:
+                return "TYPE_INT64";
+            case FLOAT:
+                return "TYPE_FLOAT";
+            case DOUBLE:
+                return "TYPE_DOUBLE";
+            case DECLARED:
+                return t.toString().equals("java.lang.String") ? "TYPE_STRING" : null;
+            case ARRAY:
+                TypeMirror component = ((ArrayType) t).getComponentType();
+                switch (component.getKind()) {
+                    case BOOLEAN:
+                        return "TYPE_BOOLEAN_ARRAY";
+                    case LONG:
+                        return "TYPE_INT64_ARRAY";
+                    case FLOAT:
+                        return "TYPE_FLOAT_ARRAY";
+                    case DOUBLE:
+                        return "TYPE_DOUBLE_ARRAY";
+                    case DECLARED:
+                        return component.toString().equals("java.lang.String") ? "TYPE_STRING_ARRAY" : null;
+                    default:
+                        return null;
+                }
+            default:
+                return null;
+        }
     }
 
     private String getPackageName(TypeElement t) {
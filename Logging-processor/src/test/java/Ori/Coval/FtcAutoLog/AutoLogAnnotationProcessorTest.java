@@ -0,0 +1,135 @@
+package Ori.Coval.FtcAutoLog;
+
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static com.google.testing.compile.Compiler.javac;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+import org.junit.Test;
+
+public class AutoLogAnnotationProcessorTest {
+
+    private static JavaFileObject source(String name, String... lines) {
+        return JavaFileObjects.forSourceLines(name, lines);
+    }
+
+    @Test
+    public void flattenedRegistryCompiles() {
+        Compilation compilation = javac()
+                .withProcessors(new AutoLogAnnotationProcessor())
+                .compile(
+                        source("demo.Arm",
+                                "package demo;",
+                                "@Ori.Coval.Logging.AutoLog(flattenRegistry = true)",
+                                "public class Arm {",
+                                "    public double angle;",
+                                "}"),
+                        source("demo.Lift",
+                                "package demo;",
+                                "@Ori.Coval.Logging.AutoLog(flattenRegistry = true)",
+                                "public class Lift {",
+                                "    public long height;",
+                                "}"));
+        assertThat(compilation).succeeded();
+        // one reservation for the entries of both classes
+        assertThat(compilation).generatedSourceFile("demo.AutoLoggedRegistry")
+                .contentsAsUtf8String().contains("WpiLog.reserveEntries(2)");
+        assertThat(compilation).generatedSourceFile("demo.ArmAutoLogged")
+                .contentsAsUtf8String().contains("AutoLoggedRegistry.reserveEntries()");
+    }
+
+    @Test
+    public void fieldAndGetterBothReplayedIsAnError() {
+        Compilation compilation = javac()
+                .withProcessors(new AutoLogAnnotationProcessor())
+                .compile(source("demo.Drive",
+                        "package demo;",
+                        "import Ori.Coval.Logging.Replay;",
+                        "import java.util.function.DoubleSupplier;",
+                        "@Ori.Coval.Logging.AutoLog",
+                        "public class Drive {",
+                        "    @Replay public DoubleSupplier speed = () -> 1;",
+                        "    @Replay public double speed() { return 2; }",
+                        "}"));
+        assertThat(compilation).hadErrorContaining("a field and a method named speed are both replayed");
+        assertThat(compilation).hadErrorCount(1);
+    }
+
+    @Test
+    public void fieldAndGetterWithOnlyOneReplayedCompile() {
+        Compilation compilation = javac()
+                .withProcessors(new AutoLogAnnotationProcessor())
+                .compile(source("demo.Drive",
+                        "package demo;",
+                        "import Ori.Coval.Logging.Replay;",
+                        "import java.util.function.DoubleSupplier;",
+                        "@Ori.Coval.Logging.AutoLog",
+                        "public class Drive {",
+                        "    @Replay public DoubleSupplier speed = () -> 1;",
+                        "    public double speed() { return 2; }",
+                        "}"));
+        assertThat(compilation).succeeded();
+    }
+
+    /** Generates a flattened @AutoLog class in package demo during the first round. */
+    private static final class LateClassProcessor extends AbstractProcessor {
+        private boolean done;
+
+        @Override
+        public Set<String> getSupportedAnnotationTypes() {
+            return Collections.singleton("*");
+        }
+
+        @Override
+        public SourceVersion getSupportedSourceVersion() {
+            return SourceVersion.latestSupported();
+        }
+
+        @Override
+        public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+            if (done) return false;
+            done = true;
+            try (Writer out = processingEnv.getFiler().createSourceFile("demo.Late").openWriter()) {
+                out.write("package demo;\n"
+                        + "@Ori.Coval.Logging.AutoLog(flattenRegistry = true)\n"
+                        + "public class Late {\n"
+                        + "    public double value;\n"
+                        + "}\n");
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            return false;
+        }
+    }
+
+    @Test
+    public void registryClassesFoundInALaterRoundAreReported() {
+        Compilation compilation = javac()
+                .withProcessors(new LateClassProcessor(), new AutoLogAnnotationProcessor())
+                .compile(source("demo.Arm",
+                        "package demo;",
+                        "@Ori.Coval.Logging.AutoLog(flattenRegistry = true)",
+                        "public class Arm {",
+                        "    public double angle;",
+                        "}"));
+        assertThat(compilation).hadErrorContaining("found in a later round");
+        for (Diagnostic<?> error : compilation.errors()) {
+            if (error.getMessage(null).contains("Failed to write")) {
+                throw new AssertionError("registry written twice: " + error.getMessage(null));
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package Ori.Coval.Logging;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Moves encoded records off the robot loop thread: the loop thread only copies
+ * each record into a {@link RecordRing}, and a dedicated writer thread drains the
+ * ring to the output channel in large batches.
+ */
+final class AsyncLogWriter {
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final WritableByteChannel out;
+    private final RecordRing ring;
+    private final OverflowPolicy policy;
+    private final byte[] batch;
+    private final ByteBuffer batchBuffer;
+    private final Thread thread;
+
+    private volatile boolean running = true;
+    /** Ring position up to which everything has been handed to the output channel. */
+    private volatile long writtenPosition;
+    private volatile long droppedRecords;
+
+    AsyncLogWriter(WritableByteChannel out, int capacity, OverflowPolicy policy) {
+        this.out = out;
+        this.ring = new RecordRing(capacity);
+        this.policy = policy;
+        this.batch = new byte[ring.capacity()];
+        this.batchBuffer = ByteBuffer.wrap(batch);
+        this.thread = new Thread(this::run, "WpiLog-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Queues the complete record between {@code record}'s position and limit.
+     * Called from the logging thread only.
+     */
+    void write(ByteBuffer record) {
+        int len = record.remaining();
+        if (len > ring.capacity() || !running) {
+            droppedRecords++;
+            return;
+        }
+        while (!ring.tryWrite(record)) {
+            if (policy == OverflowPolicy.DROP_OLDEST && ring.dropOldest()) {
+                droppedRecords++;
+            } else {
+                LockSupport.unpark(thread);
+                LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+                if (!running) {
+                    droppedRecords++;
+                    return;
+                }
+            }
+        }
+    }
+
+    /** Blocks until every record queued so far has been written to the channel. */
+    void flush() {
+        long target = ring.headPosition();
+        while (writtenPosition < target && thread.isAlive()) {
+            LockSupport.unpark(thread);
+            LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+        }
+    }
+
+    /**
+     * Drains everything still buffered and stops the writer thread.
+     * The channel itself is closed by the owner.
+     */
+    void close() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Bytes queued and not yet drained by the writer thread. */
+    long queuedBytes() {
+        return ring.size();
+    }
+
+    long getDroppedRecords() {
+        return droppedRecords;
+    }
+
+    private void run() {
+        while (true) {
+            // read the flag before draining so the last batch after close() is never missed
+            boolean stopping = !running;
+            int n = ring.drainTo(batch);
+            if (n > 0) {
+                try {
+                    batchBuffer.clear().limit(n);
+                    while (batchBuffer.hasRemaining()) {
+                        out.write(batchBuffer);
+                    }
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+                writtenPosition = ring.drainedPosition();
+            } else if (stopping) {
+                return;
+            } else {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+        }
+    }
+}
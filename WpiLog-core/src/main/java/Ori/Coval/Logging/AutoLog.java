@@ -0,0 +1,42 @@
+package Ori.Coval.Logging;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a class for which an AutoLogged subclass will be generated.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface AutoLog {
+    boolean postToFtcDashboard() default true;
+
+    /**
+     * Only write a record when a value differs from the last one written.
+     * Useful for flags, modes and other slow-changing signals.
+     */
+    boolean onlyOnChange() default false;
+
+    /**
+     * With {@link #onlyOnChange()}, still write unchanged values this often (in seconds)
+     * so AdvantageScope has a recent sample to interpolate from. 0 disables keyframes.
+     */
+    double keyframeSeconds() default 0;
+
+    /**
+     * Log public method results once per cycle instead of on every call: the generated
+     * override keeps the latest result and {@code toLog()} writes it, if the method was
+     * called since the last cycle. Getters called several times per loop then cost one
+     * record per cycle.
+     */
+    boolean captureMethodResults() default false;
+
+    /**
+     * Register instances with a generated {@code AutoLoggedRegistry} in the class's package
+     * instead of {@link AutoLogManager}'s list. {@link AutoLogManager#periodic()} still
+     * records them, through one loop per class, so each {@code toLog()} call can be inlined.
+     */
+    boolean flattenRegistry() default false;
+}
@@ -0,0 +1,143 @@
+package Ori.Coval.Logging;
+
+import java.util.Arrays;
+
+public class AutoLogManager {
+
+    private static Logged[] loggedClasses = new Logged[8];
+    /** Minimum nanos between two toLog() calls of the instance at the same index, 0 for every cycle. */
+    private static long[] periodNanos = new long[8];
+    private static long[] nextDueNanos = new long[8];
+    private static int count = 0;
+    /** Generated registries of classes marked {@code @AutoLog(flattenRegistry = true)}. */
+    private static LoggedRegistry[] registries = new LoggedRegistry[0];
+    /** Entry marking the end of every cycle for {@link LogReplay}; -1 until {@link #recordCycles()}. */
+    private static volatile int cycleEntry = -1;
+    private static long cycles = 0;
+
+    public static void register(Logged logged){
+        register(logged, 0);
+    }
+
+    /**
+     * Registers an instance whose fields are recorded at most {@code hz} times per second.
+     *
+     * @param hz maximum toLog() calls per second, or 0 to record every cycle
+     */
+    public static void register(Logged logged, double hz){
+        if (count == loggedClasses.length) {
+            loggedClasses = Arrays.copyOf(loggedClasses, count * 2);
+            periodNanos = Arrays.copyOf(periodNanos, count * 2);
+            nextDueNanos = Arrays.copyOf(nextDueNanos, count * 2);
+        }
+        loggedClasses[count] = logged;
+        periodNanos[count] = toPeriodNanos(hz);
+        nextDueNanos[count] = 0;
+        count++;
+    }
+
+    /**
+     * Adds a generated registry; its instances are recorded by {@link #periodic()} after
+     * the ones registered here. Called by the registry itself when it is first used.
+     */
+    public static void register(LoggedRegistry registry){
+        for (LoggedRegistry r : registries) {
+            if (r == registry) return;
+        }
+        registries = Arrays.copyOf(registries, registries.length + 1);
+        registries[registries.length - 1] = registry;
+    }
+
+    /**
+     * Changes the recording rate of an already registered instance.
+     *
+     * @param hz maximum toLog() calls per second, or 0 to record every cycle
+     */
+    public static void setRate(Logged logged, double hz){
+        for (int i = 0; i < count; i++) {
+            if (loggedClasses[i] == logged) {
+                periodNanos[i] = toPeriodNanos(hz);
+            }
+        }
+        for (LoggedRegistry registry : registries) {
+            registry.setRate(logged, toPeriodNanos(hz));
+        }
+    }
+
+    /**
+     * Marks the end of every cycle in the log, under {@code /Logger/Cycle}, so
+     * {@link LogReplay} steps through the cycles the robot actually ran; without the marks
+     * it steps every 20 ms. Classes with {@link Replay} members call it when they load.
+     * Call it yourself to replay a log cycle by cycle without any {@code @Replay} member.
+     */
+    public static synchronized void recordCycles() {
+        if (cycleEntry < 0) {
+            cycleEntry = WpiLog.entry(LogReplay.CYCLE_ENTRY_NAME, WpiLog.TYPE_INT64);
+        }
+    }
+
+    /** Records values from all registered fields that are due this cycle. */
+    public static void periodic() {
+        long now = LogReplay.isActive() ? LogReplay.timestampMicros() * 1000 : System.nanoTime();
+        LoggerMetrics metrics = WpiLog.metrics();
+        if (metrics != null) {
+            timedPeriodic(metrics, now);
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            long period = periodNanos[i];
+            if (period != 0) {
+                if (now - nextDueNanos[i] < 0) continue;
+                nextDueNanos[i] = nextDue(now, nextDueNanos[i], period);
+            }
+            loggedClasses[i].toLog();
+        }
+        for (LoggedRegistry registry : registries) {
+            registry.periodic(now);
+        }
+        if (cycleEntry >= 0) {
+            WpiLog.log(cycleEntry, ++cycles, false);
+        }
+    }
+
+    /** {@link #periodic()} with every instance and registry timed for {@link LoggerMetrics}. */
+    private static void timedPeriodic(LoggerMetrics metrics, long now) {
+        long start = System.nanoTime();
+        long t = start;
+        for (int i = 0; i < count; i++) {
+            long period = periodNanos[i];
+            if (period != 0) {
+                if (now - nextDueNanos[i] < 0) continue;
+                nextDueNanos[i] = nextDue(now, nextDueNanos[i], period);
+            }
+            loggedClasses[i].toLog();
+            long end = System.nanoTime();
+            metrics.instance(i, loggedClasses[i], end - t);
+            t = end;
+        }
+        for (int i = 0; i < registries.length; i++) {
+            t = System.nanoTime();
+            registries[i].periodic(now);
+            metrics.registry(i, registries[i], System.nanoTime() - t);
+        }
+        if (cycleEntry >= 0) {
+            WpiLog.log(cycleEntry, ++cycles, false);
+        }
+        metrics.periodic(System.nanoTime() - start, now);
+    }
+
+    /**
+     * When an instance recorded at {@code now} is next due, given when it was due this time.
+     * Shared with the generated registries.
+     */
+    public static long nextDue(long now, long due, long periodNanos) {
+        // stay on the original schedule unless we fell more than a period behind
+        long next = due + periodNanos;
+        return now - next < 0 ? next : now + periodNanos;
+    }
+
+    /** Converts a rate to the period the registries keep, 0 for every cycle. */
+    public static long toPeriodNanos(double hz) {
+        return hz > 0 ? (long) (1_000_000_000L / hz) : 0;
+    }
+}
@@ -0,0 +1,92 @@
+package Ori.Coval.Logging;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * Typed views of one encode buffer, so arrays are copied into records with one bulk
+ * {@code put} instead of element by element. {@code asLongBuffer()} and friends allocate
+ * a new view on every call, and a view only addresses elements from the byte it was made
+ * at, while an array payload starts wherever its record header ends. So one view is
+ * made per byte alignment, once, and the owner makes a new set only when it replaces
+ * the buffer with a bigger one.
+ */
+final class BufferViews {
+    private final ByteBuffer bytes;
+    private final LongBuffer[] longs = new LongBuffer[8];
+    private final FloatBuffer[] floats = new FloatBuffer[4];
+    private final DoubleBuffer[] doubles = new DoubleBuffer[8];
+    /** The last DoubleBuffer logged and a duplicate of it, so its position is left alone. */
+    private DoubleBuffer source;
+    private DoubleBuffer sourceCopy;
+
+    BufferViews(ByteBuffer bytes) {
+        this.bytes = bytes;
+        for (int k = 0; k < 8; k++) {
+            ByteBuffer from = at(k);
+            longs[k] = from.asLongBuffer();
+            doubles[k] = from.asDoubleBuffer();
+            if (k < 4) {
+                floats[k] = from.asFloatBuffer();
+            }
+        }
+    }
+
+    /** A little-endian duplicate of the buffer starting at byte {@code k}. */
+    private ByteBuffer at(int k) {
+        ByteBuffer d = bytes.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        d.clear();
+        d.position(Math.min(k, d.limit()));
+        return d;
+    }
+
+    /** Whether these are the views of {@code b}. */
+    boolean isOf(ByteBuffer b) {
+        return b == bytes;
+    }
+
+    /** Copies {@code src[offset]} to {@code src[offset + length - 1]} to the buffer's position and moves it past them. */
+    void putLongs(long[] src, int offset, int length) {
+        int p = bytes.position();
+        LongBuffer view = longs[p & 7];
+        view.position(p >> 3);
+        view.put(src, offset, length);
+        bytes.position(p + length * 8);
+    }
+
+    void putFloats(float[] src, int offset, int length) {
+        int p = bytes.position();
+        FloatBuffer view = floats[p & 3];
+        view.position(p >> 2);
+        view.put(src, offset, length);
+        bytes.position(p + length * 4);
+    }
+
+    void putDoubles(double[] src, int offset, int length) {
+        int p = bytes.position();
+        DoubleBuffer view = doubles[p & 7];
+        view.position(p >> 3);
+        view.put(src, offset, length);
+        bytes.position(p + length * 8);
+    }
+
+    /** Copies {@code src} from its position to its limit, leaving {@code src} as it was. */
+    void putDoubles(DoubleBuffer src) {
+        if (src != source) {
+            source = src;
+            sourceCopy = src.duplicate();
+        }
+        DoubleBuffer copy = sourceCopy;
+        copy.limit(src.limit());
+        copy.position(src.position());
+        int p = bytes.position();
+        int length = copy.remaining();
+        DoubleBuffer view = doubles[p & 7];
+        view.position(p >> 3);
+        view.put(copy);
+        bytes.position(p + length * 8);
+    }
+}
@@ -0,0 +1,281 @@
+package Ori.Coval.Logging;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writer for concurrent logging: every logging thread gets its own {@link RecordRing},
+ * so producers never contend with each other, and one writer thread merges the rings
+ * into the output channel.
+ * <p>
+ * Control records go through a separate ring (their producers hold the entry registry's
+ * lock). Each pass copies the data rings out first and the control ring second, then
+ * writes the control records ahead of the data: any data record seen in a pass was
+ * queued after its entry's start record, so that start record is in the same pass or
+ * an earlier one. Data records are merged by timestamp, and a record older than the
+ * last one written for its entry is given that entry's last timestamp, so every entry's
+ * timestamps increase through the file.
+ */
+final class ConcurrentLogWriter {
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final WritableByteChannel out;
+    private final int ringCapacity;
+    private final OverflowPolicy policy;
+    private final RecordRing controlRing;
+    private final Thread thread;
+    private volatile RecordRing[] rings = new RecordRing[0];
+
+    private volatile boolean running = true;
+    /** Completed writer passes, for {@link #flush()}. */
+    private volatile long passes;
+    private final AtomicLong droppedRecords = new AtomicLong();
+
+    // writer thread only
+    private byte[][] batches = new byte[0][];
+    private int[] batchLengths = new int[0];
+    private int[] batchPositions = new int[0];
+    private final byte[] controlBatch;
+    private final byte[] staging = new byte[64 * 1024];
+    private int stagingLength;
+    private long[] lastTimestamps = new long[64];
+    /** Largest possible record header: 1 + 4 (id) + 4 (size) + 8 (timestamp) bytes. */
+    private final byte[] header = new byte[17];
+    private final ByteBuffer headerBuffer = ByteBuffer.wrap(header);
+
+    ConcurrentLogWriter(WritableByteChannel out, int ringCapacity, OverflowPolicy policy) {
+        this.out = out;
+        this.ringCapacity = ringCapacity;
+        this.policy = policy;
+        this.controlRing = new RecordRing(ringCapacity);
+        this.controlBatch = new byte[controlRing.capacity()];
+        this.thread = new Thread(this::run, "WpiLog-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Queues the complete record between {@code record}'s position and limit, encoded on
+     * the producer's thread. Control records must be written with the registry's lock held.
+     */
+    void write(LogProducer producer, ByteBuffer record) {
+        if (isControlRecord(record)) {
+            // never dropped: later records of the entry depend on it
+            queue(controlRing, record, OverflowPolicy.BLOCK);
+        } else {
+            queue(ringOf(producer), record, policy);
+        }
+    }
+
+    private void queue(RecordRing ring, ByteBuffer record, OverflowPolicy policy) {
+        if (record.remaining() > ring.capacity() || !running) {
+            droppedRecords.incrementAndGet();
+            return;
+        }
+        while (!ring.tryWrite(record)) {
+            if (policy == OverflowPolicy.DROP_OLDEST && ring.dropOldest()) {
+                droppedRecords.incrementAndGet();
+            } else {
+                LockSupport.unpark(thread);
+                LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+                if (!running) {
+                    droppedRecords.incrementAndGet();
+                    return;
+                }
+            }
+        }
+    }
+
+    private RecordRing ringOf(LogProducer producer) {
+        if (producer.writer != this) {
+            producer.ring = addRing();
+            producer.writer = this;
+        }
+        return producer.ring;
+    }
+
+    private synchronized RecordRing addRing() {
+        RecordRing ring = new RecordRing(ringCapacity);
+        RecordRing[] grown = Arrays.copyOf(rings, rings.length + 1);
+        grown[grown.length - 1] = ring;
+        rings = grown;
+        return ring;
+    }
+
+    private static boolean isControlRecord(ByteBuffer record) {
+        return LogPreamble.entryId(record, record.position()) == 0;
+    }
+
+    /** Blocks until every record queued before the call has been written to the channel. */
+    void flush() {
+        // the first pass to start after this call sees everything queued before it
+        long target = passes + 2;
+        while (passes < target && thread.isAlive()) {
+            LockSupport.unpark(thread);
+            LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+        }
+    }
+
+    /**
+     * Drains everything still buffered and stops the writer thread.
+     * The channel itself is closed by the owner.
+     */
+    void close() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Bytes queued in all rings and not yet drained by the writer thread. */
+    long queuedBytes() {
+        long total = controlRing.size();
+        for (RecordRing ring : rings) {
+            total += ring.size();
+        }
+        return total;
+    }
+
+    long getDroppedRecords() {
+        return droppedRecords.get();
+    }
+
+    private void run() {
+        while (true) {
+            // read the flag before draining so the last records after close() are never missed
+            boolean stopping = !running;
+            int n = 0;
+            try {
+                n = pass();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            passes++;
+            if (n == 0) {
+                if (stopping) return;
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    /** Drains every ring once and writes the merged records. Returns the bytes drained. */
+    private int pass() throws IOException {
+        RecordRing[] rs = rings;
+        if (batches.length < rs.length) {
+            int old = batches.length;
+            batches = Arrays.copyOf(batches, rs.length);
+            batchLengths = Arrays.copyOf(batchLengths, rs.length);
+            batchPositions = Arrays.copyOf(batchPositions, rs.length);
+            for (int i = old; i < rs.length; i++) {
+                batches[i] = new byte[rs[i].capacity()];
+            }
+        }
+
+        int total = 0;
+        for (int i = 0; i < rs.length; i++) {
+            batchLengths[i] = rs[i].drainTo(batches[i]);
+            batchPositions[i] = 0;
+            total += batchLengths[i];
+        }
+        // after the data rings, so the start record of every data record above is included
+        int control = controlRing.drainTo(controlBatch);
+        emit(controlBatch, 0, control);
+        total += control;
+
+        while (true) {
+            int next = -1;
+            long nextTimestamp = Long.MAX_VALUE;
+            for (int i = 0; i < rs.length; i++) {
+                if (batchPositions[i] < batchLengths[i]) {
+                    long ts = LogPreamble.timestamp(batches[i], batchPositions[i]);
+                    if (next < 0 || ts < nextTimestamp) {
+                        next = i;
+                        nextTimestamp = ts;
+                    }
+                }
+            }
+            if (next < 0) break;
+            batchPositions[next] += emitRecord(batches[next], batchPositions[next]);
+        }
+        flushStaging();
+        return total;
+    }
+
+    /** Writes one data record, raising its timestamp to its entry's last one if needed. */
+    private int emitRecord(byte[] src, int pos) throws IOException {
+        int bitfield = src[pos] & 0xFF;
+        int id = LogPreamble.entryId(src, pos);
+        long ts = LogPreamble.timestamp(src, pos);
+        int headerLen = LogPreamble.recordHeaderLength(bitfield);
+        int length = LogPreamble.recordLength(src, pos);
+        int size = length - headerLen;
+
+        if (id >= lastTimestamps.length) {
+            lastTimestamps = Arrays.copyOf(lastTimestamps, Math.max(id + 1, lastTimestamps.length * 2));
+        }
+        if (ts >= lastTimestamps[id]) {
+            lastTimestamps[id] = ts;
+            emit(src, pos, length);
+        } else {
+            // re-encode the header with the entry's last timestamp, which may need more bytes
+            ts = lastTimestamps[id];
+            int idLen = LogPreamble.idLength(bitfield);
+            int sizeLen = LogPreamble.sizeLength(bitfield);
+            int newTsLen = LogPreamble.byteLength(ts);
+            byte[] h = this.header;
+            ByteBuffer hb = headerBuffer;
+            hb.clear();
+            hb.put(LogPreamble.bitfield(idLen, sizeLen, newTsLen));
+            hb.put(src, pos + 1, idLen + sizeLen);
+            LogPreamble.putLittleEndian(hb, ts, newTsLen);
+            int newHeaderLen = hb.position();
+            // flush before either part, so header and payload never end up in different writes
+            if (newHeaderLen + size > staging.length - stagingLength) {
+                flushStaging();
+            }
+            if (newHeaderLen + size > staging.length) {
+                byte[] record = Arrays.copyOf(h, newHeaderLen + size);
+                System.arraycopy(src, pos + headerLen, record, newHeaderLen, size);
+                writeFully(ByteBuffer.wrap(record));
+            } else {
+                emit(h, 0, newHeaderLen);
+                emit(src, pos + headerLen, size);
+            }
+        }
+        return length;
+    }
+
+    private void emit(byte[] src, int off, int len) throws IOException {
+        if (len > staging.length - stagingLength) {
+            flushStaging();
+            if (len > staging.length) {
+                writeFully(ByteBuffer.wrap(src, off, len));
+                return;
+            }
+        }
+        System.arraycopy(src, off, staging, stagingLength, len);
+        stagingLength += len;
+    }
+
+    private void flushStaging() throws IOException {
+        if (stagingLength > 0) {
+            writeFully(ByteBuffer.wrap(staging, 0, stagingLength));
+            stagingLength = 0;
+        }
+    }
+
+    private void writeFully(ByteBuffer b) throws IOException {
+        while (b.hasRemaining()) {
+            out.write(b);
+        }
+    }
+}
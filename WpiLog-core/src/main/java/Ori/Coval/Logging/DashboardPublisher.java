@@ -0,0 +1,522 @@
+package Ori.Coval.Logging;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Publishes logged values to a {@link TelemetryTarget} (e.g. FTC Dashboard) from its own thread.
+ * <p>
+ * The logging thread only stores the latest value of each entry in a per-entry slot;
+ * older values are simply overwritten. Arrays and structs are copied into buffers the
+ * slot owns, so the caller may reuse or change its array right after logging it; a struct
+ * is kept as its packed bytes and decoded field by field on the publisher thread. At a
+ * fixed rate the publisher thread formats the slots that changed since the last period
+ * and hands the map to the target, so no boxing or string formatting for the dashboard
+ * happens on the robot loop.
+ */
+final class DashboardPublisher {
+    private static final int KIND_BOOLEAN = 0;
+    private static final int KIND_LONG = 1;
+    private static final int KIND_FLOAT = 2;
+    private static final int KIND_DOUBLE = 3;
+    private static final int KIND_STRING = 4;
+    private static final int KIND_BOOLEANS = 5;
+    private static final int KIND_LONGS = 6;
+    private static final int KIND_FLOATS = 7;
+    private static final int KIND_DOUBLES = 8;
+    private static final int KIND_STRINGS = 9;
+    private static final int KIND_STRUCT = 10;
+    private static final int KIND_STRUCTS = 11;
+
+    /** Set in {@link Slot#middle} when it holds a copy the publisher hasn't taken yet. */
+    private static final int FRESH = 4;
+
+    /**
+     * Latest value of one entry. Scalars and strings are single volatile fields. Arrays
+     * and structs use three buffers: the logging thread copies into {@code back} and swaps
+     * it with {@code middle}, the publisher swaps {@code middle} with {@code front} when it
+     * is fresh, so neither ever touches the buffer the other is using and nothing is
+     * allocated once the buffers are big enough.
+     */
+    private static final class Slot {
+        final String name;
+        final int kind;
+        volatile long bits;
+        volatile Object ref;
+        volatile boolean changed;
+
+        final Object[] buffers = new Object[3];
+        final int[] lengths = new int[3];
+        final AtomicInteger middle = new AtomicInteger(2);
+        /** Logging thread only, under the slot's lock. */
+        int back = 0;
+        /** Publisher thread only. */
+        int front = 1;
+        volatile StructSerializer<?> struct;
+
+        Slot(String name, int kind) {
+            this.name = name;
+            this.kind = kind;
+        }
+
+        /** The back buffer, grown to hold at least {@code length} values. */
+        Object back(int length) {
+            Object buffer = buffers[back];
+            if (buffer == null || capacity(buffer) < length) {
+                buffer = newBuffer(kind, Math.max(length, 4));
+                buffers[back] = buffer;
+            }
+            return buffer;
+        }
+
+        /** Hands the back buffer, holding {@code length} values, to the publisher. */
+        void swap(int length) {
+            lengths[back] = length;
+            back = middle.getAndSet(back | FRESH) & ~FRESH;
+        }
+
+        /** Takes the latest copy if there is one the publisher hasn't seen; false otherwise. */
+        boolean take() {
+            if ((middle.get() & FRESH) == 0) {
+                return false;
+            }
+            front = middle.getAndSet(front) & ~FRESH;
+            return true;
+        }
+    }
+
+    private volatile Slot[] slots = new Slot[16];
+    private volatile long periodNanos = TimeUnit.MILLISECONDS.toNanos(50);
+    private volatile TelemetryTarget target;
+    /** Formatted value of every slot, kept between periods; publisher thread only. */
+    private final Map<String, Object> values = new LinkedHashMap<>();
+    private TelemetryTarget sentTo;
+    private Thread thread;
+    /** Whether a background thread sends the posted values; off for a throwaway publisher. */
+    private final boolean background;
+
+    DashboardPublisher() {
+        this(true);
+    }
+
+    DashboardPublisher(boolean background) {
+        this.background = background;
+    }
+
+    /** Sets where values go; null stops publishing. */
+    void setTarget(TelemetryTarget target) {
+        this.target = target;
+    }
+
+    /** Sets how often values are sent to the dashboard. */
+    void setRate(double hz) {
+        if (!(hz > 0)) {
+            throw new IllegalArgumentException("Dashboard rate must be positive: " + hz);
+        }
+        periodNanos = (long) (TimeUnit.SECONDS.toNanos(1) / hz);
+    }
+
+    // ─── Posting (logging thread) ────────────────────────────────────────────
+
+    void post(int id, String name, boolean value) {
+        Slot slot = slot(id, name, KIND_BOOLEAN);
+        slot.bits = value ? 1 : 0;
+        slot.changed = true;
+    }
+
+    void post(int id, String name, long value) {
+        Slot slot = slot(id, name, KIND_LONG);
+        slot.bits = value;
+        slot.changed = true;
+    }
+
+    void post(int id, String name, float value) {
+        Slot slot = slot(id, name, KIND_FLOAT);
+        slot.bits = Float.floatToRawIntBits(value);
+        slot.changed = true;
+    }
+
+    void post(int id, String name, double value) {
+        Slot slot = slot(id, name, KIND_DOUBLE);
+        slot.bits = Double.doubleToRawLongBits(value);
+        slot.changed = true;
+    }
+
+    /** Strings are immutable, so they are kept by reference. */
+    void post(int id, String name, String value) {
+        Slot slot = slot(id, name, KIND_STRING);
+        slot.ref = value;
+        slot.changed = true;
+    }
+
+    void post(int id, String name, boolean[] values) {
+        post(id, name, values, 0, values.length);
+    }
+
+    void post(int id, String name, long[] values) {
+        post(id, name, values, 0, values.length);
+    }
+
+    void post(int id, String name, float[] values) {
+        post(id, name, values, 0, values.length);
+    }
+
+    void post(int id, String name, double[] values) {
+        post(id, name, values, 0, values.length);
+    }
+
+    void post(int id, String name, String[] values) {
+        post(id, name, values, 0, values.length);
+    }
+
+    /** Copies {@code values[offset]} to {@code values[offset + length - 1]}. */
+    void post(int id, String name, boolean[] values, int offset, int length) {
+        Slot slot = slot(id, name, KIND_BOOLEANS);
+        synchronized (slot) {
+            System.arraycopy(values, offset, slot.back(length), 0, length);
+            slot.swap(length);
+        }
+    }
+
+    void post(int id, String name, long[] values, int offset, int length) {
+        Slot slot = slot(id, name, KIND_LONGS);
+        synchronized (slot) {
+            System.arraycopy(values, offset, slot.back(length), 0, length);
+            slot.swap(length);
+        }
+    }
+
+    void post(int id, String name, float[] values, int offset, int length) {
+        Slot slot = slot(id, name, KIND_FLOATS);
+        synchronized (slot) {
+            System.arraycopy(values, offset, slot.back(length), 0, length);
+            slot.swap(length);
+        }
+    }
+
+    void post(int id, String name, double[] values, int offset, int length) {
+        Slot slot = slot(id, name, KIND_DOUBLES);
+        synchronized (slot) {
+            System.arraycopy(values, offset, slot.back(length), 0, length);
+            slot.swap(length);
+        }
+    }
+
+    /** Copies the doubles between the buffer's position and limit; the position is not changed. */
+    void post(int id, String name, DoubleBuffer values) {
+        Slot slot = slot(id, name, KIND_DOUBLES);
+        int p = values.position();
+        int length = values.remaining();
+        synchronized (slot) {
+            double[] copy = (double[]) slot.back(length);
+            for (int i = 0; i < length; i++) {
+                copy[i] = values.get(p + i);
+            }
+            slot.swap(length);
+        }
+    }
+
+    void post(int id, String name, String[] values, int offset, int length) {
+        Slot slot = slot(id, name, KIND_STRINGS);
+        synchronized (slot) {
+            System.arraycopy(values, offset, slot.back(length), 0, length);
+            slot.swap(length);
+        }
+    }
+
+    /** Copies one struct value, packed between the buffer's position and limit. */
+    void post(int id, String name, StructSerializer<?> struct, ByteBuffer packed) {
+        postPacked(slot(id, name, KIND_STRUCT), struct, packed);
+    }
+
+    /** Copies a struct array, packed between the buffer's position and limit. */
+    void postArray(int id, String name, StructSerializer<?> struct, ByteBuffer packed) {
+        postPacked(slot(id, name, KIND_STRUCTS), struct, packed);
+    }
+
+    private static void postPacked(Slot slot, StructSerializer<?> struct, ByteBuffer packed) {
+        int p = packed.position();
+        int length = packed.remaining();
+        synchronized (slot) {
+            byte[] copy = (byte[]) slot.back(length);
+            if (packed.hasArray()) {
+                System.arraycopy(packed.array(), packed.arrayOffset() + p, copy, 0, length);
+            } else {
+                for (int i = 0; i < length; i++) {
+                    copy[i] = packed.get(p + i);
+                }
+            }
+            slot.struct = struct;
+            slot.swap(length);
+        }
+    }
+
+    private Slot slot(int id, String name, int kind) {
+        Slot[] s = slots;
+        if (id < s.length && s[id] != null) {
+            return s[id];
+        }
+        return createSlot(id, name, kind);
+    }
+
+    private synchronized Slot createSlot(int id, String name, int kind) {
+        Slot[] s = slots;
+        if (id >= s.length) {
+            s = Arrays.copyOf(s, Math.max(id + 1, s.length * 2));
+        } else if (s[id] != null) {
+            return s[id];
+        } else {
+            s = s.clone();
+        }
+        Slot slot = new Slot(name, kind);
+        s[id] = slot;
+        slots = s;
+        if (background && thread == null) {
+            thread = new Thread(this::run, "WpiLog-dashboard");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            thread.start();
+        }
+        return slot;
+    }
+
+    private static Object newBuffer(int kind, int length) {
+        switch (kind) {
+            case KIND_BOOLEANS:
+                return new boolean[length];
+            case KIND_LONGS:
+                return new long[length];
+            case KIND_FLOATS:
+                return new float[length];
+            case KIND_DOUBLES:
+                return new double[length];
+            case KIND_STRINGS:
+                return new String[length];
+            default:
+                return new byte[length];
+        }
+    }
+
+    private static int capacity(Object buffer) {
+        if (buffer instanceof boolean[]) return ((boolean[]) buffer).length;
+        if (buffer instanceof long[]) return ((long[]) buffer).length;
+        if (buffer instanceof float[]) return ((float[]) buffer).length;
+        if (buffer instanceof double[]) return ((double[]) buffer).length;
+        if (buffer instanceof String[]) return ((String[]) buffer).length;
+        return ((byte[]) buffer).length;
+    }
+
+    // ─── Publishing (publisher thread) ───────────────────────────────────────
+
+    private void run() {
+        // the first values go out a period after the first post, then once per period
+        long next = System.nanoTime() + periodNanos;
+        while (true) {
+            long wait;
+            while ((wait = next - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, wait);
+            }
+            long start = System.nanoTime();
+            try {
+                publish();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+            next = start + periodNanos;
+        }
+    }
+
+    /** Formats the slots that changed since the last period; sends only if one did. */
+    void publish() {
+        TelemetryTarget t = target;
+        if (t == null) return;
+        boolean changed = t != sentTo;
+        for (Slot slot : slots) {
+            if (slot == null) continue;
+            if (slot.kind <= KIND_STRING) {
+                if (!slot.changed) continue;
+                slot.changed = false;
+            } else if (!slot.take()) {
+                continue;
+            }
+            values.put(slot.name, format(slot));
+            changed = true;
+        }
+        if (changed) {
+            sentTo = t;
+            t.send(values);
+        }
+    }
+
+    private static Object format(Slot slot) {
+        long bits = slot.bits;
+        switch (slot.kind) {
+            case KIND_BOOLEAN:
+                return bits != 0;
+            case KIND_LONG:
+                return bits;
+            case KIND_FLOAT:
+                return Float.intBitsToFloat((int) bits);
+            case KIND_DOUBLE:
+                return Double.longBitsToDouble(bits);
+            case KIND_STRING:
+                return String.valueOf(slot.ref);
+        }
+
+        Object buffer = slot.buffers[slot.front];
+        int length = slot.lengths[slot.front];
+        StringBuilder out = new StringBuilder();
+        switch (slot.kind) {
+            case KIND_BOOLEANS: {
+                boolean[] a = (boolean[]) buffer;
+                out.append('[');
+                for (int i = 0; i < length; i++) out.append(i == 0 ? "" : ", ").append(a[i]);
+                return out.append(']').toString();
+            }
+            case KIND_LONGS: {
+                long[] a = (long[]) buffer;
+                out.append('[');
+                for (int i = 0; i < length; i++) out.append(i == 0 ? "" : ", ").append(a[i]);
+                return out.append(']').toString();
+            }
+            case KIND_FLOATS: {
+                float[] a = (float[]) buffer;
+                out.append('[');
+                for (int i = 0; i < length; i++) out.append(i == 0 ? "" : ", ").append(a[i]);
+                return out.append(']').toString();
+            }
+            case KIND_DOUBLES: {
+                double[] a = (double[]) buffer;
+                out.append('[');
+                for (int i = 0; i < length; i++) out.append(i == 0 ? "" : ", ").append(a[i]);
+                return out.append(']').toString();
+            }
+            case KIND_STRINGS: {
+                String[] a = (String[]) buffer;
+                out.append('[');
+                for (int i = 0; i < length; i++) out.append(i == 0 ? "" : ", ").append(a[i]);
+                return out.append(']').toString();
+            }
+            default: {
+                StructSerializer<?> struct = slot.struct;
+                ByteBuffer packed = ByteBuffer.wrap((byte[]) buffer, 0, length).order(ByteOrder.LITTLE_ENDIAN);
+                int size = Math.max(struct.getSize(), 1);
+                if (slot.kind == KIND_STRUCT) {
+                    appendStruct(out, struct, packed);
+                    return out.toString();
+                }
+                out.append('[');
+                for (int i = 0; i + size <= length; i += size) {
+                    if (i > 0) out.append(", ");
+                    packed.position(i);
+                    appendStruct(out, struct, packed);
+                }
+                return out.append(']').toString();
+            }
+        }
+    }
+
+    // ─── Struct decoding ─────────────────────────────────────────────────────
+    // Reads a packed value back field by field from its WPILib struct schema, e.g.
+    // "double x;double y;Rotation2d rotation" -> Pose2d{x=1.0, y=2.0, rotation=Rotation2d{value=0.5}}.
+
+    /** Appends the struct at the buffer's position, moving the position past it. */
+    private static void appendStruct(StringBuilder out, StructSerializer<?> struct, ByteBuffer packed) {
+        int end = packed.position() + struct.getSize();
+        out.append(struct.getTypeName()).append('{');
+        boolean first = true;
+        for (String declaration : struct.getSchema().split(";")) {
+            String field = declaration.trim();
+            if (field.startsWith("enum")) {
+                // enum {a=1, b=2} int8 name: shown as its integer value
+                field = field.substring(field.indexOf('}') + 1).trim();
+            }
+            if (field.isEmpty()) continue;
+            int space = field.indexOf(' ');
+            if (space < 0 || field.indexOf(':') >= 0) {
+                // bit-fields and anything else unknown: stop rather than misread the rest
+                out.append(first ? "" : ", ").append("...");
+                break;
+            }
+            String type = field.substring(0, space);
+            String name = field.substring(space + 1).trim();
+            int count = 1;
+            int bracket = name.indexOf('[');
+            if (bracket >= 0) {
+                count = Integer.parseInt(name.substring(bracket + 1, name.indexOf(']')).trim());
+                name = name.substring(0, bracket).trim();
+            }
+            out.append(first ? "" : ", ").append(name).append('=');
+            first = false;
+            if (count > 1 || bracket >= 0) {
+                out.append('[');
+                for (int i = 0; i < count; i++) {
+                    if (i > 0) out.append(", ");
+                    if (!appendField(out, struct, type, packed)) break;
+                }
+                out.append(']');
+            } else if (!appendField(out, struct, type, packed)) {
+                break;
+            }
+        }
+        packed.position(Math.min(end, packed.limit()));
+        out.append('}');
+    }
+
+    /** Appends one field of the given schema type; false if the type is unknown. */
+    private static boolean appendField(StringBuilder out, StructSerializer<?> struct, String type, ByteBuffer packed) {
+        switch (type) {
+            case "bool":
+                out.append(packed.get() != 0);
+                return true;
+            case "char":
+                out.append((char) (packed.get() & 0xFF));
+                return true;
+            case "int8":
+                out.append(packed.get());
+                return true;
+            case "uint8":
+                out.append(packed.get() & 0xFF);
+                return true;
+            case "int16":
+                out.append(packed.getShort());
+                return true;
+            case "uint16":
+                out.append(packed.getShort() & 0xFFFF);
+                return true;
+            case "int32":
+                out.append(packed.getInt());
+                return true;
+            case "uint32":
+                out.append(packed.getInt() & 0xFFFFFFFFL);
+                return true;
+            case "int64":
+            case "uint64":
+                out.append(packed.getLong());
+                return true;
+            case "float":
+            case "float32":
+                out.append(packed.getFloat());
+                return true;
+            case "double":
+            case "float64":
+                out.append(packed.getDouble());
+                return true;
+        }
+        for (StructSerializer<?> nested : struct.getNested()) {
+            if (nested.getTypeName().equals(type)) {
+                appendStruct(out, nested, packed);
+                return true;
+            }
+        }
+        out.append('?');
+        return false;
+    }
+}
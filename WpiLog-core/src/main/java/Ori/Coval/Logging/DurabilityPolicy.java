@@ -0,0 +1,50 @@
+package Ori.Coval.Logging;
+
+/**
+ * How often log data is forced from the OS page cache to storage, so a brown-out or a
+ * killed app loses at most the last interval of records.
+ * <p>
+ * Syncs run on a background thread ("WpiLog-sync"); the logging thread only counts
+ * bytes. Set with {@link WpiLog#setDurability(DurabilityPolicy)}.
+ */
+public final class DurabilityPolicy {
+    /** Never sync; the OS writes the data back whenever it likes. */
+    public static final DurabilityPolicy NONE = new DurabilityPolicy(0, 0, false);
+    /** Sync every second, after 1 MB of unsynced data, and when the log is closed. */
+    public static final DurabilityPolicy DEFAULT = new DurabilityPolicy(1000, 1024 * 1024, true);
+
+    private final long syncIntervalMillis;
+    private final long maxUnsyncedBytes;
+    private final boolean syncOnClose;
+
+    /**
+     * @param syncIntervalMillis sync at least this often while data is pending; 0 for no timed syncs
+     * @param maxUnsyncedBytes   also sync once this many bytes are pending; 0 for no limit
+     * @param syncOnClose        sync before the file is closed, e.g. when the OpMode stops
+     */
+    public DurabilityPolicy(long syncIntervalMillis, long maxUnsyncedBytes, boolean syncOnClose) {
+        if (syncIntervalMillis < 0 || maxUnsyncedBytes < 0) {
+            throw new IllegalArgumentException("sync interval and byte limit can't be negative");
+        }
+        this.syncIntervalMillis = syncIntervalMillis;
+        this.maxUnsyncedBytes = maxUnsyncedBytes;
+        this.syncOnClose = syncOnClose;
+    }
+
+    public long getSyncIntervalMillis() {
+        return syncIntervalMillis;
+    }
+
+    public long getMaxUnsyncedBytes() {
+        return maxUnsyncedBytes;
+    }
+
+    public boolean isSyncOnClose() {
+        return syncOnClose;
+    }
+
+    /** True if this policy ever syncs. */
+    boolean isEnabled() {
+        return syncIntervalMillis > 0 || maxUnsyncedBytes > 0 || syncOnClose;
+    }
+}
@@ -0,0 +1,413 @@
+package Ori.Coval.Logging;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Maps entry names to the integer ids used in WPILOG records, and keeps the
+ * per-id state the logger needs on the hot path in plain arrays indexed by id.
+ * Id 0 is reserved for control records.
+ * <p>
+ * Names are resolved through an open-addressing table of primitive ids, kept at most
+ * half full so a lookup is usually one probe. Lookups never lock: a new id is published
+ * in the table only after the arrays have grown to hold it, so any thread that gets an
+ * id sees arrays long enough for it. {@link #reserve(int)} sizes the table and the
+ * arrays up front, so nothing is rehashed or copied once the robot is running.
+ * <p>
+ * Adding a name, changing an entry's options and marking it started synchronize on the
+ * registry. The change-only and rate-limit state is not synchronized: an entry logged
+ * from several threads at once may occasionally write a record it could have skipped.
+ */
+final class EntryRegistry {
+    /** Room for as many names as the per-id arrays below have ids. */
+    private volatile IdTable ids = new IdTable(32);
+    private String[] names = new String[16];
+    private String[] types = new String[16];
+    /**
+     * Whether the entry's start record has been written to the current file (1) or not (0).
+     * Atomic so a thread that sees 1 also sees the start record queued before it was set.
+     */
+    private volatile AtomicIntegerArray started = new AtomicIntegerArray(16);
+    private static final byte FLAG_ONLY_ON_CHANGE = 1;
+    private static final byte FLAG_RATE_LIMITED = 2;
+    /** lastWriteMicros value meaning the next value must be written whatever it is. */
+    private static final long NO_LAST_WRITE = Long.MIN_VALUE;
+
+    /**
+     * FLAG_* bits. Change-only entries skip records whose value equals the last one
+     * written; rate-limited entries skip records until their minimum period has passed.
+     */
+    private byte[] flags = new byte[16];
+    private long[] minPeriodMicros = new long[16];
+    /** Change-only entries still write at least once per this many micros. */
+    private long[] keyframeMicros = new long[16];
+    private long[] lastWriteMicros = new long[16];
+    private long[] lastBits = new long[16];
+    private Object[] lastValue = new Object[16];
+    /** Serializer of struct entries, whose schemas must be written before their start record. */
+    private StructSerializer<?>[] structs = new StructSerializer<?>[16];
+    /** Last string logged to each entry, to notice a value logged twice in a row. */
+    private String[] lastString = new String[16];
+    /** UTF-8 bytes of the entry's repeating string value, or null. */
+    private EncodedString[] encoded = new EncodedString[16];
+    private int largestId = 0;
+
+    /**
+     * Returns the id of {@code name}, assigning the next free id on first use.
+     * The type of an existing entry is never changed.
+     */
+    int register(String name, String type) {
+        int id = ids.get(name);
+        if (id != 0) {
+            return id;
+        }
+        return add(name, type);
+    }
+
+    private synchronized int add(String name, String type) {
+        int id = ids.get(name);
+        if (id != 0) {
+            return id;
+        }
+
+        largestId++;
+        if (largestId >= names.length) {
+            grow(names.length * 2);
+        }
+        if (!ids.hasRoomFor(largestId)) {
+            ids = ids.grow(largestId);
+        }
+        names[largestId] = name;
+        types[largestId] = type;
+        lastWriteMicros[largestId] = NO_LAST_WRITE;
+        ids.put(name, largestId);
+        return largestId;
+    }
+
+    /**
+     * Makes room for {@code count} more entries, so registering them later neither grows
+     * the per-id arrays nor rehashes the name table. Grows at least twofold, so classes
+     * reserving a few entries each as they load don't copy the arrays every time.
+     */
+    synchronized void reserve(int count) {
+        int needed = largestId + count + 1;
+        if (needed > names.length) {
+            grow(Math.max(needed, names.length * 2));
+        }
+        if (!ids.hasRoomFor(needed)) {
+            ids = ids.grow(needed);
+        }
+    }
+
+    private void grow(int newLength) {
+        names = Arrays.copyOf(names, newLength);
+        types = Arrays.copyOf(types, newLength);
+        AtomicIntegerArray grown = new AtomicIntegerArray(newLength);
+        for (int i = 0; i < started.length(); i++) {
+            grown.set(i, started.get(i));
+        }
+        started = grown;
+        flags = Arrays.copyOf(flags, newLength);
+        minPeriodMicros = Arrays.copyOf(minPeriodMicros, newLength);
+        keyframeMicros = Arrays.copyOf(keyframeMicros, newLength);
+        lastWriteMicros = Arrays.copyOf(lastWriteMicros, newLength);
+        lastBits = Arrays.copyOf(lastBits, newLength);
+        lastValue = Arrays.copyOf(lastValue, newLength);
+        structs = Arrays.copyOf(structs, newLength);
+        lastString = Arrays.copyOf(lastString, newLength);
+        encoded = Arrays.copyOf(encoded, newLength);
+    }
+
+    String name(int id) {
+        return names[id];
+    }
+
+    String type(int id) {
+        return types[id];
+    }
+
+    synchronized void setStruct(int id, StructSerializer<?> struct) {
+        structs[id] = struct;
+    }
+
+    StructSerializer<?> struct(int id) {
+        return structs[id];
+    }
+
+    boolean isStarted(int id) {
+        return started.get(id) != 0;
+    }
+
+    /** Called with the registry's lock held, after the start record has been queued. */
+    void markStarted(int id) {
+        started.set(id, 1);
+    }
+
+    /**
+     * Makes the entry skip records that repeat the last written value.
+     *
+     * @param keyframeMicros write the value anyway once this long has passed since the
+     *                       last record, or {@code Long.MAX_VALUE} for never
+     */
+    synchronized void setOnlyOnChange(int id, boolean enabled, long keyframeMicros) {
+        setFlag(id, FLAG_ONLY_ON_CHANGE, enabled);
+        this.keyframeMicros[id] = keyframeMicros;
+    }
+
+    /**
+     * Makes the entry skip records until {@code periodMicros} have passed since the last
+     * one it wrote; 0 removes the limit.
+     */
+    synchronized void setMinPeriod(int id, long periodMicros) {
+        setFlag(id, FLAG_RATE_LIMITED, periodMicros > 0);
+        minPeriodMicros[id] = periodMicros;
+    }
+
+    private void setFlag(int id, byte flag, boolean enabled) {
+        flags[id] = (byte) (enabled ? flags[id] | flag : flags[id] & ~flag);
+    }
+
+    /** True if the entry is change-only or rate-limited, i.e. {@code shouldWrite} may skip values. */
+    boolean isFiltered(int id) {
+        return flags[id] != 0;
+    }
+
+    /**
+     * Decides whether a primitive value (as raw bits) has to be written at {@code ts},
+     * and remembers it as the last written value if so.
+     */
+    boolean shouldWrite(int id, long bits, long ts) {
+        int f = flags[id];
+        if (f == 0) return true;
+        if (hasLastWrite(id)) {
+            long elapsed = ts - lastWriteMicros[id];
+            if ((f & FLAG_RATE_LIMITED) != 0 && elapsed < minPeriodMicros[id]) return false;
+            if ((f & FLAG_ONLY_ON_CHANGE) != 0 && lastBits[id] == bits && elapsed < keyframeMicros[id]) {
+                return false;
+            }
+        }
+        lastBits[id] = bits;
+        lastWriteMicros[id] = ts;
+        return true;
+    }
+
+    /**
+     * Same as {@link #shouldWrite(int, long, long)} for strings and arrays. Arrays are
+     * compared by content, so a changed array is copied once to remember it.
+     */
+    boolean shouldWrite(int id, Object value, long ts) {
+        int f = flags[id];
+        if (f == 0) return true;
+        if (hasLastWrite(id)) {
+            long elapsed = ts - lastWriteMicros[id];
+            if ((f & FLAG_RATE_LIMITED) != 0 && elapsed < minPeriodMicros[id]) return false;
+            if ((f & FLAG_ONLY_ON_CHANGE) != 0 && contentEquals(lastValue[id], value)
+                    && elapsed < keyframeMicros[id]) {
+                return false;
+            }
+        }
+        if ((f & FLAG_ONLY_ON_CHANGE) != 0) {
+            lastValue[id] = copyOf(value);
+        }
+        lastWriteMicros[id] = ts;
+        return true;
+    }
+
+    /**
+     * Same as {@link #shouldWrite(int, long, long)} for packed struct payloads, compared byte
+     * by byte between the buffer's position and limit. The buffer's position is not changed.
+     */
+    boolean shouldWrite(int id, ByteBuffer payload, long ts) {
+        int f = flags[id];
+        if (f == 0) return true;
+        if (hasLastWrite(id)) {
+            long elapsed = ts - lastWriteMicros[id];
+            if ((f & FLAG_RATE_LIMITED) != 0 && elapsed < minPeriodMicros[id]) return false;
+            if ((f & FLAG_ONLY_ON_CHANGE) != 0 && bytesEqual(lastValue[id], payload)
+                    && elapsed < keyframeMicros[id]) {
+                return false;
+            }
+        }
+        if ((f & FLAG_ONLY_ON_CHANGE) != 0) {
+            lastValue[id] = copyBytes(lastValue[id], payload);
+        }
+        lastWriteMicros[id] = ts;
+        return true;
+    }
+
+    private static boolean bytesEqual(Object last, ByteBuffer payload) {
+        if (!(last instanceof byte[])) return false;
+        byte[] bytes = (byte[]) last;
+        if (bytes.length != payload.remaining()) return false;
+        int start = payload.position();
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != payload.get(start + i)) return false;
+        }
+        return true;
+    }
+
+    /** Copies the payload into {@code last} if it has the right size, else into a new array. */
+    private static byte[] copyBytes(Object last, ByteBuffer payload) {
+        int n = payload.remaining();
+        byte[] bytes = last instanceof byte[] && ((byte[]) last).length == n ? (byte[]) last : new byte[n];
+        int start = payload.position();
+        for (int i = 0; i < n; i++) {
+            bytes[i] = payload.get(start + i);
+        }
+        return bytes;
+    }
+
+    private static boolean contentEquals(Object a, Object b) {
+        if (a == b) return true;
+        if (a == null || b == null) return false;
+        if (a instanceof boolean[] && b instanceof boolean[]) return Arrays.equals((boolean[]) a, (boolean[]) b);
+        if (a instanceof long[] && b instanceof long[]) return Arrays.equals((long[]) a, (long[]) b);
+        if (a instanceof float[] && b instanceof float[]) return Arrays.equals((float[]) a, (float[]) b);
+        if (a instanceof double[] && b instanceof double[]) return Arrays.equals((double[]) a, (double[]) b);
+        if (a instanceof Object[] && b instanceof Object[]) return Arrays.equals((Object[]) a, (Object[]) b);
+        return a.equals(b);
+    }
+
+    private static Object copyOf(Object value) {
+        if (value instanceof boolean[]) return ((boolean[]) value).clone();
+        if (value instanceof long[]) return ((long[]) value).clone();
+        if (value instanceof float[]) return ((float[]) value).clone();
+        if (value instanceof double[]) return ((double[]) value).clone();
+        if (value instanceof Object[]) return ((Object[]) value).clone();
+        return value;
+    }
+
+    private boolean hasLastWrite(int id) {
+        return isStarted(id) && lastWriteMicros[id] != NO_LAST_WRITE;
+    }
+
+    /**
+     * Makes every change-only and rate-limited entry write its next value, so a new log
+     * segment gets a value for each of them even if they don't change for a while.
+     */
+    synchronized void forceNextWrite() {
+        Arrays.fill(lastWriteMicros, NO_LAST_WRITE);
+    }
+
+    // ─── Encoded strings ─────────────────────────────────────────────────────
+    // Mode and state strings repeat for many loops, so each entry keeps the bytes of its
+    // last value once it has been logged twice in a row. A value that changes every loop is
+    // never copied, so it costs no garbage either. The bytes and their string are published
+    // together in one immutable object, so a thread never pairs a string with other bytes.
+
+    /** The UTF-8 bytes of {@code s} if it is the entry's cached value (the same or an equal string), else null. */
+    byte[] encoded(int id, String s) {
+        EncodedString e = encoded[id];
+        if (e != null && (e.value == s || e.value.equals(s))) {
+            return e.bytes;
+        }
+        return null;
+    }
+
+    /**
+     * Called after {@code s} was encoded into {@code b} at {@code start}; keeps a copy of the
+     * bytes if the entry's previous string was the same value.
+     */
+    void encodedInto(int id, String s, ByteBuffer b, int start, int length) {
+        String last = lastString[id];
+        lastString[id] = s;
+        if (s != last && !s.equals(last)) {
+            return;
+        }
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = b.get(start + i);
+        }
+        encoded[id] = new EncodedString(s, bytes);
+    }
+
+    private static final class EncodedString {
+        final String value;
+        final byte[] bytes;
+
+        EncodedString(String value, byte[] bytes) {
+            this.value = value;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Forgets which start records and values were written, e.g. when a new file is opened,
+     * so every entry writes its next value even if it was declared before it.
+     */
+    synchronized void clearStarted() {
+        AtomicIntegerArray marks = started;
+        for (int i = 0; i < marks.length(); i++) {
+            marks.set(i, 0);
+        }
+        Arrays.fill(lastWriteMicros, NO_LAST_WRITE);
+    }
+
+    int largestId() {
+        return largestId;
+    }
+
+    // ─── Name table ──────────────────────────────────────────────────────────
+
+    /**
+     * Open-addressing map from names to ids (never 0) with linear probing. Readers don't
+     * lock: a slot's id is written before its key, and the key is written and read through
+     * an atomic array, so a reader that finds the key also sees the id and everything the
+     * registry did before publishing it. Writers hold the registry's lock. A full table is
+     * replaced by a larger copy; readers still on the old one just miss new names and take
+     * the locked path.
+     */
+    private static final class IdTable {
+        private final AtomicReferenceArray<String> keys;
+        private final int[] values;
+        private final int mask;
+
+        /** A table of at least {@code minSlots} slots, rounded up to a power of two. */
+        IdTable(int minSlots) {
+            int slots = Integer.highestOneBit(Math.max(minSlots, 2) - 1) << 1;
+            keys = new AtomicReferenceArray<>(slots);
+            values = new int[slots];
+            mask = slots - 1;
+        }
+
+        /** The id of {@code name}, or 0 if it has none yet. */
+        int get(String name) {
+            for (int i = spread(name.hashCode()) & mask; ; i = (i + 1) & mask) {
+                String key = keys.get(i);
+                if (key == null) return 0;
+                if (key == name || key.equals(name)) return values[i];
+            }
+        }
+
+        /** Whether {@code count} names fit while keeping the table at most half full. */
+        boolean hasRoomFor(int count) {
+            return count * 2 <= keys.length();
+        }
+
+        void put(String name, int id) {
+            int i = spread(name.hashCode()) & mask;
+            while (keys.get(i) != null) {
+                i = (i + 1) & mask;
+            }
+            values[i] = id;
+            keys.set(i, name);
+        }
+
+        /** A copy with room for {@code count} names, at least twice this table's size. */
+        IdTable grow(int count) {
+            IdTable grown = new IdTable(Math.max(count * 2, keys.length() * 2));
+            for (int i = 0; i < keys.length(); i++) {
+                String key = keys.get(i);
+                if (key != null) grown.put(key, values[i]);
+            }
+            return grown;
+        }
+
+        /** Spreads the hash's high bits down, since the table only uses the low ones. */
+        private static int spread(int h) {
+            return h ^ (h >>> 16);
+        }
+    }
+}
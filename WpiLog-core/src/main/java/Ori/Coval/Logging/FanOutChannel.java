@@ -0,0 +1,297 @@
+package Ori.Coval.Logging;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes the log stream to the log file and copies it to the outputs {@link LogSink}s
+ * attach. The file gets every write unchanged, before any output. Each record is encoded
+ * once; the channel finds record boundaries in the stream, keeps its {@link LogPreamble}
+ * for outputs attaching later, and hands each write's run of whole records to every
+ * output at once, so a buffered output costs one copy into its ring per write.
+ */
+final class FanOutChannel implements WritableByteChannel, LogStream {
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long CLOSE_WAIT_MILLIS = 1000;
+
+    private final WritableByteChannel primary;
+    private final LogPreamble preamble = new LogPreamble();
+    private Output[] outputs = new Output[0];
+    private boolean open = true;
+
+    /** Bytes of a record (or of the header) split across writes. */
+    private byte[] pending = new byte[64];
+    private int pendingLength;
+
+    FanOutChannel(WritableByteChannel primary) {
+        this.primary = primary;
+    }
+
+    @Override
+    public synchronized int write(ByteBuffer src) throws IOException {
+        if (!open) throw new ClosedChannelException();
+        int from = src.position();
+        int limit = src.limit();
+        while (src.hasRemaining()) {
+            primary.write(src);
+        }
+
+        int p = from;
+        if (pendingLength > 0 || preamble.header() == null) {
+            // finish the split record (or the header) byte by byte first
+            while (p < limit) {
+                append(src.get(p++));
+                int length = preamble.header() == null ? LogPreamble.headerLength(pending, pendingLength)
+                        : LogPreamble.recordLength(ByteBuffer.wrap(pending), 0, pendingLength);
+                if (length > 0 && pendingLength == length) {
+                    byte[] whole = Arrays.copyOf(pending, length);
+                    pendingLength = 0;
+                    if (preamble.header() == null) {
+                        preamble.setHeader(whole);
+                    } else {
+                        preamble.record(ByteBuffer.wrap(whole), 0);
+                        offer(ByteBuffer.wrap(whole));
+                    }
+                    break;
+                }
+            }
+        }
+
+        int runStart = p;
+        while (p < limit) {
+            int length = LogPreamble.recordLength(src, p, limit - p);
+            if (length < 0 || p + length > limit) break;
+            preamble.record(src, p);
+            p += length;
+        }
+        if (p > runStart) {
+            src.limit(p).position(runStart);
+            offer(src);
+            src.limit(limit);
+        }
+        while (p < limit) {
+            append(src.get(p++));
+        }
+        src.position(limit);
+        return limit - from;
+    }
+
+    /** Hands the whole records between {@code run}'s position and limit to every output. */
+    private void offer(ByteBuffer run) {
+        int from = run.position();
+        for (Output output : outputs) {
+            run.position(from);
+            if (!output.offer(run)) {
+                detach(output);
+            }
+        }
+    }
+
+    @Override
+    public synchronized boolean attach(WritableByteChannel out, int bufferBytes, OverflowPolicy policy) {
+        if (!open || preamble.header() == null) return false;
+        byte[] records = preamble.records();
+        Output output;
+        try {
+            if (bufferBytes > 0) {
+                BufferedOutput buffered = new BufferedOutput(out, bufferBytes, policy, preamble.header());
+                if (!buffered.offer(ByteBuffer.wrap(records))) {
+                    buffered.close();
+                    return false;
+                }
+                buffered.start();
+                output = buffered;
+            } else {
+                output = new DirectOutput(out);
+                writeFully(out, ByteBuffer.wrap(preamble.header()));
+                writeFully(out, ByteBuffer.wrap(records));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            closeQuietly(out);
+            return false;
+        }
+        outputs = Arrays.copyOf(outputs, outputs.length + 1);
+        outputs[outputs.length - 1] = output;
+        return true;
+    }
+
+    private void detach(Output output) {
+        Output[] remaining = new Output[outputs.length - 1];
+        int n = 0;
+        for (Output o : outputs) {
+            if (o != output) remaining[n++] = o;
+        }
+        outputs = remaining;
+        output.close();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return primary.isOpen();
+    }
+
+    /** Drains and closes every output, then closes the log file. */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!open) return;
+        open = false;
+        for (Output output : outputs) {
+            output.close();
+        }
+        outputs = new Output[0];
+        primary.close();
+    }
+
+    private void append(byte v) {
+        if (pendingLength == pending.length) {
+            pending = Arrays.copyOf(pending, pending.length * 2);
+        }
+        pending[pendingLength++] = v;
+    }
+
+    private static void writeFully(WritableByteChannel out, ByteBuffer b) throws IOException {
+        while (b.hasRemaining()) {
+            out.write(b);
+        }
+    }
+
+    private static void closeQuietly(WritableByteChannel out) {
+        try {
+            out.close();
+        } catch (IOException ignored) {
+            // already broken
+        }
+    }
+
+    // ─── Outputs ─────────────────────────────────────────────────────────────
+
+    private interface Output {
+        /** Takes a run of whole records; false if the output has to be detached. */
+        boolean offer(ByteBuffer run);
+
+        void close();
+    }
+
+    /** Written on the thread writing the log file. */
+    private static final class DirectOutput implements Output {
+        private final WritableByteChannel out;
+
+        DirectOutput(WritableByteChannel out) {
+            this.out = out;
+        }
+
+        @Override
+        public boolean offer(ByteBuffer run) {
+            try {
+                writeFully(out, run);
+                return true;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public void close() {
+            closeQuietly(out);
+        }
+    }
+
+    /** Queued in a {@link RecordRing} and written by a thread of its own, like {@link AsyncLogWriter}. */
+    private static final class BufferedOutput implements Output {
+        private final WritableByteChannel out;
+        private final RecordRing ring;
+        private final OverflowPolicy policy;
+        private final byte[] header;
+        private final byte[] batch;
+        private final ByteBuffer batchBuffer;
+        private final Thread thread;
+
+        private volatile boolean running = true;
+
+        BufferedOutput(WritableByteChannel out, int capacity, OverflowPolicy policy, byte[] header) {
+            this.out = out;
+            this.ring = new RecordRing(capacity);
+            this.policy = policy;
+            this.header = header;
+            this.batch = new byte[ring.capacity()];
+            this.batchBuffer = ByteBuffer.wrap(batch);
+            this.thread = new Thread(this::run, "WpiLog-sink");
+            this.thread.setDaemon(true);
+        }
+
+        void start() {
+            thread.start();
+        }
+
+        @Override
+        public boolean offer(ByteBuffer run) {
+            if (!running || run.remaining() > ring.capacity()) return false;
+            while (!ring.tryWrite(run)) {
+                if (policy == OverflowPolicy.DROP_OLDEST) {
+                    // nothing but start records left to drop: the output is too far behind
+                    // (an empty ring was drained by the output's thread meanwhile: try again)
+                    if (!ring.dropOldest() && ring.size() > 0) return false;
+                } else {
+                    LockSupport.unpark(thread);
+                    LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+                    if (!running) return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Lets the thread drain what is queued and close the output; an output still
+         * stuck in a write after a second is closed underneath it.
+         */
+        @Override
+        public void close() {
+            running = false;
+            if (!thread.isAlive()) {
+                closeQuietly(out);
+                return;
+            }
+            LockSupport.unpark(thread);
+            try {
+                thread.join(CLOSE_WAIT_MILLIS);
+                if (thread.isAlive()) {
+                    closeQuietly(out);
+                    thread.join();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void run() {
+            try {
+                writeFully(out, ByteBuffer.wrap(header));
+                while (true) {
+                    // read the flag before draining so the last batch after close() is never missed
+                    boolean stopping = !running;
+                    int n = ring.drainTo(batch);
+                    if (n > 0) {
+                        batchBuffer.clear().limit(n);
+                        writeFully(out, batchBuffer);
+                    } else if (stopping) {
+                        return;
+                    } else {
+                        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    }
+                }
+            } catch (IOException e) {
+                // the reader went away; the next offer detaches this output
+                running = false;
+            } finally {
+                closeQuietly(out);
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package Ori.Coval.Logging;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-bucket histogram of durations in microseconds. Bucket 0 counts durations under
+ * 1 µs and bucket {@code i} those from 2<sup>i-1</sup> up to 2<sup>i</sup> µs; the last
+ * bucket also takes everything longer. Recording is a few arithmetic operations and
+ * never allocates.
+ */
+final class LatencyHistogram {
+    static final int BUCKETS = 21;          // up to ~1 s, then the overflow bucket
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long sumMicros;
+    private long maxMicros;
+
+    synchronized void record(long nanos) {
+        long micros = nanos / 1000;
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        counts[bucket]++;
+        count++;
+        sumMicros += micros;
+        if (micros > maxMicros) maxMicros = micros;
+    }
+
+    /**
+     * Copies the bucket counts and {@code {count, mean, max, p50, p99}} (in µs) since the
+     * last call into the given arrays, then starts over.
+     */
+    synchronized void drainTo(long[] bucketCounts, double[] stats) {
+        System.arraycopy(counts, 0, bucketCounts, 0, BUCKETS);
+        stats[0] = count;
+        stats[1] = count == 0 ? 0 : (double) sumMicros / count;
+        stats[2] = maxMicros;
+        stats[3] = percentile(0.50);
+        stats[4] = percentile(0.99);
+        Arrays.fill(counts, 0);
+        count = 0;
+        sumMicros = 0;
+        maxMicros = 0;
+    }
+
+    /** Upper bound of the bucket holding the {@code p} quantile, capped at the max seen. */
+    private double percentile(double p) {
+        if (count == 0) return 0;
+        long rank = (long) Math.ceil(p * count);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(1L << i, maxMicros);
+            }
+        }
+        return maxMicros;
+    }
+}
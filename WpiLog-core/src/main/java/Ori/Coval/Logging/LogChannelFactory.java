@@ -0,0 +1,17 @@
+package Ori.Coval.Logging;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Opens the channel a log file (or a rotated segment of it) is written through.
+ */
+public interface LogChannelFactory {
+    /** Plain file writes through {@link FileOutputStream}; works on every Android version. */
+    LogChannelFactory FILE = file -> new FileOutputStream(file).getChannel();
+
+    /** Opens {@code file} for writing, replacing it if it exists. */
+    WritableByteChannel open(File file) throws IOException;
+}
@@ -0,0 +1,131 @@
+package Ori.Coval.Logging;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses closed log files into the framed ".wpilogz" format, on the
+ * {@link LogHousekeeper} thread.
+ * <p>
+ * The log is cut into blocks of {@link #BLOCK_SIZE} bytes, each deflated on its own, so a
+ * reader can start decompressing at any block; a table of block offsets at the end of the
+ * file maps a log offset to its block. {@code WpiLogDecompressor} in WpiLog-reader turns
+ * the file back into a {@code .wpilog}. All numbers are big-endian.
+ * <pre>
+ * header:  int magic "WPIZ", int version, int block size
+ * block:   int original length, int compressed length, raw deflate data
+ * footer:  long offset of each block, int block count, long original length, int magic
+ * </pre>
+ */
+final class LogCompressor {
+    static final String COMPRESSED_SUFFIX = ".wpilogz";
+    static final int MAGIC = 0x5750495A; // "WPIZ"
+    static final int FORMAT_VERSION = 1;
+    static final int BLOCK_SIZE = 1 << 20;
+
+    private LogCompressor() {
+    }
+
+    /**
+     * Writes {@code log} compressed next to it as {@code <name>.wpilogz}, then deletes the
+     * original. The compressed file only appears once it is complete, so a crash halfway
+     * leaves the original in place. Failures are printed and leave the original too.
+     */
+    static void compress(File log) {
+        if (!log.isFile()) return;
+        File target = compressedFile(log);
+        File temp = new File(target.getPath() + ".tmp");
+        try {
+            write(log, temp);
+            if (!temp.renameTo(target)) {
+                throw new IOException("Unable to rename " + temp + " to " + target);
+            }
+            // keep the log's age, which retention goes by
+            target.setLastModified(log.lastModified());
+            log.delete();
+        } catch (IOException e) {
+            e.printStackTrace();
+            temp.delete();
+        }
+    }
+
+    /** "match.wpilog" becomes "match.wpilogz"; other names get the suffix appended. */
+    static File compressedFile(File log) {
+        String name = log.getName();
+        if (name.endsWith(LogHousekeeper.LOG_SUFFIX)) {
+            name = name.substring(0, name.length() - LogHousekeeper.LOG_SUFFIX.length());
+        }
+        return new File(log.getParentFile(), name + COMPRESSED_SUFFIX);
+    }
+
+    private static void write(File log, File out) throws IOException {
+        byte[] block = new byte[BLOCK_SIZE];
+        // deflate output can be slightly larger than its input for incompressible data
+        byte[] compressed = new byte[BLOCK_SIZE + BLOCK_SIZE / 1000 + 64];
+        long[] offsets = new long[16];
+        int blocks = 0;
+        long originalLength = 0;
+        // the fastest level: record headers and slowly changing values still shrink well
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try (InputStream in = new FileInputStream(log);
+             FileOutputStream file = new FileOutputStream(out);
+             DataOutputStream dst = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            dst.writeInt(MAGIC);
+            dst.writeInt(FORMAT_VERSION);
+            dst.writeInt(BLOCK_SIZE);
+            int n;
+            while ((n = readBlock(in, block)) > 0) {
+                deflater.reset();
+                deflater.setInput(block, 0, n);
+                deflater.finish();
+                int length = 0;
+                while (!deflater.finished()) {
+                    if (length == compressed.length) {
+                        compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                    }
+                    length += deflater.deflate(compressed, length, compressed.length - length);
+                }
+
+                if (blocks == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, blocks * 2);
+                }
+                offsets[blocks++] = dst.size();
+                dst.writeInt(n);
+                dst.writeInt(length);
+                dst.write(compressed, 0, length);
+                originalLength += n;
+                // let anything else that wants the CPU run between blocks
+                Thread.yield();
+            }
+            for (int i = 0; i < blocks; i++) {
+                dst.writeLong(offsets[i]);
+            }
+            dst.writeInt(blocks);
+            dst.writeLong(originalLength);
+            dst.writeInt(MAGIC);
+            dst.flush();
+            // on storage before the original is deleted, in case the robot loses power
+            file.getFD().sync();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /** Fills {@code block} unless the stream ends first; returns the bytes read. */
+    private static int readBlock(InputStream in, byte[] block) throws IOException {
+        int n = 0;
+        while (n < block.length) {
+            int r = in.read(block, n, block.length - n);
+            if (r < 0) break;
+            n += r;
+        }
+        return n;
+    }
+}
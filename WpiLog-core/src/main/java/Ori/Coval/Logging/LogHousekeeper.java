@@ -0,0 +1,100 @@
+package Ori.Coval.Logging;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.regex.Pattern;
+
+/**
+ * Background file work that must never slow the robot loop: closing finished segments,
+ * compressing them and deleting old logs. Jobs run in order on one daemon thread at minimum priority,
+ * started on first use.
+ */
+final class LogHousekeeper {
+    static final String LOG_SUFFIX = ".wpilog";
+    /** Optional {@code _2}, {@code _3}, ... of a log's later segments. */
+    private static final String SEGMENT_NUMBER = "(_\\d+)?";
+    /** Stem of {@link WpiLog#timestampedFileName()} names, with an optional segment number. */
+    private static final Pattern TIMESTAMPED =
+            Pattern.compile("\\d{4}-\\d{2}-\\d{2}_\\d{2}-\\d{2}-\\d{2}" + SEGMENT_NUMBER);
+
+    private final LinkedBlockingQueue<Runnable> jobs = new LinkedBlockingQueue<>();
+    private Thread thread;
+
+    synchronized void submit(Runnable job) {
+        if (thread == null) {
+            thread = new Thread(this::run, "WpiLog-files");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            thread.start();
+        }
+        jobs.add(job);
+    }
+
+    private void run() {
+        while (true) {
+            try {
+                jobs.take().run();
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Deletes the oldest logs in {@code dir} until the logs left take at most
+     * {@code maxTotalBytes}. Only the logger's own logs count, see {@link #isOwnLog};
+     * files in {@code keep} (the ones still being written) are never deleted.
+     *
+     * @param logName name of the first file of the log being written
+     */
+    static void enforceRetention(File dir, long maxTotalBytes, String logName, File... keep) {
+        File[] files = dir.listFiles((d, name) -> isOwnLog(name, logName));
+        if (files == null) return;
+        List<File> kept = Arrays.asList(keep);
+        List<File> candidates = new ArrayList<>();
+        long total = 0;
+        for (File f : files) {
+            total += f.length();
+            if (!kept.contains(f)) candidates.add(f);
+        }
+        candidates.sort(Comparator.comparingLong(File::lastModified));
+        for (File f : candidates) {
+            if (total <= maxTotalBytes) break;
+            long length = f.length();
+            if (f.delete()) {
+                total -= length;
+            }
+        }
+    }
+
+    /**
+     * Whether {@code name} is a log or compressed log this logger wrote: named by
+     * {@link WpiLog#timestampedFileName()} or like {@code logName}, either one optionally
+     * with a segment number ({@code _2}, {@code _3}, ...). Other files in the directory,
+     * flight recorder dumps included, are left alone.
+     */
+    static boolean isOwnLog(String name, String logName) {
+        String stem = stem(name);
+        if (stem == null) return false;
+        if (TIMESTAMPED.matcher(stem).matches()) return true;
+        String logStem = stem(logName);
+        return logStem != null && stem.matches(Pattern.quote(logStem) + SEGMENT_NUMBER);
+    }
+
+    /** {@code name} without its log or compressed log suffix; null for other files. */
+    private static String stem(String name) {
+        if (name.endsWith(LOG_SUFFIX)) {
+            return name.substring(0, name.length() - LOG_SUFFIX.length());
+        }
+        if (name.endsWith(LogCompressor.COMPRESSED_SUFFIX)) {
+            return name.substring(0, name.length() - LogCompressor.COMPRESSED_SUFFIX.length());
+        }
+        return null;
+    }
+}
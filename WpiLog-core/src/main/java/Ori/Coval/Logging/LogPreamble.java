@@ -0,0 +1,224 @@
+package Ori.Coval.Logging;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * What a reader has to see before it can make sense of records from the middle of a log:
+ * the file header, the start record (and latest metadata record) of every active entry,
+ * and the latest value of every struct schema entry. Fed with every record of the
+ * stream, so a rotated segment, a late network client or a memory snapshot can begin
+ * with a copy of it. Also holds the record header encoding and parsing the rest of the
+ * library shares.
+ */
+final class LogPreamble {
+    private static final String SCHEMA_TYPE = "structschema";
+
+    /** The WPILOG header, once it has been seen. */
+    private byte[] header;
+    private final Map<Integer, byte[]> starts = new LinkedHashMap<>();
+    private final Map<Integer, byte[]> metadata = new HashMap<>();
+    private final Map<Integer, byte[]> schemas = new LinkedHashMap<>();
+
+    byte[] header() {
+        return header;
+    }
+
+    void setHeader(byte[] header) {
+        this.header = header;
+    }
+
+    /** Whether {@code id} is an active entry. */
+    boolean isStarted(int id) {
+        return starts.containsKey(id);
+    }
+
+    /** Whether {@code id} is an active struct schema entry, whose value the preamble keeps. */
+    boolean isSchema(int id) {
+        return schemas.containsKey(id);
+    }
+
+    /** Remembers what a reader starting later needs from the record starting at {@code p}. */
+    void record(ByteBuffer b, int p) {
+        int id = entryId(b, p);
+        int size = payloadSize(b, p);
+        int payload = p + recordHeaderLength(b.get(p) & 0xFF);
+        int length = payload - p + size;
+
+        if (id != 0) {
+            if (schemas.containsKey(id)) {
+                schemas.put(id, copy(b, p, length));
+            }
+            return;
+        }
+        if (size < 5) return;
+        int target = (int) readLittleEndian(b, payload + 1, 4);
+        switch (b.get(payload)) {
+            case 0: {
+                starts.put(target, copy(b, p, length));
+                // start payload: type, id, name length, name, type length, type, ...
+                int nameLen = (int) readLittleEndian(b, payload + 5, 4);
+                int typePos = payload + 9 + nameLen;
+                int typeLen = (int) readLittleEndian(b, typePos, 4);
+                if (typeLen == SCHEMA_TYPE.length() && matches(b, typePos + 4, SCHEMA_TYPE)) {
+                    schemas.put(target, null);
+                }
+                break;
+            }
+            case 1:
+                starts.remove(target);
+                metadata.remove(target);
+                schemas.remove(target);
+                break;
+            case 2:
+                metadata.put(target, copy(b, p, length));
+                break;
+            default:
+                break;
+        }
+    }
+
+    /** The start, metadata and schema records, without the header. */
+    byte[] records() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] start : starts.values()) {
+            out.write(start, 0, start.length);
+        }
+        for (byte[] meta : metadata.values()) {
+            out.write(meta, 0, meta.length);
+        }
+        for (byte[] schema : schemas.values()) {
+            if (schema != null) out.write(schema, 0, schema.length);
+        }
+        return out.toByteArray();
+    }
+
+    // ─── Parsing ─────────────────────────────────────────────────────────────
+    // Every record header in the library is encoded and decoded here. A header is a
+    // bitfield byte, whose bits 0-1 hold the entry id length - 1, bits 2-3 the payload
+    // size length - 1 and bits 4-6 the timestamp length - 1, followed by those three
+    // fields, little-endian.
+
+    /** Length of the WPILOG header in {@code b}, or -1 if not enough of it is there yet. */
+    static int headerLength(byte[] b, int available) {
+        if (available < 12) return -1;
+        return 12 + (int) readLittleEndian(ByteBuffer.wrap(b), 8, 4);
+    }
+
+    static int idLength(int bitfield) {
+        return (bitfield & 0x3) + 1;
+    }
+
+    static int sizeLength(int bitfield) {
+        return ((bitfield >> 2) & 0x3) + 1;
+    }
+
+    static int timestampLength(int bitfield) {
+        return ((bitfield >> 4) & 0x7) + 1;
+    }
+
+    /** Length of a record header, bitfield included. */
+    static int recordHeaderLength(int bitfield) {
+        return 1 + idLength(bitfield) + sizeLength(bitfield) + timestampLength(bitfield);
+    }
+
+    /** The bitfield byte of a header with fields of the given lengths. */
+    static byte bitfield(int idLen, int sizeLen, int tsLen) {
+        return (byte) ((idLen - 1) | ((sizeLen - 1) << 2) | ((tsLen - 1) << 4));
+    }
+
+    /** Number of bytes needed to hold {@code v} as an unsigned little-endian value (at least 1). */
+    static int byteLength(long v) {
+        int len = 1;
+        while (len < 8 && (v >>> (8 * len)) != 0) len++;
+        return len;
+    }
+
+    static void putLittleEndian(ByteBuffer b, long v, int len) {
+        for (int i = 0; i < len; i++) {
+            b.put((byte) (v >>> (8 * i)));
+        }
+    }
+
+    static long readLittleEndian(ByteBuffer b, int p, int len) {
+        long v = 0;
+        for (int i = 0; i < len; i++) {
+            v |= (long) (b.get(p + i) & 0xFF) << (8 * i);
+        }
+        return v;
+    }
+
+    /** Length of the record at {@code p}, or -1 if its header isn't complete in {@code available} bytes. */
+    static int recordLength(ByteBuffer b, int p, int available) {
+        if (available < 1) return -1;
+        int headerLen = recordHeaderLength(b.get(p) & 0xFF);
+        if (available < headerLen) return -1;
+        return headerLen + payloadSize(b, p);
+    }
+
+    /** Entry id of the record at {@code p}, 0 for control records. */
+    static int entryId(ByteBuffer b, int p) {
+        return (int) readLittleEndian(b, p + 1, idLength(b.get(p) & 0xFF));
+    }
+
+    /** Payload size of the record at {@code p}. */
+    static int payloadSize(ByteBuffer b, int p) {
+        int bitfield = b.get(p) & 0xFF;
+        return (int) readLittleEndian(b, p + 1 + idLength(bitfield), sizeLength(bitfield));
+    }
+
+    /** Timestamp of the record at {@code p}. */
+    static long timestamp(ByteBuffer b, int p) {
+        int bitfield = b.get(p) & 0xFF;
+        return readLittleEndian(b, p + 1 + idLength(bitfield) + sizeLength(bitfield), timestampLength(bitfield));
+    }
+
+    // The array versions take a position that wraps around the array, so they read the
+    // complete records of a ring buffer as well as those of a plain array.
+
+    /** Length of the complete record at position {@code p}. */
+    static int recordLength(byte[] b, long p) {
+        int bitfield = b[(int) (p % b.length)] & 0xFF;
+        int size = (int) readLittleEndian(b, p + 1 + idLength(bitfield), sizeLength(bitfield));
+        return recordHeaderLength(bitfield) + size;
+    }
+
+    /** Entry id of the record at position {@code p}, 0 for control records. */
+    static int entryId(byte[] b, long p) {
+        return (int) readLittleEndian(b, p + 1, idLength(b[(int) (p % b.length)] & 0xFF));
+    }
+
+    /** Timestamp of the record at position {@code p}. */
+    static long timestamp(byte[] b, long p) {
+        int bitfield = b[(int) (p % b.length)] & 0xFF;
+        return readLittleEndian(b, p + 1 + idLength(bitfield) + sizeLength(bitfield), timestampLength(bitfield));
+    }
+
+    private static long readLittleEndian(byte[] b, long p, int len) {
+        int index = (int) (p % b.length);
+        long v = 0;
+        for (int i = 0; i < len; i++) {
+            v |= (long) (b[index] & 0xFF) << (8 * i);
+            if (++index == b.length) index = 0;
+        }
+        return v;
+    }
+
+    private static boolean matches(ByteBuffer b, int p, String ascii) {
+        for (int i = 0; i < ascii.length(); i++) {
+            if (b.get(p + i) != ascii.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private static byte[] copy(ByteBuffer b, int p, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = b.get(p + i);
+        }
+        return bytes;
+    }
+}
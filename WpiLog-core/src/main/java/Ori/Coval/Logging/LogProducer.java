@@ -0,0 +1,44 @@
+package Ori.Coval.Logging;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Per-thread staging state for concurrent logging: the thread's own encode buffers and
+ * the ring it hands finished records to the {@link ConcurrentLogWriter} through.
+ */
+final class LogProducer {
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(256).order(ByteOrder.LITTLE_ENDIAN);
+    private BufferViews bufferViews = new BufferViews(buffer);
+    private ByteBuffer structBuffer = ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN);
+    private BufferViews structViews = new BufferViews(structBuffer);
+    /** Writer this thread's ring belongs to; a new log file gets a new writer and a new ring. */
+    ConcurrentLogWriter writer;
+    RecordRing ring;
+
+    /** Returns the cleared encode buffer, grown to hold at least {@code size} bytes. */
+    ByteBuffer encoder(int size) {
+        if (buffer.capacity() < size) {
+            buffer = ByteBuffer.allocateDirect(Math.max(size, buffer.capacity() * 2))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            bufferViews = new BufferViews(buffer);
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    ByteBuffer structBuffer(int size) {
+        if (structBuffer.capacity() < size) {
+            structBuffer = ByteBuffer.allocate(Math.max(size, structBuffer.capacity() * 2))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            structViews = new BufferViews(structBuffer);
+        }
+        structBuffer.clear();
+        return structBuffer;
+    }
+
+    /** The cached typed views of {@code b}, one of this thread's buffers. */
+    BufferViews viewsOf(ByteBuffer b) {
+        return bufferViews.isOf(b) ? bufferViews : structViews;
+    }
+}
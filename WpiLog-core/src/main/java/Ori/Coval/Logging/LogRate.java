@@ -0,0 +1,20 @@
+package Ori.Coval.Logging;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Caps how often values are logged, in records per second.
+ * <p>
+ * On an {@link AutoLog} class it applies to the whole class: {@link AutoLogManager}
+ * only calls the instance's {@code toLog()} when it is due, and logged methods and
+ * suppliers are limited to the same rate. On a field or method it applies to that
+ * entry only and takes precedence over the class rate.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target({ElementType.TYPE, ElementType.FIELD, ElementType.METHOD})
+public @interface LogRate {
+    double value();
+}
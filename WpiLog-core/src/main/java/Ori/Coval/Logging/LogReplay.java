@@ -0,0 +1,444 @@
+package Ori.Coval.Logging;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Feeds a recorded WPILOG file back into {@code @AutoLog} classes, so estimator and
+ * controller code can be run again over a whole match on a desktop JVM.
+ * <pre>
+ * LogReplay.open(new File("match.wpilog"));
+ * WpiLog.setup(new File("match_replay.wpilog"));
+ * Robot robot = new Robot();              // constructs the AutoLogged classes
+ * while (LogReplay.step()) {
+ *     robot.loop();
+ *     AutoLogManager.periodic();
+ * }
+ * WpiLog.closeLog();
+ * LogReplay.close();
+ * </pre>
+ * Members marked {@link Replay} return the value recorded for their entry instead of
+ * reading hardware. Each {@link #step()} moves to the end of the next loop cycle of the
+ * original run, as marked by {@link AutoLogManager#periodic()} in logs of code with
+ * {@code @Replay} members (see {@link AutoLogManager#recordCycles()}), and makes every
+ * value recorded up to then visible. Replay runs as fast as the code allows: the log's own
+ * timestamps become the clock of the new log and of {@link LogRate} limits, so the two
+ * files line up in AdvantageScope.
+ * <p>
+ * The whole log is indexed once by {@link #open(File)}; reading a value afterwards is an
+ * array lookup. Logs compressed to {@code .wpilogz} have to be decompressed first. Call
+ * everything from the loop thread.
+ */
+public final class LogReplay {
+    /**
+     * Written by {@link AutoLogManager#periodic()} at the end of every cycle, once
+     * {@link AutoLogManager#recordCycles()} turned it on.
+     */
+    static final String CYCLE_ENTRY_NAME = "/Logger/Cycle";
+    /** Step for logs without cycle records, such as logs written before they existed. */
+    private static final long DEFAULT_STEP_MICROS = 20_000;
+
+    private static boolean active;
+    private static long now;
+    private static ByteBuffer data;
+    private static long[] cycles = new long[0];
+    private static int cycle;
+    private static Map<String, Series> recorded = new HashMap<>();
+
+    // handles given out by entry(), bound to the recorded series of the same name and type
+    private static final Map<String, Integer> handles = new HashMap<>();
+    private static String[] handleNames = new String[16];
+    private static String[] handleTypes = new String[16];
+    private static Series[] bound = new Series[16];
+    private static int handleCount;
+
+    private LogReplay() {
+    }
+
+    /**
+     * Indexes {@code log} and starts replaying it; {@link #step()} moves to its first cycle.
+     * A replay already running is closed first.
+     *
+     * @throws IllegalArgumentException if an entry with a handle was recorded with another type
+     */
+    public static void open(File log) {
+        close();
+        ByteBuffer b;
+        try (RandomAccessFile file = new RandomAccessFile(log, "r")) {
+            b = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to open replay log: " + log, e);
+        }
+        b.order(ByteOrder.LITTLE_ENDIAN);
+        recorded = index(b, log);
+        data = b;
+
+        Series marks = recorded.get(CYCLE_ENTRY_NAME);
+        if (marks != null && marks.count > 0) {
+            cycles = Arrays.copyOf(marks.timestamps, marks.count);
+        } else {
+            cycles = fixedCycles(recorded);
+        }
+        cycle = 0;
+        now = 0;
+        synchronized (LogReplay.class) {
+            try {
+                for (int i = 0; i < handleCount; i++) {
+                    bound[i] = bind(handleNames[i], handleTypes[i]);
+                }
+            } catch (IllegalArgumentException e) {
+                close();
+                throw e;
+            }
+        }
+        active = true;
+    }
+
+    /** Stops replaying; {@link Replay} members read hardware again. */
+    public static void close() {
+        active = false;
+        data = null;
+        cycles = new long[0];
+        recorded = new HashMap<>();
+        synchronized (LogReplay.class) {
+            Arrays.fill(bound, null);
+        }
+    }
+
+    /** Whether a log is being replayed. */
+    public static boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Moves to the end of the next recorded cycle.
+     *
+     * @return false once every cycle has been replayed
+     */
+    public static boolean step() {
+        if (!active || cycle == cycles.length) return false;
+        now = cycles[cycle++];
+        return true;
+    }
+
+    /**
+     * Moves the replay clock to {@code timestampMicros}, for replay loops that don't follow
+     * the recorded cycles. The clock never moves backwards.
+     */
+    public static void advanceTo(long timestampMicros) {
+        now = Math.max(now, timestampMicros);
+        while (cycle < cycles.length && cycles[cycle] <= now) cycle++;
+    }
+
+    /** Timestamp of the current cycle, in the log's microseconds. */
+    public static long timestampMicros() {
+        return now;
+    }
+
+    // ─── Entry handles ───────────────────────────────────────────────────────
+
+    /**
+     * Returns the handle of the recorded entry {@code name}, for the {@code get*} methods.
+     * Handles can be taken before the log is opened, e.g. in static fields; an entry that
+     * isn't in the log replays the defaults.
+     *
+     * @param type WPILOG type string, one of the {@code WpiLog.TYPE_*} constants
+     * @throws IllegalArgumentException if the log being replayed has the entry with another type
+     */
+    public static synchronized int entry(String name, String type) {
+        Integer handle = handles.get(name);
+        if (handle != null) return handle;
+        if (handleCount == handleNames.length) {
+            handleNames = Arrays.copyOf(handleNames, handleCount * 2);
+            handleTypes = Arrays.copyOf(handleTypes, handleCount * 2);
+            bound = Arrays.copyOf(bound, handleCount * 2);
+        }
+        handleNames[handleCount] = name;
+        handleTypes[handleCount] = type;
+        bound[handleCount] = active ? bind(name, type) : null;
+        handles.put(name, handleCount);
+        return handleCount++;
+    }
+
+    private static Series bind(String name, String type) {
+        Series s = recorded.get(name);
+        if (s == null) return null;
+        if (!s.type.equals(type)) {
+            throw new IllegalArgumentException(name + " was recorded as " + s.type + ", not " + type);
+        }
+        s.next = 0;
+        s.cachedIndex = -1;
+        return s;
+    }
+
+    /** The series of {@code handle} advanced to the replay clock, or null if it has no value yet. */
+    private static Series current(int handle) {
+        if (!active) return null;
+        Series s = bound[handle];
+        if (s == null) return null;
+        while (s.next < s.count && s.timestamps[s.next] <= now) {
+            s.next++;
+        }
+        return s.next == 0 ? null : s;
+    }
+
+    // ─── Values ──────────────────────────────────────────────────────────────
+
+    public static boolean getBoolean(int handle, boolean defaultValue) {
+        Series s = current(handle);
+        return s == null ? defaultValue : data.get(s.positions[s.next - 1]) != 0;
+    }
+
+    public static long getLong(int handle, long defaultValue) {
+        Series s = current(handle);
+        return s == null ? defaultValue : data.getLong(s.positions[s.next - 1]);
+    }
+
+    public static float getFloat(int handle, float defaultValue) {
+        Series s = current(handle);
+        return s == null ? defaultValue : data.getFloat(s.positions[s.next - 1]);
+    }
+
+    public static double getDouble(int handle, double defaultValue) {
+        Series s = current(handle);
+        return s == null ? defaultValue : data.getDouble(s.positions[s.next - 1]);
+    }
+
+    public static String getString(int handle, String defaultValue) {
+        Series s = current(handle);
+        if (s == null) return defaultValue;
+        if (s.cachedIndex != s.next - 1) {
+            int p = s.positions[s.next - 1];
+            s.cache(string(p, s.sizes[s.next - 1]));
+        }
+        return (String) s.cached;
+    }
+
+    /** The recorded array; the same instance is returned until the value changes, so don't modify it. */
+    public static boolean[] getBooleanArray(int handle, boolean[] defaultValue) {
+        Series s = current(handle);
+        if (s == null) return defaultValue;
+        if (s.cachedIndex != s.next - 1) {
+            int p = s.positions[s.next - 1];
+            boolean[] v = new boolean[s.sizes[s.next - 1]];
+            for (int i = 0; i < v.length; i++) {
+                v[i] = data.get(p + i) != 0;
+            }
+            s.cache(v);
+        }
+        return (boolean[]) s.cached;
+    }
+
+    /** The recorded array; the same instance is returned until the value changes, so don't modify it. */
+    public static long[] getLongArray(int handle, long[] defaultValue) {
+        Series s = current(handle);
+        if (s == null) return defaultValue;
+        if (s.cachedIndex != s.next - 1) {
+            long[] v = new long[s.sizes[s.next - 1] / 8];
+            slice(s).asLongBuffer().get(v);
+            s.cache(v);
+        }
+        return (long[]) s.cached;
+    }
+
+    /** The recorded array; the same instance is returned until the value changes, so don't modify it. */
+    public static float[] getFloatArray(int handle, float[] defaultValue) {
+        Series s = current(handle);
+        if (s == null) return defaultValue;
+        if (s.cachedIndex != s.next - 1) {
+            float[] v = new float[s.sizes[s.next - 1] / 4];
+            slice(s).asFloatBuffer().get(v);
+            s.cache(v);
+        }
+        return (float[]) s.cached;
+    }
+
+    /** The recorded array; the same instance is returned until the value changes, so don't modify it. */
+    public static double[] getDoubleArray(int handle, double[] defaultValue) {
+        Series s = current(handle);
+        if (s == null) return defaultValue;
+        if (s.cachedIndex != s.next - 1) {
+            double[] v = new double[s.sizes[s.next - 1] / 8];
+            slice(s).asDoubleBuffer().get(v);
+            s.cache(v);
+        }
+        return (double[]) s.cached;
+    }
+
+    /** The recorded array; the same instance is returned until the value changes, so don't modify it. */
+    public static String[] getStringArray(int handle, String[] defaultValue) {
+        Series s = current(handle);
+        if (s == null) return defaultValue;
+        if (s.cachedIndex != s.next - 1) {
+            int p = s.positions[s.next - 1];
+            String[] v = new String[data.getInt(p)];
+            p += 4;
+            for (int i = 0; i < v.length; i++) {
+                int length = data.getInt(p);
+                v[i] = string(p + 4, length);
+                p += 4 + length;
+            }
+            s.cache(v);
+        }
+        return (String[]) s.cached;
+    }
+
+    private static ByteBuffer slice(Series s) {
+        ByteBuffer b = data.duplicate();
+        b.position(s.positions[s.next - 1]);
+        b.limit(s.positions[s.next - 1] + s.sizes[s.next - 1]);
+        return b.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static String string(int p, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = data.get(p + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // ─── Suppliers ───────────────────────────────────────────────────────────
+    // Used by the generated constructors for suppliers marked @Replay: the recorded value
+    // while a replay is running, the original supplier otherwise.
+
+    public static BooleanSupplier wrap(int handle, BooleanSupplier s) {
+        return () -> active ? getBoolean(handle, false) : s.getAsBoolean();
+    }
+
+    public static IntSupplier wrap(int handle, IntSupplier s) {
+        return () -> active ? (int) getLong(handle, 0) : s.getAsInt();
+    }
+
+    public static LongSupplier wrap(int handle, LongSupplier s) {
+        return () -> active ? getLong(handle, 0) : s.getAsLong();
+    }
+
+    public static DoubleSupplier wrap(int handle, DoubleSupplier s) {
+        return () -> active ? getDouble(handle, 0) : s.getAsDouble();
+    }
+
+    // ─── Indexing ────────────────────────────────────────────────────────────
+
+    /** Record timestamps and payload positions of every entry in the log, by entry name. */
+    private static Map<String, Series> index(ByteBuffer b, File log) {
+        int limit = b.limit();
+        if (limit < 12 || b.get(0) != 'W' || b.get(1) != 'P' || b.get(2) != 'I'
+                || b.get(3) != 'L' || b.get(4) != 'O' || b.get(5) != 'G') {
+            throw new RuntimeException("Not a WPILOG file: " + log);
+        }
+        Map<String, Series> series = new HashMap<>();
+        Series[] byId = new Series[64];
+        int p = 12 + b.getInt(8);
+        while (p < limit) {
+            int payload = p + LogPreamble.recordHeaderLength(b.get(p) & 0xFF);
+            if (payload > limit) break;
+            int id = LogPreamble.entryId(b, p);
+            int size = LogPreamble.payloadSize(b, p);
+            long ts = LogPreamble.timestamp(b, p);
+            if (size < 0 || size > limit - payload) break;     // cut off by a crash
+
+            if (id != 0) {
+                Series s = id < byId.length ? byId[id] : null;
+                if (s != null) s.add(ts, payload, size);
+            } else {
+                // a control record too short for its header is the padding after the data
+                if (size < 5) break;
+                int target = b.getInt(payload + 1);
+                if (b.get(payload) == 0) {
+                    int nameLength = b.getInt(payload + 5);
+                    String name = utf8(b, payload + 9, nameLength);
+                    int typePos = payload + 9 + nameLength;
+                    String type = utf8(b, typePos + 4, b.getInt(typePos));
+                    Series s = series.get(name);
+                    if (s == null) {
+                        s = new Series(type);
+                        series.put(name, s);
+                    }
+                    if (target >= byId.length) {
+                        byId = Arrays.copyOf(byId, Math.max(target + 1, byId.length * 2));
+                    }
+                    byId[target] = s;
+                } else if (b.get(payload) == 1 && target < byId.length) {
+                    byId[target] = null;
+                }
+            }
+            p = payload + size;
+        }
+        return series;
+    }
+
+    /** Evenly spaced cycles over the log, for logs without cycle records. */
+    private static long[] fixedCycles(Map<String, Series> series) {
+        long first = Long.MAX_VALUE;
+        long last = Long.MIN_VALUE;
+        for (Series s : series.values()) {
+            if (s.count == 0) continue;
+            first = Math.min(first, s.timestamps[0]);
+            last = Math.max(last, s.timestamps[s.count - 1]);
+        }
+        if (first > last) return new long[0];
+        long[] steps = new long[(int) ((last - first) / DEFAULT_STEP_MICROS) + 1];
+        for (int i = 0; i < steps.length; i++) {
+            steps[i] = first + i * DEFAULT_STEP_MICROS;
+        }
+        // the last step covers the last record
+        steps[steps.length - 1] = last;
+        return steps;
+    }
+
+    private static String utf8(ByteBuffer b, int p, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = b.get(p + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Records of one entry: timestamps and payload positions in the mapped log. */
+    private static final class Series {
+        final String type;
+        long[] timestamps = new long[64];
+        int[] positions = new int[64];
+        int[] sizes = new int[64];
+        int count;
+        /** Index of the first record after the replay clock. */
+        int next;
+        /** Decoded string or array value of record {@link #cachedIndex}. */
+        Object cached;
+        int cachedIndex = -1;
+
+        Series(String type) {
+            this.type = type;
+        }
+
+        void add(long ts, int position, int size) {
+            if (count == timestamps.length) {
+                timestamps = Arrays.copyOf(timestamps, count * 2);
+                positions = Arrays.copyOf(positions, count * 2);
+                sizes = Arrays.copyOf(sizes, count * 2);
+            }
+            timestamps[count] = ts;
+            positions[count] = position;
+            sizes[count] = size;
+            count++;
+        }
+
+        void cache(Object value) {
+            cached = value;
+            cachedIndex = next - 1;
+        }
+    }
+}
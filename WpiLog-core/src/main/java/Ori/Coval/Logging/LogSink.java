@@ -0,0 +1,17 @@
+package Ori.Coval.Logging;
+
+/**
+ * Receives the log's encoded record stream alongside the log file, e.g. {@link LogTapServer}
+ * to copy it off the robot over TCP or {@link MemoryLogSink} for the last few seconds in
+ * memory. Added with {@link WpiLog#addSink(LogSink)}.
+ */
+public interface LogSink {
+    /**
+     * A log was set up. Attach outputs to {@code stream}, now or later from any thread;
+     * each gets the header and the active entries first, then every record as it is logged.
+     */
+    void logOpened(LogStream stream);
+
+    /** The log was closed; every output attached to it has been drained and closed. */
+    void logClosed();
+}
@@ -0,0 +1,27 @@
+package Ori.Coval.Logging;
+
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * The encoded record stream of the open log, as handed to {@link LogSink#logOpened}.
+ */
+public interface LogStream {
+    /**
+     * Starts copying the stream to {@code out}: first the header and the start, metadata
+     * and schema records of every active entry, so a reader joining mid-log can decode
+     * what follows, then each batch of records as the log file gets it. {@code out} is
+     * owned by the logger from now on and closed when the log is closed or the output
+     * falls behind.
+     * <p>
+     * With {@code bufferBytes > 0} the output gets its own ring of that size and writer
+     * thread, so a slow output never holds up the log file: with
+     * {@link OverflowPolicy#DROP_OLDEST} its oldest records are dropped, and it is
+     * detached if nothing but start records is left to drop; with
+     * {@link OverflowPolicy#BLOCK} the logging thread waits for it. With
+     * {@code bufferBytes == 0} the records are written to {@code out} on the thread
+     * writing the log file, which only suits outputs that never block, such as memory.
+     *
+     * @return false if the log is closed, or the active entries alone don't fit in {@code bufferBytes}
+     */
+    boolean attach(WritableByteChannel out, int bufferBytes, OverflowPolicy policy);
+}
@@ -0,0 +1,17 @@
+package Ori.Coval.Logging;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a value class for which a {@link StructSerializer} named {@code <Class>Struct} is
+ * generated. Its non-static fields (primitives or other {@code @LogStruct} types) are
+ * packed in declaration order, and {@link AutoLog} classes log fields and methods of
+ * this type as {@code struct:} entries instead of strings.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface LogStruct {
+}
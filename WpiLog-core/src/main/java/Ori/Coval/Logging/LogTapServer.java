@@ -0,0 +1,123 @@
+package Ori.Coval.Logging;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A raw WPILOG tap over TCP: every client that connects gets the WPILOG header and the
+ * active entries, then each record as it is logged, as plain {@code .wpilog} bytes with
+ * no framing or handshake. Whatever a client saves is a complete {@code .wpilog} file,
+ * so the other end is a tool that saves or parses WPILOG, e.g. {@code nc robot 5820 >
+ * match.wpilog} to pull the log off the robot while it runs. It is not a live source for
+ * AdvantageScope, whose live protocols (NetworkTables, RLOG) this doesn't speak; open the
+ * saved file instead.
+ * <p>
+ * A client that connects while no log is open waits for the next one; when the log is
+ * closed, its clients are disconnected. Each client has its own buffer and writer thread
+ * and drops its oldest records when it can't keep up, so a slow network never holds up
+ * the log file.
+ * <pre>
+ * WpiLog.addSink(new LogTapServer(5820));
+ * WpiLog.setup(new File(dir, WpiLog.timestampedFileName()));
+ * </pre>
+ */
+public final class LogTapServer implements LogSink, Closeable {
+    /** Buffer per client: about ten seconds of a busy robot's log. */
+    public static final int DEFAULT_BUFFER_BYTES = 1 << 20;
+
+    private final ServerSocketChannel server;
+    private final int bufferBytes;
+    private final Thread thread;
+
+    /** Guarded by {@code this}. */
+    private LogStream stream;
+    private final List<SocketChannel> waiting = new ArrayList<>();
+
+    /** Listens on {@code port}; port 0 picks a free one, see {@link #getPort()}. */
+    public LogTapServer(int port) {
+        this(port, DEFAULT_BUFFER_BYTES);
+    }
+
+    public LogTapServer(int port, int bufferBytesPerClient) {
+        if (bufferBytesPerClient <= 0) {
+            throw new IllegalArgumentException("bufferBytesPerClient must be positive");
+        }
+        this.bufferBytes = bufferBytesPerClient;
+        try {
+            server = ServerSocketChannel.open();
+            server.socket().setReuseAddress(true);
+            server.socket().bind(new InetSocketAddress(port));
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to listen on port " + port, e);
+        }
+        thread = new Thread(this::run, "WpiLog-tap");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** The port clients connect to. */
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    @Override
+    public synchronized void logOpened(LogStream stream) {
+        this.stream = stream;
+        for (SocketChannel client : waiting) {
+            attach(client);
+        }
+        waiting.clear();
+    }
+
+    @Override
+    public synchronized void logClosed() {
+        stream = null;
+    }
+
+    /** Stops accepting clients. Clients already connected stay until the log is closed. */
+    @Override
+    public void close() throws IOException {
+        server.close();
+        synchronized (this) {
+            for (SocketChannel client : waiting) {
+                client.close();
+            }
+            waiting.clear();
+        }
+    }
+
+    private void run() {
+        while (server.isOpen()) {
+            try {
+                SocketChannel client = server.accept();
+                client.socket().setTcpNoDelay(true);
+                synchronized (this) {
+                    if (stream == null) {
+                        waiting.add(client);
+                    } else {
+                        attach(client);
+                    }
+                }
+            } catch (IOException e) {
+                if (server.isOpen()) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private void attach(SocketChannel client) {
+        if (!stream.attach(client, bufferBytes, OverflowPolicy.DROP_OLDEST)) {
+            try {
+                client.close();
+            } catch (IOException ignored) {
+                // nothing left to tell the client
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package Ori.Coval.Logging;
+
+/**
+ * Calls {@code toLog()} on the instances of generated AutoLogged classes one class at a
+ * time, so every call site sees a single class and the JIT can inline it. The annotation
+ * processor generates one {@code AutoLoggedRegistry} per package for classes marked
+ * {@code @AutoLog(flattenRegistry = true)}; it registers itself with {@link AutoLogManager},
+ * whose {@link AutoLogManager#periodic()} drives it.
+ */
+public interface LoggedRegistry {
+    /** Calls {@code toLog()} on every instance due at {@code nowNanos} ({@link System#nanoTime()}). */
+    void periodic(long nowNanos);
+
+    /** Changes the period of {@code logged} if this registry holds it; 0 records every cycle. */
+    void setRate(Logged logged, long periodNanos);
+}
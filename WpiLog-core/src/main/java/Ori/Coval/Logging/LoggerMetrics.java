@@ -0,0 +1,204 @@
+package Ori.Coval.Logging;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The logger's own cost, written into the log under {@code /Logger/} so AdvantageScope
+ * shows it next to the robot data. Enabled with {@link WpiLog#enableMetrics(double)}.
+ * <p>
+ * The hot paths only bump counters or record into a {@link LatencyHistogram}; nothing is
+ * allocated after the first cycle. Once per publish period, from
+ * {@link AutoLogManager#periodic()}, the totals are written as:
+ * <ul>
+ * <li>{@code /Logger/Periodic/*} and {@code /Logger/Fsync/*} – histograms of the time spent
+ * in {@code periodic()} and in each sync to storage: {@code Count}, {@code Mean},
+ * {@code Max}, {@code P50}, {@code P99} (µs) and the raw {@code Buckets}</li>
+ * <li>{@code /Logger/Instances/<class>} – mean µs per {@code toLog()} of each registered
+ * instance, {@code /Logger/Registries/<package>} per generated registry pass</li>
+ * <li>{@code /Logger/RecordsPerSecond}, {@code /Logger/BytesPerSecond} – records encoded</li>
+ * <li>{@code /Logger/QueuedBytes}, {@code /Logger/DroppedRecords} – async or concurrent
+ * writer backlog, and records it has dropped so far</li>
+ * </ul>
+ */
+final class LoggerMetrics {
+    private static final String PREFIX = "/Logger/";
+
+    private final long publishPeriodNanos;
+    private boolean started;
+    private long lastPublishNanos;
+    private long nextPublishNanos;
+
+    // any thread
+    private final LongAdder records = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LatencyHistogram fsync = new LatencyHistogram();
+
+    // loop thread only
+    private final LatencyHistogram periodic = new LatencyHistogram();
+    private final TimedSlots instances = new TimedSlots(PREFIX + "Instances/");
+    private final TimedSlots registries = new TimedSlots(PREFIX + "Registries/");
+    private final long[] buckets = new long[LatencyHistogram.BUCKETS];
+    private final double[] stats = new double[5];
+
+    private final HistogramEntries periodicEntries = new HistogramEntries(PREFIX + "Periodic/");
+    private final HistogramEntries fsyncEntries = new HistogramEntries(PREFIX + "Fsync/");
+    private final int recordsPerSecond = WpiLog.entry(PREFIX + "RecordsPerSecond", WpiLog.TYPE_DOUBLE);
+    private final int bytesPerSecond = WpiLog.entry(PREFIX + "BytesPerSecond", WpiLog.TYPE_DOUBLE);
+    private final int queuedBytes = WpiLog.entry(PREFIX + "QueuedBytes", WpiLog.TYPE_INT64);
+    private final int droppedRecords = WpiLog.entry(PREFIX + "DroppedRecords", WpiLog.TYPE_INT64);
+
+    LoggerMetrics(long publishPeriodNanos) {
+        this.publishPeriodNanos = publishPeriodNanos;
+    }
+
+    /** Counts one encoded record of {@code length} bytes. Any thread. */
+    void recordEncoded(int length) {
+        records.increment();
+        bytes.add(length);
+    }
+
+    /** Records one sync to storage. Called by the sync thread. */
+    void fsync(long nanos) {
+        fsync.record(nanos);
+    }
+
+    /** Time spent in the {@code toLog()} of the instance at {@code index} in AutoLogManager. */
+    void instance(int index, Object owner, long nanos) {
+        instances.add(index, owner, nanos);
+    }
+
+    /** Time spent in one pass of the registry at {@code index} in AutoLogManager. */
+    void registry(int index, Object owner, long nanos) {
+        registries.add(index, owner, nanos);
+    }
+
+    /**
+     * Records the time spent in one {@code periodic()} call and, when the publish period
+     * has passed, writes every metric.
+     *
+     * @param now the cycle's timestamp in nanoseconds, on the clock AutoLogManager uses
+     */
+    void periodic(long nanos, long now) {
+        periodic.record(nanos);
+        if (!started) {
+            started = true;
+            lastPublishNanos = now;
+            nextPublishNanos = now + publishPeriodNanos;
+            return;
+        }
+        if (now - nextPublishNanos < 0) return;
+        double seconds = (now - lastPublishNanos) / 1e9;
+        lastPublishNanos = now;
+        nextPublishNanos = now + publishPeriodNanos;
+
+        periodic.drainTo(buckets, stats);
+        periodicEntries.log(buckets, stats);
+        fsync.drainTo(buckets, stats);
+        fsyncEntries.log(buckets, stats);
+        instances.log();
+        registries.log();
+        WpiLog.log(recordsPerSecond, records.sumThenReset() / seconds, false);
+        WpiLog.log(bytesPerSecond, bytes.sumThenReset() / seconds, false);
+        WpiLog.log(queuedBytes, WpiLog.queuedBytes(), false);
+        WpiLog.log(droppedRecords, WpiLog.getDroppedRecords(), false);
+    }
+
+    /** Entries of one histogram. */
+    private static final class HistogramEntries {
+        final int count;
+        final int mean;
+        final int max;
+        final int p50;
+        final int p99;
+        final int buckets;
+
+        HistogramEntries(String prefix) {
+            count = WpiLog.entry(prefix + "Count", WpiLog.TYPE_INT64);
+            mean = WpiLog.entry(prefix + "Mean", WpiLog.TYPE_DOUBLE);
+            max = WpiLog.entry(prefix + "Max", WpiLog.TYPE_DOUBLE);
+            p50 = WpiLog.entry(prefix + "P50", WpiLog.TYPE_DOUBLE);
+            p99 = WpiLog.entry(prefix + "P99", WpiLog.TYPE_DOUBLE);
+            buckets = WpiLog.entry(prefix + "Buckets", WpiLog.TYPE_INT64_ARRAY);
+        }
+
+        void log(long[] bucketCounts, double[] stats) {
+            WpiLog.log(count, (long) stats[0], false);
+            if (stats[0] == 0) return;
+            WpiLog.log(mean, stats[1], false);
+            WpiLog.log(max, stats[2], false);
+            WpiLog.log(p50, stats[3], false);
+            WpiLog.log(p99, stats[4], false);
+            WpiLog.log(buckets, bucketCounts, false);
+        }
+    }
+
+    /**
+     * Accumulated time of the instances (or registries) AutoLogManager calls, by their
+     * index there. Each gets an entry named after its class the first time it is timed.
+     */
+    private static final class TimedSlots {
+        private final String prefix;
+        private final Map<String, Integer> nameCounts = new HashMap<>();
+        private Object[] owners = new Object[8];
+        private int[] entries = new int[8];
+        private long[] nanos = new long[8];
+        private long[] calls = new long[8];
+        private int count;
+
+        TimedSlots(String prefix) {
+            this.prefix = prefix;
+        }
+
+        void add(int index, Object owner, long elapsed) {
+            if (index >= count || owners[index] != owner) {
+                claim(index, owner);
+            }
+            nanos[index] += elapsed;
+            calls[index]++;
+        }
+
+        private void claim(int index, Object owner) {
+            if (index >= owners.length) {
+                int length = Math.max(index + 1, owners.length * 2);
+                owners = Arrays.copyOf(owners, length);
+                entries = Arrays.copyOf(entries, length);
+                nanos = Arrays.copyOf(nanos, length);
+                calls = Arrays.copyOf(calls, length);
+            }
+            owners[index] = owner;
+            entries[index] = WpiLog.entry(prefix + uniqueName(owner), WpiLog.TYPE_DOUBLE);
+            nanos[index] = 0;
+            calls[index] = 0;
+            count = Math.max(count, index + 1);
+        }
+
+        /** "DriveAutoLogged" becomes "Drive", the second instance "Drive_2", and so on. */
+        private String uniqueName(Object owner) {
+            String name = owner instanceof LoggedRegistry
+                    ? owner.getClass().getName()
+                    : owner.getClass().getSimpleName();
+            int dot = name.lastIndexOf('.');
+            if (owner instanceof LoggedRegistry && dot > 0) {
+                name = name.substring(0, dot);
+            } else if (name.endsWith("AutoLogged")) {
+                name = name.substring(0, name.length() - "AutoLogged".length());
+            }
+            Integer seen = nameCounts.get(name);
+            nameCounts.put(name, seen == null ? 1 : seen + 1);
+            return seen == null ? name : name + "_" + (seen + 1);
+        }
+
+        /** Writes each slot's mean µs per call since the last publish. */
+        void log() {
+            for (int i = 0; i < count; i++) {
+                if (calls[i] == 0) continue;
+                WpiLog.log(entries[i], nanos[i] / 1000.0 / calls[i], false);
+                nanos[i] = 0;
+                calls[i] = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package Ori.Coval.Logging;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Log file output that writes records into memory-mapped segments instead of issuing
+ * one write syscall per record.
+ * <p>
+ * The file is grown one fixed-size segment at a time: each segment is mapped
+ * read-write (which extends the file), filled with plain memory copies, and the next
+ * segment is mapped when it runs out. {@link #close()} truncates the file to the
+ * bytes actually written, so a closed log has no trailing padding.
+ * Pass it to {@link WpiLog#setup(WritableByteChannel)}.
+ */
+public class MappedLogChannel implements WritableByteChannel {
+    public static final int DEFAULT_SEGMENT_BYTES = 16 * 1024 * 1024;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final int segmentBytes;
+    private volatile MappedByteBuffer segment;
+    /**
+     * Full segments not forced since they were replaced, oldest first, for {@link #force()}.
+     * More than one can pile up when records fill a segment between two syncs.
+     */
+    private final Queue<MappedByteBuffer> unforced = new ConcurrentLinkedQueue<>();
+    private long segmentStart;
+    private boolean open = true;
+
+    public MappedLogChannel(File file) throws IOException {
+        this(file, DEFAULT_SEGMENT_BYTES);
+    }
+
+    /**
+     * Opens (and truncates) {@code file} for mapped writing.
+     *
+     * @param segmentBytes how much the file grows, and how much is mapped, at a time
+     */
+    public MappedLogChannel(File file, int segmentBytes) throws IOException {
+        if (segmentBytes <= 0) {
+            throw new IllegalArgumentException("segmentBytes must be positive");
+        }
+        this.file = new RandomAccessFile(file, "rw");
+        this.file.setLength(0);
+        this.channel = this.file.getChannel();
+        this.segmentBytes = segmentBytes;
+        this.segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        if (!open) throw new ClosedChannelException();
+        int written = src.remaining();
+        MappedByteBuffer seg = segment;
+        while (src.hasRemaining()) {
+            if (!seg.hasRemaining()) {
+                seg = nextSegment();
+            }
+            int n = Math.min(src.remaining(), seg.remaining());
+            if (n == src.remaining()) {
+                seg.put(src);
+            } else {
+                int limit = src.limit();
+                src.limit(src.position() + n);
+                seg.put(src);
+                src.limit(limit);
+            }
+        }
+        return written;
+    }
+
+    /** Number of log bytes written so far. */
+    public long size() {
+        return segmentStart + segment.position();
+    }
+
+    /**
+     * Writes the mapped pages written so far back to the storage device.
+     * May be called from another thread than the one writing.
+     */
+    public void force() {
+        MappedByteBuffer full;
+        while ((full = unforced.poll()) != null) {
+            full.force();
+        }
+        segment.force();
+    }
+
+    private MappedByteBuffer nextSegment() throws IOException {
+        unforced.add(segment);
+        segmentStart += segmentBytes;
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, segmentStart, segmentBytes);
+        return segment;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    /** Truncates the file to the written length and closes it. */
+    @Override
+    public void close() throws IOException {
+        if (!open) return;
+        open = false;
+        try {
+            channel.truncate(size());
+        } finally {
+            file.close();
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package Ori.Coval.Logging;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Keeps the last few seconds of the log in memory, in a fixed circular byte arena, and
+ * hands them out as a complete {@code .wpilog} with {@link #snapshot()}. Records are
+ * copied into the arena on the thread writing the log file; nothing is allocated per
+ * record. The oldest records are dropped once they are older than the window or the
+ * arena is full, except that the last dropped value of each entry is kept aside, so an
+ * entry logged only on change still has its value in a snapshot.
+ * <p>
+ * Also the arena behind {@link WpiLog#setupFlightRecorder}.
+ */
+public final class MemoryLogSink implements LogSink {
+    private final long windowMicros;
+    private final byte[] arena;
+
+    /** The output attached to the current log. */
+    private volatile Recorder recorder;
+    // guarded by this
+    private LogPreamble preamble = new LogPreamble();
+    /** Arena positions; the index is the position modulo the arena length. */
+    private long head;
+    private long tail;
+    /** Last record dropped from the arena, by entry id; buffers are reused. */
+    private byte[][] dropped = new byte[64][];
+    private int[] droppedLengths = new int[64];
+    /** Bytes of a record (or of the header) split across writes. */
+    private byte[] pending = new byte[64];
+    private ByteBuffer pendingBuffer = ByteBuffer.wrap(pending);
+    private int pendingLength;
+
+    /**
+     * @param seconds       how much of the log to keep
+     * @param capacityBytes arena size; fewer seconds are kept if they don't fit
+     */
+    public MemoryLogSink(double seconds, int capacityBytes) {
+        if (seconds <= 0) {
+            throw new IllegalArgumentException("seconds must be positive");
+        }
+        if (capacityBytes <= 0) {
+            throw new IllegalArgumentException("capacityBytes must be positive");
+        }
+        this.windowMicros = (long) (seconds * 1e6);
+        this.arena = new byte[capacityBytes];
+    }
+
+    @Override
+    public void logOpened(LogStream stream) {
+        // not under this lock: the log file's writer holds the stream's lock when it calls us
+        stream.attach(open(), 0, OverflowPolicy.DROP_OLDEST);
+    }
+
+    @Override
+    public void logClosed() {
+        // the last log stays available to snapshot() until the next one opens
+    }
+
+    /** Empties the arena and returns the channel a new log is written to. */
+    synchronized WritableByteChannel open() {
+        preamble = new LogPreamble();
+        head = tail = 0;
+        pendingLength = 0;
+        Arrays.fill(droppedLengths, 0);
+        recorder = new Recorder();
+        return recorder;
+    }
+
+    /**
+     * The kept records as a {@code .wpilog}: the header, the start, metadata and schema
+     * records of every active entry, the last value of each entry from before the window,
+     * then the records of the window, oldest first. Empty if no log has been opened yet.
+     * Holds up the thread writing the log file only while the arena's bytes are copied
+     * out as they are; the records are picked out of the copy afterwards.
+     */
+    public byte[] snapshot() {
+        byte[] header;
+        byte[] records;
+        byte[] lastDropped;
+        byte[] window;
+        synchronized (this) {
+            header = preamble.header();
+            if (header == null) return new byte[0];
+            records = preamble.records();
+            int droppedTotal = 0;
+            for (int length : droppedLengths) {
+                droppedTotal += length;
+            }
+            lastDropped = new byte[droppedTotal];
+            for (int id = 0, q = 0; id < droppedLengths.length; id++) {
+                if (droppedLengths[id] > 0) {
+                    System.arraycopy(dropped[id], 0, lastDropped, q, droppedLengths[id]);
+                    q += droppedLengths[id];
+                }
+            }
+            window = new byte[(int) (head - tail)];
+            int index = index(tail);
+            int first = Math.min(window.length, arena.length - index);
+            System.arraycopy(arena, index, window, 0, first);
+            System.arraycopy(arena, 0, window, first, window.length - first);
+        }
+
+        // entries finished since their records were kept are left out
+        LogPreamble active = new LogPreamble();
+        ByteBuffer preambleRecords = ByteBuffer.wrap(records);
+        for (int p = 0; p < records.length; p += LogPreamble.recordLength(preambleRecords, p, records.length - p)) {
+            active.record(preambleRecords, p);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(
+                header.length + records.length + lastDropped.length + window.length);
+        out.write(header, 0, header.length);
+        out.write(records, 0, records.length);
+        writeActive(lastDropped, active, out);
+        writeActive(window, active, out);
+        return out.toByteArray();
+    }
+
+    /** Writes the whole records in {@code records} whose entry is active in {@code preamble}. */
+    private static void writeActive(byte[] records, LogPreamble preamble, ByteArrayOutputStream out) {
+        ByteBuffer b = ByteBuffer.wrap(records);
+        for (int p = 0; p < records.length; ) {
+            int length = LogPreamble.recordLength(b, p, records.length - p);
+            if (preamble.isStarted(LogPreamble.entryId(b, p))) {
+                out.write(records, p, length);
+            }
+            p += length;
+        }
+    }
+
+    /**
+     * Writes {@link #snapshot()} to {@code file}, replacing it if it exists. The file is
+     * written after the copy is taken, so logging goes on meanwhile.
+     */
+    public void writeSnapshot(File file) throws IOException {
+        byte[] bytes = snapshot();
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Called from the thread writing the log file with the log stream. Writes usually
+     * hold whole records; one split across writes is carried over to the next.
+     */
+    private synchronized void write(Recorder from, ByteBuffer src) throws ClosedChannelException {
+        if (recorder != from) throw new ClosedChannelException();
+        int limit = src.limit();
+        int p = src.position();
+        if (pendingLength > 0 || preamble.header() == null) {
+            // finish the split record (or the header) byte by byte first
+            while (p < limit) {
+                append(src.get(p++));
+                int length = preamble.header() == null ? LogPreamble.headerLength(pending, pendingLength)
+                        : LogPreamble.recordLength(pendingBuffer, 0, pendingLength);
+                if (length > 0 && pendingLength == length) {
+                    pendingLength = 0;
+                    if (preamble.header() == null) {
+                        preamble.setHeader(Arrays.copyOf(pending, length));
+                    } else {
+                        keep(pendingBuffer, 0, length);
+                    }
+                    break;
+                }
+            }
+        }
+        while (p < limit) {
+            int length = LogPreamble.recordLength(src, p, limit - p);
+            if (length < 0 || p + length > limit) break;
+            keep(src, p, length);
+            p += length;
+        }
+        while (p < limit) {
+            append(src.get(p++));
+        }
+        src.position(limit);
+    }
+
+    /** Files the whole record at {@code p} with the preamble or in the arena. */
+    private void keep(ByteBuffer src, int p, int length) {
+        int id = LogPreamble.entryId(src, p);
+        if (id == 0 || preamble.isSchema(id)) {
+            // kept by the preamble, which every snapshot starts with
+            preamble.record(src, p);
+        } else if (length <= arena.length) {
+            store(src, p, length);
+        }
+    }
+
+    private void append(byte v) {
+        if (pendingLength == pending.length) {
+            pending = Arrays.copyOf(pending, pending.length * 2);
+            pendingBuffer = ByteBuffer.wrap(pending);
+        }
+        pending[pendingLength++] = v;
+    }
+
+    private void store(ByteBuffer src, int p, int length) {
+        long oldest = LogPreamble.timestamp(src, p) - windowMicros;
+        while (tail < head && (head + length - tail > arena.length || LogPreamble.timestamp(arena, tail) < oldest)) {
+            tail += keepDropped(tail);
+        }
+        int index = index(head);
+        int first = Math.min(length, arena.length - index);
+        int limit = src.limit();
+        src.limit(p + length).position(p);
+        src.get(arena, index, first);
+        src.get(arena, 0, length - first);
+        src.limit(limit);
+        head += length;
+    }
+
+    /** Keeps the record at arena position {@code p} as its entry's last dropped value; returns its length. */
+    private int keepDropped(long p) {
+        int length = LogPreamble.recordLength(arena, p);
+        int id = LogPreamble.entryId(arena, p);
+        if (id >= droppedLengths.length) {
+            int grown = Math.max(id + 1, droppedLengths.length * 2);
+            dropped = Arrays.copyOf(dropped, grown);
+            droppedLengths = Arrays.copyOf(droppedLengths, grown);
+        }
+        byte[] value = dropped[id];
+        if (value == null || value.length < length) {
+            value = dropped[id] = new byte[Math.max(length, 16)];
+        }
+        int index = index(p);
+        int first = Math.min(length, arena.length - index);
+        System.arraycopy(arena, index, value, 0, first);
+        System.arraycopy(arena, 0, value, first, length - first);
+        droppedLengths[id] = length;
+        return length;
+    }
+
+    private int index(long p) {
+        return (int) (p % arena.length);
+    }
+
+    /** The output attached to each log; writes land in the arena. */
+    private final class Recorder implements WritableByteChannel {
+        @Override
+        public int write(ByteBuffer src) throws ClosedChannelException {
+            int n = src.remaining();
+            MemoryLogSink.this.write(this, src);
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return recorder == this;
+        }
+
+        @Override
+        public void close() {
+            // the arena outlives the log
+        }
+    }
+}
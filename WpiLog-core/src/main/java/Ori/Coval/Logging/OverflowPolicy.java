@@ -0,0 +1,11 @@
+package Ori.Coval.Logging;
+
+/**
+ * What an asynchronous log writer does when its buffer is full.
+ */
+public enum OverflowPolicy {
+    /** Discard the oldest buffered records to make room for the new one. */
+    DROP_OLDEST,
+    /** Wait on the logging thread until the writer has made room. */
+    BLOCK
+}
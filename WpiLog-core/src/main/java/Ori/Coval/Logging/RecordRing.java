@@ -0,0 +1,112 @@
+package Ori.Coval.Logging;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Preallocated single-producer/single-consumer ring of encoded WPILOG records.
+ * <p>
+ * Positions are monotonically increasing longs; the buffer index is the position
+ * masked by the (power of two) capacity. The producer owns {@code head}, the
+ * consumer owns {@code tail}, except that the producer may move {@code tail}
+ * forward by whole records when dropping the oldest data. Both sides therefore
+ * advance {@code tail} with a CAS, and the consumer discards a batch it copied if
+ * the producer dropped it underneath.
+ */
+final class RecordRing {
+    private final byte[] buf;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    /** Position just past the last batch returned by {@link #drainTo}. Consumer only. */
+    private long drainedPosition;
+
+    RecordRing(int capacity) {
+        if (capacity <= 0 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Invalid ring capacity: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) size <<= 1;
+        buf = new byte[size];
+        mask = size - 1;
+    }
+
+    int capacity() {
+        return buf.length;
+    }
+
+    /** Number of bytes currently buffered. */
+    long size() {
+        return head.get() - tail.get();
+    }
+
+    /** Position just past the last published record. */
+    long headPosition() {
+        return head.get();
+    }
+
+    /**
+     * Copies one complete record (the remaining bytes of {@code src}) into the ring.
+     * Producer only. {@code src} is consumed only if the copy succeeds.
+     *
+     * @return false if there is not enough free space
+     */
+    boolean tryWrite(ByteBuffer src) {
+        int len = src.remaining();
+        long h = head.get();
+        if (buf.length - (h - tail.get()) < len) return false;
+        int idx = (int) (h & mask);
+        int first = Math.min(len, buf.length - idx);
+        src.get(buf, idx, first);
+        if (first < len) src.get(buf, 0, len - first);
+        head.lazySet(h + len);
+        return true;
+    }
+
+    /**
+     * Discards the oldest buffered record. Producer only. Control records (entry id 0)
+     * are never dropped, since every later record of their entry depends on them.
+     *
+     * @return false if the ring is empty or the oldest record is a control record
+     */
+    boolean dropOldest() {
+        while (true) {
+            long t = tail.get();
+            if (head.get() - t <= 0) return false;
+            if (LogPreamble.entryId(buf, t) == 0) {
+                // the consumer may have released it meanwhile; only trust a stable tail
+                if (tail.get() == t) return false;
+                continue;
+            }
+            int len = LogPreamble.recordLength(buf, t);
+            if (tail.compareAndSet(t, t + len)) return true;
+        }
+    }
+
+    /**
+     * Copies every buffered byte into {@code dst} and releases it. Consumer only.
+     * {@code dst} must be at least {@link #capacity()} bytes long.
+     *
+     * @return number of bytes copied
+     */
+    int drainTo(byte[] dst) {
+        while (true) {
+            long t = tail.get();
+            int n = (int) (head.get() - t);
+            if (n <= 0) return 0;
+            int idx = (int) (t & mask);
+            int first = Math.min(n, buf.length - idx);
+            System.arraycopy(buf, idx, dst, 0, first);
+            if (first < n) System.arraycopy(buf, 0, dst, first, n - first);
+            if (tail.compareAndSet(t, t + n)) {
+                drainedPosition = t + n;
+                return n;
+            }
+        }
+    }
+
+    /** Ring position just past the last drained batch. Consumer only. */
+    long drainedPosition() {
+        return drainedPosition;
+    }
+}
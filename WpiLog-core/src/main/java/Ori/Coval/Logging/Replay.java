@@ -0,0 +1,22 @@
+package Ori.Coval.Logging;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the inputs of an {@link AutoLog} class: values that come from hardware and that
+ * {@link LogReplay} feeds back from a recorded log instead.
+ * <p>
+ * On a supplier field, the generated subclass wraps the supplier so it returns the
+ * recorded value while a replay is running. On a public method without parameters, the
+ * generated override returns the recorded result instead of calling the original. On the
+ * class it applies to every supplier field and every such method. Everything else, such
+ * as estimator and controller outputs, is computed again from the replayed inputs and
+ * logged as usual.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target({ElementType.TYPE, ElementType.FIELD, ElementType.METHOD})
+public @interface Replay {
+}
@@ -0,0 +1,216 @@
+package Ori.Coval.Logging;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Splits the log into segment files according to a {@link RotationPolicy}.
+ * <p>
+ * The channel sees the encoded byte stream, finds record boundaries in it and keeps its
+ * {@link LogPreamble}. A new segment is started only between records, and begins with
+ * the preamble, so it can be read on its own. Finished segments are synced, closed,
+ * compressed if asked and pruned on the {@link LogHousekeeper} thread.
+ */
+final class RotatingChannel implements WritableByteChannel {
+    private final File firstFile;
+    private final LogChannelFactory factory;
+    private final RotationPolicy policy;
+    private final LogHousekeeper housekeeper;
+    private final Runnable onRotate;
+    private final boolean compress;
+
+    /** Written by the writer thread, read by the sync thread. */
+    private volatile WritableByteChannel segment;
+    private volatile File segmentFile;
+    private int segmentIndex = 1;
+    private long segmentBytes;
+    private long segmentStartNanos = System.nanoTime();
+    private boolean open = true;
+
+    private final LogPreamble preamble = new LogPreamble();
+    /** Bytes of a record (or of the header) split across writes. */
+    private byte[] pending = new byte[64];
+    private int pendingLength;
+
+    RotatingChannel(File file, LogChannelFactory factory, RotationPolicy policy,
+                    LogHousekeeper housekeeper, Runnable onRotate, boolean compress) throws IOException {
+        this.firstFile = file;
+        this.factory = factory;
+        this.policy = policy;
+        this.housekeeper = housekeeper;
+        this.onRotate = onRotate;
+        this.compress = compress;
+        this.segment = factory.open(file);
+        this.segmentFile = file;
+    }
+
+    /** The segment currently being written. */
+    File currentFile() {
+        return segmentFile;
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        if (!open) throw new ClosedChannelException();
+        int n = src.remaining();
+        if (pendingLength > 0 || preamble.header() == null) {
+            // finish the split record (or the header) byte by byte first
+            while (src.hasRemaining()) {
+                append(src.get());
+                int length = preamble.header() == null ? LogPreamble.headerLength(pending, pendingLength)
+                        : LogPreamble.recordLength(ByteBuffer.wrap(pending), 0, pendingLength);
+                if (length > 0 && pendingLength == length) {
+                    byte[] whole = Arrays.copyOf(pending, length);
+                    pendingLength = 0;
+                    if (preamble.header() == null) {
+                        preamble.setHeader(whole);
+                        writeRaw(ByteBuffer.wrap(whole));
+                    } else {
+                        preamble.record(ByteBuffer.wrap(whole), 0);
+                        writeRaw(ByteBuffer.wrap(whole));
+                        segmentBytes += length;
+                    }
+                    break;
+                }
+            }
+        }
+
+        // then pass whole records through in runs, rotating only between records
+        int runStart = src.position();
+        int p = runStart;
+        int limit = src.limit();
+        while (p < limit) {
+            int length = LogPreamble.recordLength(src, p, limit - p);
+            if (length < 0 || length > limit - p) break;
+            if (shouldRotate()) {
+                writeSlice(src, runStart, p);
+                rotate();
+                runStart = p;
+            }
+            preamble.record(src, p);
+            p += length;
+            segmentBytes += length;
+        }
+        writeSlice(src, runStart, p);
+        while (p < limit) {
+            append(src.get(p++));
+        }
+        src.position(limit);
+        return n;
+    }
+
+    private boolean shouldRotate() {
+        if (policy.getMaxSegmentBytes() > 0 && segmentBytes >= policy.getMaxSegmentBytes()) return true;
+        return policy.getMaxSegmentMillis() > 0
+                && System.nanoTime() - segmentStartNanos >= policy.getMaxSegmentMillis() * 1_000_000L;
+    }
+
+    private void rotate() throws IOException {
+        final WritableByteChannel finished = segment;
+        final File finishedFile = segmentFile;
+        segmentIndex++;
+        File next = segmentFile(firstFile, segmentIndex);
+        segment = factory.open(next);
+        segmentFile = next;
+        segmentBytes = 0;
+        segmentStartNanos = System.nanoTime();
+
+        writeRaw(ByteBuffer.wrap(preamble.header()));
+        writeRaw(ByteBuffer.wrap(preamble.records()));
+        onRotate.run();
+
+        housekeeper.submit(() -> {
+            try {
+                force(finished);
+                finished.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            if (compress) {
+                LogCompressor.compress(finishedFile);
+            }
+            pruneOldLogs();
+        });
+    }
+
+    /** Deletes the oldest logs beyond the retention cap. Runs on the housekeeper thread. */
+    void pruneOldLogs() {
+        if (policy.getMaxTotalBytes() > 0 && firstFile.getAbsoluteFile().getParentFile() != null) {
+            LogHousekeeper.enforceRetention(firstFile.getAbsoluteFile().getParentFile(),
+                    policy.getMaxTotalBytes(), firstFile.getName(), segmentFile.getAbsoluteFile());
+        }
+    }
+
+    /** Name of segment {@code index} (1-based) of a log: "match.wpilog", "match_2.wpilog", ... */
+    static File segmentFile(File first, int index) {
+        if (index == 1) return first;
+        String name = first.getName();
+        int dot = name.lastIndexOf('.');
+        String stem = dot > 0 ? name.substring(0, dot) : name;
+        String extension = dot > 0 ? name.substring(dot) : "";
+        return new File(first.getParentFile(), stem + "_" + index + extension);
+    }
+
+    /** Syncs the current segment; used by {@link SyncedChannel}. */
+    void force() throws IOException {
+        try {
+            force(segment);
+        } catch (ClosedChannelException e) {
+            // rotated away meanwhile; the housekeeper syncs it before closing it
+        }
+    }
+
+    static void force(WritableByteChannel channel) throws IOException {
+        if (channel instanceof FileChannel) {
+            ((FileChannel) channel).force(false);
+        } else if (channel instanceof MappedLogChannel) {
+            ((MappedLogChannel) channel).force();
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!open) return;
+        open = false;
+        segment.close();
+        final File last = segmentFile;
+        housekeeper.submit(() -> {
+            if (compress) {
+                LogCompressor.compress(last);
+            }
+            pruneOldLogs();
+        });
+    }
+
+    // ─── Parsing ─────────────────────────────────────────────────────────────
+
+    private void writeSlice(ByteBuffer src, int from, int to) throws IOException {
+        if (to <= from) return;
+        ByteBuffer slice = src.duplicate();
+        slice.limit(to).position(from);
+        writeRaw(slice);
+    }
+
+    private void writeRaw(ByteBuffer b) throws IOException {
+        while (b.hasRemaining()) {
+            segment.write(b);
+        }
+    }
+
+    private void append(byte v) {
+        if (pendingLength == pending.length) {
+            pending = Arrays.copyOf(pending, pending.length * 2);
+        }
+        pending[pendingLength++] = v;
+    }
+}
@@ -0,0 +1,53 @@
+package Ori.Coval.Logging;
+
+/**
+ * When a log file is split into segments, and how many bytes of logs are kept in its
+ * directory. Every segment starts with the WPILOG header and the start records of all
+ * active entries, so each one opens on its own in AdvantageScope. Segments after the
+ * first are named like the first with {@code _2}, {@code _3}, ... before the extension.
+ * <p>
+ * Set with {@link WpiLog#setRotation(RotationPolicy)}; applies to logs opened with
+ * {@link WpiLog#setup(java.io.File)} and {@link WpiLog#setup(java.io.File, LogChannelFactory)}.
+ */
+public final class RotationPolicy {
+    /** One file per {@code setup}, no size cap. */
+    public static final RotationPolicy NONE = new RotationPolicy(0, 0, 0);
+
+    private final long maxSegmentBytes;
+    private final long maxSegmentMillis;
+    private final long maxTotalBytes;
+
+    /**
+     * @param maxSegmentBytes  start a new segment once the current one reaches this size; 0 for no limit
+     * @param maxSegmentMillis start a new segment once the current one is this old; 0 for no limit
+     * @param maxTotalBytes    delete the oldest logs in the directory (on a background thread)
+     *                         while all of them together are larger than this; 0 keeps everything.
+     *                         Only the logger's own logs count: timestamped names and the
+     *                         segments of the log being written; other files are never deleted
+     */
+    public RotationPolicy(long maxSegmentBytes, long maxSegmentMillis, long maxTotalBytes) {
+        if (maxSegmentBytes < 0 || maxSegmentMillis < 0 || maxTotalBytes < 0) {
+            throw new IllegalArgumentException("rotation limits can't be negative");
+        }
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.maxSegmentMillis = maxSegmentMillis;
+        this.maxTotalBytes = maxTotalBytes;
+    }
+
+    public long getMaxSegmentBytes() {
+        return maxSegmentBytes;
+    }
+
+    public long getMaxSegmentMillis() {
+        return maxSegmentMillis;
+    }
+
+    public long getMaxTotalBytes() {
+        return maxTotalBytes;
+    }
+
+    /** True if logs are ever split into segments. */
+    boolean rotates() {
+        return maxSegmentBytes > 0 || maxSegmentMillis > 0;
+    }
+}
@@ -0,0 +1,32 @@
+package Ori.Coval.Logging;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Binary layout of a composite value (a pose, a module state, ...) for WPILOG
+ * {@code struct:} entries, which AdvantageScope decodes and plots field by field.
+ * <p>
+ * The {@code @LogStruct} annotation generates an implementation named
+ * {@code <Class>Struct}; write one by hand for types you can't annotate.
+ */
+public interface StructSerializer<T> {
+    /** Struct type name, e.g. "Pose2d". Entries are typed {@code struct:<name>}. */
+    String getTypeName();
+
+    /**
+     * Schema in WPILib struct syntax, e.g. {@code "double x;double y;Rotation2d rotation"}.
+     * Nested struct types must be returned by {@link #getNested()}.
+     */
+    String getSchema();
+
+    /** Packed size in bytes; every value has the same size. */
+    int getSize();
+
+    /** Writes exactly {@link #getSize()} bytes for {@code value} into the little-endian buffer. */
+    void pack(ByteBuffer bb, T value);
+
+    /** Serializers of the struct types used in the schema. */
+    default StructSerializer<?>[] getNested() {
+        return new StructSerializer<?>[0];
+    }
+}
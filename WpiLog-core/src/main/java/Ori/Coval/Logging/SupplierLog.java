@@ -1,7 +1,5 @@
 package Ori.Coval.Logging;
 
-import com.acmerobotics.dashboard.FtcDashboard;
-
 import java.util.function.BooleanSupplier;
 import java.util.function.DoubleSupplier;
 import java.util.function.IntSupplier;
@@ -9,30 +7,42 @@ import java.util.function.LongSupplier;
 
 public class SupplierLog {
     public static BooleanSupplier wrap(String name, BooleanSupplier s, boolean postToFtcDashboard) {
+        return wrap(WpiLog.entry(name, WpiLog.TYPE_BOOLEAN), s, postToFtcDashboard);
+    }
+    public static BooleanSupplier wrap(int entry, BooleanSupplier s, boolean postToFtcDashboard) {
         return () -> {
             boolean v = s.getAsBoolean();
-            WpiLog.log(name, v, postToFtcDashboard);
+            WpiLog.log(entry, v, postToFtcDashboard);
             return v;
         };
     }
     public static IntSupplier wrap(String name, IntSupplier s, boolean postToFtcDashboard) {
+        return wrap(WpiLog.entry(name, WpiLog.TYPE_INT64), s, postToFtcDashboard);
+    }
+    public static IntSupplier wrap(int entry, IntSupplier s, boolean postToFtcDashboard) {
         return () -> {
             int v = s.getAsInt();
-            WpiLog.log(name, (long)v, postToFtcDashboard);
+            WpiLog.log(entry, (long)v, postToFtcDashboard);
             return v;
         };
     }
     public static LongSupplier wrap(String name, LongSupplier s, boolean postToFtcDashboard) {
+        return wrap(WpiLog.entry(name, WpiLog.TYPE_INT64), s, postToFtcDashboard);
+    }
+    public static LongSupplier wrap(int entry, LongSupplier s, boolean postToFtcDashboard) {
         return () -> {
             long v = s.getAsLong();
-            WpiLog.log(name, v, postToFtcDashboard);
+            WpiLog.log(entry, v, postToFtcDashboard);
             return v;
         };
     }
     public static DoubleSupplier wrap(String name, DoubleSupplier s, boolean postToFtcDashboard) {
+        return wrap(WpiLog.entry(name, WpiLog.TYPE_DOUBLE), s, postToFtcDashboard);
+    }
+    public static DoubleSupplier wrap(int entry, DoubleSupplier s, boolean postToFtcDashboard) {
         return () -> {
             double v = s.getAsDouble();
-            WpiLog.log(name, v, postToFtcDashboard);
+            WpiLog.log(entry, v, postToFtcDashboard);
             return v;
         };
     }
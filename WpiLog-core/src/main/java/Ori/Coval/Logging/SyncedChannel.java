@@ -0,0 +1,114 @@
+package Ori.Coval.Logging;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Wraps the log channel to apply a {@link DurabilityPolicy}. Writers only add to a byte
+ * count; a background thread forces the file to storage when the interval elapses or
+ * too many bytes are pending. Channels that can't be forced (sockets) are never synced.
+ */
+final class SyncedChannel implements WritableByteChannel {
+    private final WritableByteChannel out;
+    private final DurabilityPolicy policy;
+    private final Thread thread;
+
+    private volatile boolean running = true;
+    /** Bytes written so far; updated only by the one thread writing at a time. */
+    private volatile long written;
+    private volatile long synced;
+    private volatile long syncRequested;
+
+    SyncedChannel(WritableByteChannel out, DurabilityPolicy policy) {
+        this.out = out;
+        this.policy = policy;
+        this.thread = new Thread(this::run, "WpiLog-sync");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        int n = out.write(src);
+        long pending = (written += n) - synced;
+        long limit = policy.getMaxUnsyncedBytes();
+        if (limit > 0 && pending >= limit && syncRequested < written) {
+            syncRequested = written;
+            LockSupport.unpark(thread);
+        }
+        return n;
+    }
+
+    /** Asks the sync thread to sync everything written so far, without waiting for it. */
+    void requestSync() {
+        syncRequested = written;
+        LockSupport.unpark(thread);
+    }
+
+    private void run() {
+        long interval = policy.getSyncIntervalMillis();
+        long parkNanos = interval > 0 ? TimeUnit.MILLISECONDS.toNanos(interval) : Long.MAX_VALUE;
+        while (running) {
+            LockSupport.parkNanos(this, parkNanos);
+            if (!running) return;
+            // woken by the interval, the byte limit or requestSync(); sync whatever is pending
+            if (written != synced) {
+                sync();
+            }
+        }
+    }
+
+    private void sync() {
+        long target = written;
+        long start = System.nanoTime();
+        try {
+            force(out);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        LoggerMetrics metrics = WpiLog.metrics();
+        if (metrics != null) {
+            metrics.fsync(System.nanoTime() - start);
+        }
+        synced = target;
+    }
+
+    private static void force(WritableByteChannel channel) throws IOException {
+        if (channel instanceof FileChannel) {
+            // fdatasync: the data and the file size, without touching timestamps
+            ((FileChannel) channel).force(false);
+        } else if (channel instanceof MappedLogChannel) {
+            ((MappedLogChannel) channel).force();
+        } else if (channel instanceof RotatingChannel) {
+            ((RotatingChannel) channel).force();
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return out.isOpen();
+    }
+
+    /** Stops the sync thread, syncs once more if the policy says so, and closes the file. */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            if (policy.isSyncOnClose() && out.isOpen()) {
+                force(out);
+            }
+        } finally {
+            out.close();
+        }
+    }
+}
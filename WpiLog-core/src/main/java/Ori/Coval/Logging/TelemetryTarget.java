@@ -0,0 +1,16 @@
+package Ori.Coval.Logging;
+
+import java.util.Map;
+
+/**
+ * Receives the latest value of every entry logged with {@code PostToFTCDashboard},
+ * e.g. to forward it to FTC Dashboard. Called from the logger's publisher thread.
+ */
+public interface TelemetryTarget {
+    /**
+     * @param values entry name to latest value; primitives are boxed, arrays and structs
+     *               are already formatted as strings. The map is only valid during the call,
+     *               and is only sent when at least one value changed.
+     */
+    void send(Map<String, Object> values);
+}
@@ -0,0 +1,73 @@
+package Ori.Coval.Logging;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes strings as UTF-8 straight into a record buffer, without the temporary byte
+ * array {@code String.getBytes} allocates. ASCII strings, by far the most common in logs,
+ * take a one-byte-per-char loop. Output matches {@code getBytes(UTF_8)}, including the
+ * '?' written for an unpaired surrogate.
+ */
+final class Utf8 {
+    private Utf8() {
+    }
+
+    /** Number of bytes {@link #put(ByteBuffer, String)} writes for {@code s}. */
+    static int length(String s) {
+        int n = s.length();
+        int length = n;
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) continue;
+            if (c < 0x800) {
+                length += 1;
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    // two chars, four bytes
+                    length += 2;
+                    i++;
+                }
+                // an unpaired surrogate is written as a single '?'
+            } else {
+                length += 2;
+            }
+        }
+        return length;
+    }
+
+    /** Puts the UTF-8 bytes of {@code s}; the buffer must have {@link #length(String)} bytes left. */
+    static void put(ByteBuffer b, String s) {
+        int n = s.length();
+        int i = 0;
+        // ASCII fast path
+        while (i < n) {
+            char c = s.charAt(i);
+            if (c >= 0x80) break;
+            b.put((byte) c);
+            i++;
+        }
+        for (; i < n; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                b.put((byte) c);
+            } else if (c < 0x800) {
+                b.put((byte) (0xC0 | (c >> 6)));
+                b.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, s.charAt(++i));
+                    b.put((byte) (0xF0 | (cp >> 18)));
+                    b.put((byte) (0x80 | ((cp >> 12) & 0x3F)));
+                    b.put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+                    b.put((byte) (0x80 | (cp & 0x3F)));
+                } else {
+                    b.put((byte) '?');
+                }
+            } else {
+                b.put((byte) (0xE0 | (c >> 12)));
+                b.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                b.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+}
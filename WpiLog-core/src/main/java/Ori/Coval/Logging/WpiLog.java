@@ -0,0 +1,1489 @@
+package Ori.Coval.Logging;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * WpiLog: write WPILOG-format files for Advantage Scope.
+ * Supports scalar and array data types.
+ */
+//TODO: change all the e.printStackTrace() for a better way of logging
+@SuppressWarnings("unused")
+public class WpiLog implements Closeable {
+    public static final String TYPE_BOOLEAN = "boolean";
+    public static final String TYPE_INT64 = "int64";
+    public static final String TYPE_FLOAT = "float";
+    public static final String TYPE_DOUBLE = "double";
+    public static final String TYPE_STRING = "string";
+    public static final String TYPE_OBJECT = "object";
+    public static final String TYPE_BOOLEAN_ARRAY = "boolean[]";
+    public static final String TYPE_INT64_ARRAY = "int64[]";
+    public static final String TYPE_FLOAT_ARRAY = "float[]";
+    public static final String TYPE_DOUBLE_ARRAY = "double[]";
+    public static final String TYPE_STRING_ARRAY = "string[]";
+    /** Prefix of struct entry types; the struct type name follows, e.g. "struct:Pose2d". */
+    public static final String TYPE_STRUCT_PREFIX = "struct:";
+    private static final String TYPE_STRUCT_SCHEMA = "structschema";
+    private static final String SCHEMA_ENTRY_PREFIX = "/.schema/";
+
+    private static final byte[] WPILOG_MAGIC = "WPILOG".getBytes(StandardCharsets.US_ASCII);
+
+    private static WritableByteChannel channel;
+    private static ByteBuffer buffer = ByteBuffer.allocateDirect(256).order(ByteOrder.LITTLE_ENDIAN);
+    private static BufferViews bufferViews = new BufferViews(buffer);
+    /** Struct values are packed here first so unchanged values can be skipped before encoding. */
+    private static ByteBuffer structBuffer = ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN);
+    private static BufferViews structViews = new BufferViews(structBuffer);
+    private static AsyncLogWriter asyncWriter;
+    private static int asyncCapacity = 0;
+    private static OverflowPolicy asyncPolicy = OverflowPolicy.DROP_OLDEST;
+    private static int concurrentCapacity = 0;
+    private static OverflowPolicy concurrentPolicy = OverflowPolicy.DROP_OLDEST;
+    private static volatile ConcurrentLogWriter concurrentWriter;
+    /**
+     * Whether the open (or last) log was opened for concurrent logging, which decides
+     * where records are encoded. Kept through {@link #closeLog()}, so threads that log
+     * after it still don't share a buffer.
+     */
+    private static volatile boolean concurrentMode;
+    private static final ThreadLocal<LogProducer> producers = new ThreadLocal<LogProducer>() {
+        @Override
+        protected LogProducer initialValue() {
+            return new LogProducer();
+        }
+    };
+    private static DurabilityPolicy durability = DurabilityPolicy.DEFAULT;
+    private static SyncedChannel syncedChannel;
+    private static RotationPolicy rotation = RotationPolicy.NONE;
+    private static boolean compression = false;
+    /** Log opened by {@link #setup(File)} without rotation, compressed once it is closed. */
+    private static File compressOnClose;
+    private static final LogHousekeeper housekeeper = new LogHousekeeper();
+    /** Swapped for a throwaway registry only while {@link #warmUp(int)} runs, under this one's lock. */
+    private static EntryRegistry entries = new EntryRegistry();
+    private static DashboardPublisher dashboard = new DashboardPublisher();
+    private static final List<LogSink> sinks = new CopyOnWriteArrayList<>();
+    /** The open log's stream when sinks were added before its {@code setup}. */
+    private static FanOutChannel fanOut;
+    /** The arena of the last {@link #setupFlightRecorder} log, kept after it is closed. */
+    private static volatile MemoryLogSink flightRecorder;
+    private static File flightRecorderDir;
+    private static final AtomicInteger dumps = new AtomicInteger();
+    private static boolean dumpOnCrashInstalled;
+    private static final long CRASH_DUMP_WAIT_MILLIS = 2000;
+    /** Records of a {@link #declareEntries()} batch, written to the file with one call; reused by the next batch. */
+    private static ByteBuffer batch = ByteBuffer.allocate(4096);
+    /** Whether {@link #endRecord(ByteBuffer)} appends to {@link #batch} instead of writing. */
+    private static boolean batching;
+    /** Entries up to this id have been declared in the current log. */
+    private static int declaredUpTo;
+    /** Struct logged by {@link #warmUp(int)}. */
+    private static final StructSerializer<double[]> WARM_UP_STRUCT = new StructSerializer<double[]>() {
+        @Override
+        public String getTypeName() {
+            return "WarmUp";
+        }
+
+        @Override
+        public String getSchema() {
+            return "double x;double y";
+        }
+
+        @Override
+        public int getSize() {
+            return 16;
+        }
+
+        @Override
+        public void pack(ByteBuffer bb, double[] value) {
+            bb.putDouble(value[0]).putDouble(value[1]);
+        }
+    };
+    private static final WritableByteChannel DISCARD = new WritableByteChannel() {
+        @Override
+        public int write(ByteBuffer src) {
+            int n = src.remaining();
+            src.position(src.limit());
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+    /** The logger's own cost, or null while metrics are off. */
+    private static LoggerMetrics metrics;
+    private static long startTime = System.nanoTime() / 1000;
+
+    public static void register(Logged loggedClass) {
+    }
+
+    /**
+     * Moves file writes off the logging thread for logs opened by later {@code setup} calls.
+     * Records are queued in a preallocated ring of {@code capacityBytes} (rounded up to a
+     * power of two) and written to disk in batches by a background thread.
+     *
+     * @param capacityBytes ring size; records larger than this are dropped
+     * @param policy        what to do when the ring is full
+     */
+    public static void enableAsyncWriter(int capacityBytes, OverflowPolicy policy) {
+        if (capacityBytes <= 0) {
+            throw new IllegalArgumentException("capacityBytes must be positive");
+        }
+        asyncCapacity = capacityBytes;
+        asyncPolicy = policy;
+    }
+
+    /**
+     * Writes synchronously from the logging thread for logs opened by later {@code setup} calls.
+     */
+    public static void disableAsyncWriter() {
+        asyncCapacity = 0;
+    }
+
+    /**
+     * Makes logging safe from any number of threads (a vision pipeline, a bulk-read thread,
+     * suppliers called off the loop thread) for logs opened by later {@code setup} calls.
+     * Each thread encodes into its own buffers and queues records in its own ring of
+     * {@code capacityBytesPerThread}, so threads never wait on each other; one writer
+     * thread merges the rings into the file, keeping each entry's timestamps in order.
+     * This replaces {@link #enableAsyncWriter(int, OverflowPolicy)} while enabled.
+     * Call it before any thread other than the loop thread starts logging.
+     *
+     * @param capacityBytesPerThread ring size per logging thread
+     * @param policy                 what a thread does when its ring is full
+     */
+    public static void enableConcurrentLogging(int capacityBytesPerThread, OverflowPolicy policy) {
+        if (capacityBytesPerThread <= 0) {
+            throw new IllegalArgumentException("capacityBytesPerThread must be positive");
+        }
+        concurrentCapacity = capacityBytesPerThread;
+        concurrentPolicy = policy;
+    }
+
+    /**
+     * Goes back to logging from one thread only, for logs opened by later {@code setup} calls.
+     */
+    public static void disableConcurrentLogging() {
+        concurrentCapacity = 0;
+    }
+
+    /**
+     * Sets how often logs opened by later {@code setup} calls are synced to storage.
+     * The default, {@link DurabilityPolicy#DEFAULT}, syncs every second, after 1 MB and on close.
+     */
+    public static void setDurability(DurabilityPolicy policy) {
+        durability = policy;
+    }
+
+    /**
+     * Sets how logs opened by later {@link #setup(File)} calls are split into segments and
+     * how many bytes of old logs are kept. The default, {@link RotationPolicy#NONE}, writes
+     * one file per {@code setup} and never deletes anything.
+     */
+    public static void setRotation(RotationPolicy policy) {
+        rotation = policy;
+    }
+
+    /**
+     * Compresses logs opened by later {@link #setup(File)} calls once they are closed, and
+     * each rotated segment once the next one has started, into {@code .wpilogz} files a
+     * fraction of the size, so they pull off the robot faster. Compression runs on a
+     * minimum-priority background thread; logs left uncompressed by an earlier run (e.g.
+     * after a crash) are compressed the same way when the next log is set up. Use
+     * {@code WpiLogDecompressor} from WpiLog-reader to get the {@code .wpilog} back.
+     */
+    public static void setCompression(boolean enabled) {
+        compression = enabled;
+    }
+
+    /**
+     * Asks for everything written to the file so far to be synced to storage, e.g. at the
+     * end of autonomous. Returns immediately; the sync runs on a background thread.
+     */
+    public static void requestSync() {
+        if (syncedChannel != null) {
+            syncedChannel.requestSync();
+        }
+    }
+
+    /**
+     * Sets where values logged with {@code PostToFTCDashboard} are published, e.g. FTC Dashboard.
+     * Until a target is set those values are only written to the log.
+     */
+    public static void setTelemetryTarget(TelemetryTarget target) {
+        dashboard.setTarget(target);
+    }
+
+    /**
+     * Sets how often values logged with {@code PostToFTCDashboard} are sent to FTC Dashboard.
+     * Only the latest value of each entry is sent; the default is 20 Hz.
+     */
+    public static void setDashboardRate(double hz) {
+        dashboard.setRate(hz);
+    }
+
+    /**
+     * Sends the log's record stream to {@code sink} as well as to the file, from the next
+     * {@code setup} call on, e.g. a {@link LogTapServer} or a {@link MemoryLogSink}.
+     * Records are encoded once; the file gets them first and each sink output buffers
+     * them on its own, so a slow sink never holds up the file.
+     */
+    public static void addSink(LogSink sink) {
+        sinks.add(sink);
+    }
+
+    /** Stops sending later logs to {@code sink}; the open log keeps its outputs until it is closed. */
+    public static void removeSink(LogSink sink) {
+        sinks.remove(sink);
+    }
+
+    /**
+     * Writes the logger's own cost into the log under {@code /Logger/}, {@code hz} times
+     * per second: time spent in {@link AutoLogManager#periodic()} and in each registered
+     * instance, records and bytes encoded per second, writer backlog, dropped records and
+     * sync latency. Counting costs a few nanoseconds per record and allocates nothing.
+     */
+    public static void enableMetrics(double hz) {
+        if (hz <= 0) {
+            throw new IllegalArgumentException("hz must be positive");
+        }
+        metrics = new LoggerMetrics((long) (1_000_000_000L / hz));
+    }
+
+    /** Stops recording the logger's own cost. */
+    public static void disableMetrics() {
+        metrics = null;
+    }
+
+    /** The metrics being recorded, or null if they are off. */
+    static LoggerMetrics metrics() {
+        return metrics;
+    }
+
+    /** Bytes queued in the async or concurrent writer and not yet handed to the file. */
+    static long queuedBytes() {
+        if (concurrentWriter != null) {
+            return concurrentWriter.queuedBytes();
+        }
+        return asyncWriter == null ? 0 : asyncWriter.queuedBytes();
+    }
+
+    /**
+     * Number of records the async writer has discarded because its ring was full.
+     */
+    public static long getDroppedRecords() {
+        if (concurrentWriter != null) {
+            return concurrentWriter.getDroppedRecords();
+        }
+        return asyncWriter == null ? 0 : asyncWriter.getDroppedRecords();
+    }
+
+    /**
+     * Returns a log file name made from the current date and time,
+     * e.g. 2025-05-22_15-42-10.wpilog.
+     */
+    public static String timestampedFileName() {
+        return timestampedFileName(System.currentTimeMillis());
+    }
+
+    private static String timestampedFileName(long millis) {
+        // Format: yyyy-MM-dd_HH-mm-ss (example: 2025-05-22_15-42-10)
+        String timeStamp = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss", Locale.US)
+                .format(new Date(millis));
+
+        return timeStamp + ".wpilog";
+    }
+
+    /**
+     * Set up logging to the given file, replacing it if it exists.
+     * Needs java.nio.file (Android API 26+); on older Android use {@link #setup(WritableByteChannel)}.
+     */
+    public static void setup(Path file) {
+        try {
+            setup(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING));
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to open log file: " + file, e);
+        }
+    }
+
+    /**
+     * Set up logging to the given file, replacing it if it exists, and split it into
+     * segments according to {@link #setRotation(RotationPolicy)}. Works on every Android version.
+     */
+    public static void setup(File file) {
+        setup(file, LogChannelFactory.FILE);
+    }
+
+    /**
+     * Same as {@link #setup(File)}, opening the file and its segments through {@code factory},
+     * e.g. {@code f -> new MappedLogChannel(f, MappedLogChannel.DEFAULT_SEGMENT_BYTES)}.
+     */
+    public static void setup(File file, LogChannelFactory factory) {
+        closeLog();
+        final RotationPolicy policy = rotation;
+        WritableByteChannel out;
+        try {
+            if (policy.rotates()) {
+                out = new RotatingChannel(file, factory, policy, housekeeper, entries::forceNextWrite, compression);
+            } else {
+                out = factory.open(file);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to open log file: " + file, e);
+        }
+        setup(out);
+        final File current = file.getAbsoluteFile();
+        final File dir = current.getParentFile();
+        if (compression && !policy.rotates()) {
+            compressOnClose = current;
+        }
+        if (compression && dir != null) {
+            // logs an earlier run never closed; listed now, before this log has a second segment
+            final File[] leftovers = dir.listFiles((d, name) ->
+                    name.endsWith(LogHousekeeper.LOG_SUFFIX) && !name.equals(current.getName())
+                            && LogHousekeeper.isOwnLog(name, current.getName()));
+            if (leftovers != null && leftovers.length > 0) {
+                housekeeper.submit(() -> {
+                    for (File f : leftovers) {
+                        LogCompressor.compress(f);
+                    }
+                });
+            }
+        }
+        if (policy.getMaxTotalBytes() > 0 && dir != null) {
+            // old logs from earlier runs count too
+            housekeeper.submit(() -> LogHousekeeper.enforceRetention(dir, policy.getMaxTotalBytes(),
+                    current.getName(), current));
+        }
+    }
+
+    /**
+     * Set up logging to any byte sink, such as a FileChannel or a socket channel.
+     * The channel is owned by the logger from now on and closed by {@link #closeLog()}.
+     */
+    public static void setup(WritableByteChannel out) {
+        open(out, durability.isEnabled());
+    }
+
+    /**
+     * Sets up a flight recorder instead of a log file: records go only into a fixed arena
+     * of {@code capacityBytes} in memory holding the last {@code seconds}, and nothing is
+     * written to storage until {@link #dumpFlightRecorder()} is called, e.g. from a
+     * {@code catch} around the OpMode loop or when the driver presses a button. An
+     * exception no code catches also dumps the recorder. Sinks added with
+     * {@link #addSink(LogSink)} still get the full stream.
+     *
+     * @param dir where dumps are written
+     */
+    public static void setupFlightRecorder(File dir, double seconds, int capacityBytes) {
+        MemoryLogSink recorder = new MemoryLogSink(seconds, capacityBytes);
+        open(recorder.open(), false);
+        flightRecorder = recorder;
+        flightRecorderDir = dir;
+        dumpOnCrash();
+    }
+
+    /**
+     * Writes the flight recorder's last seconds to a new self-contained {@code .wpilog} in
+     * the directory given to {@link #setupFlightRecorder}, named after the time of the
+     * call, e.g. 2025-05-22_15-42-10_dump1.wpilog: the start records of every active
+     * entry, each entry's last value from before the window, then the window. Returns at
+     * once; naming, copying and writing the file all run on a background thread. Works
+     * after the log is closed too, until the next {@code setup}.
+     *
+     * @return false if no flight recorder was set up
+     */
+    public static boolean dumpFlightRecorder() {
+        return dumpFlightRecorder(null);
+    }
+
+    private static boolean dumpFlightRecorder(final CountDownLatch done) {
+        final MemoryLogSink recorder = flightRecorder;
+        if (recorder == null) {
+            return false;
+        }
+        final long millis = System.currentTimeMillis();
+        final int number = dumps.incrementAndGet();
+        final File dir = flightRecorderDir;
+        housekeeper.submit(() -> {
+            String name = timestampedFileName(millis);
+            name = name.substring(0, name.length() - LogHousekeeper.LOG_SUFFIX.length());
+            File file = new File(dir, name + "_dump" + number + LogHousekeeper.LOG_SUFFIX);
+            try {
+                recorder.writeSnapshot(file);
+            } catch (IOException e) {
+                e.printStackTrace();
+            } finally {
+                if (done != null) done.countDown();
+            }
+        });
+        return true;
+    }
+
+    /** Dumps the flight recorder before an uncaught exception ends its thread, once per process. */
+    private static synchronized void dumpOnCrash() {
+        if (dumpOnCrashInstalled) return;
+        dumpOnCrashInstalled = true;
+        final Thread.UncaughtExceptionHandler previous = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((thread, e) -> {
+            CountDownLatch done = new CountDownLatch(1);
+            if (dumpFlightRecorder(done)) {
+                try {
+                    done.await(CRASH_DUMP_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException ignored) {
+                    // hand over to the previous handler anyway
+                }
+            }
+            if (previous != null) {
+                previous.uncaughtException(thread, e);
+            } else {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    private static void open(WritableByteChannel out, boolean synced) {
+        closeLog();
+        flightRecorder = null;
+        if (synced) {
+            syncedChannel = new SyncedChannel(out, durability);
+            out = syncedChannel;
+        }
+        if (!sinks.isEmpty()) {
+            fanOut = new FanOutChannel(out);
+            out = fanOut;
+        }
+        channel = out;
+        concurrentMode = concurrentCapacity > 0;
+        if (concurrentMode) {
+            concurrentWriter = new ConcurrentLogWriter(channel, concurrentCapacity, concurrentPolicy);
+        } else if (asyncCapacity > 0) {
+            asyncWriter = new AsyncLogWriter(channel, asyncCapacity, asyncPolicy);
+        }
+        startTime = System.nanoTime() / 1000;
+        entries.clearStarted();
+        declaredUpTo = 0;
+        try {
+            writeHeader("");
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write WPILOG header", e);
+        }
+        declareEntries();
+        if (fanOut != null) {
+            for (LogSink sink : sinks) {
+                sink.logOpened(fanOut);
+            }
+        }
+    }
+
+    /**
+     * Writes the start record of every registered entry that the current log doesn't have
+     * yet, all in one batch, so the first loop doesn't pay for them one by one. Called by
+     * {@code setup} and by each generated class once it has registered its entries;
+     * does nothing while no log is open.
+     */
+    public static void declareEntries() {
+        if (channel == null && concurrentWriter == null) {
+            return;
+        }
+        long ts = nowMicros();
+        synchronized (entries) {
+            int largest = entries.largestId();
+            if (declaredUpTo >= largest) {
+                return;
+            }
+            // with a writer thread the records are batched by the writer already
+            batching = asyncWriter == null && concurrentWriter == null;
+            if (batching) {
+                batch.clear();
+            }
+            try {
+                for (int id = declaredUpTo + 1; id <= largest; id++) {
+                    // schema entries are started, with their value, by the struct entries using them
+                    if (!TYPE_STRUCT_SCHEMA.equals(entries.type(id))) {
+                        ensureStarted(id, ts);
+                    }
+                }
+                declaredUpTo = largest;
+                if (batching) {
+                    batch.flip();
+                    writeFully(batch);
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            } finally {
+                batching = false;
+            }
+        }
+    }
+
+    /**
+     * Runs the logging paths {@code iterations} times without writing anything, so class
+     * loading and JIT compilation of the encoders, the change filters and the dashboard
+     * posts happen during init rather than in the first loops after start is pressed.
+     * The values go through the public {@code log(int, ...)} methods against a throwaway
+     * registry and dashboard, so the real entries and dashboard values are left as they
+     * were. Call it from the loop thread during init; records other threads log while it
+     * runs are dropped.
+     */
+    public static void warmUp(int iterations) {
+        EntryRegistry warm = new EntryRegistry();
+        int bool = warm.register("WarmUp/boolean", TYPE_BOOLEAN);
+        int int64 = warm.register("WarmUp/int64", TYPE_INT64);
+        int float32 = warm.register("WarmUp/float", TYPE_FLOAT);
+        int float64 = warm.register("WarmUp/double", TYPE_DOUBLE);
+        int string = warm.register("WarmUp/string", TYPE_STRING);
+        int bools = warm.register("WarmUp/boolean[]", TYPE_BOOLEAN_ARRAY);
+        int int64s = warm.register("WarmUp/int64[]", TYPE_INT64_ARRAY);
+        int float32s = warm.register("WarmUp/float[]", TYPE_FLOAT_ARRAY);
+        int float64s = warm.register("WarmUp/double[]", TYPE_DOUBLE_ARRAY);
+        int strings = warm.register("WarmUp/string[]", TYPE_STRING_ARRAY);
+        int struct = warm.register("WarmUp/struct", TYPE_STRUCT_PREFIX + WARM_UP_STRUCT.getTypeName());
+        int structs = warm.register("WarmUp/struct[]", TYPE_STRUCT_PREFIX + WARM_UP_STRUCT.getTypeName() + "[]");
+        warm.setStruct(struct, WARM_UP_STRUCT);
+        warm.setStruct(structs, WARM_UP_STRUCT);
+        // the filtered paths compare and copy values before they are encoded
+        warm.setOnlyOnChange(int64, true, Long.MAX_VALUE);
+        warm.setOnlyOnChange(int64s, true, Long.MAX_VALUE);
+        warm.setOnlyOnChange(struct, true, Long.MAX_VALUE);
+
+        synchronized (entries) {
+            EntryRegistry savedEntries = entries;
+            DashboardPublisher savedDashboard = dashboard;
+            WritableByteChannel savedChannel = channel;
+            AsyncLogWriter savedAsync = asyncWriter;
+            ConcurrentLogWriter savedConcurrent = concurrentWriter;
+            LoggerMetrics savedMetrics = metrics;
+            entries = warm;
+            dashboard = new DashboardPublisher(false);
+            channel = DISCARD;
+            asyncWriter = null;
+            concurrentWriter = null;
+            metrics = null;
+            try {
+                boolean[] booleanValues = new boolean[4];
+                long[] longValues = new long[4];
+                float[] floatValues = new float[4];
+                double[] doubleValues = new double[4];
+                String[] stringValues = {"warm", "up \u00e9"};
+                double[][] points = {{1, 2}, {3, 4}};
+                for (int i = 0; i < iterations; i++) {
+                    // every pass starts the entries again, like a new log would
+                    warm.clearStarted();
+                    String s = stringValues[i & 1];
+                    log(bool, (i & 1) != 0, true);
+                    log(int64, (long) i, true);
+                    log(float32, (float) i, true);
+                    log(float64, (double) i, true);
+                    log(string, s, true);
+                    log(bools, booleanValues, true);
+                    log(int64s, longValues, 0, longValues.length, true);
+                    log(float32s, floatValues, 0, floatValues.length, true);
+                    log(float64s, doubleValues, 0, doubleValues.length, true);
+                    log(strings, stringValues, true);
+                    log(struct, points[i & 1], WARM_UP_STRUCT, true);
+                    log(structs, points, WARM_UP_STRUCT, true);
+                    setMetadata(string, s, i);
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            } finally {
+                entries = savedEntries;
+                dashboard = savedDashboard;
+                channel = savedChannel;
+                asyncWriter = savedAsync;
+                concurrentWriter = savedConcurrent;
+                metrics = savedMetrics;
+            }
+        }
+    }
+
+    private static void writeHeader(String extra) throws IOException {
+        // the header is written straight to the channel, before the async writer sees any record
+        byte[] eb = extra.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ensureCapacity(12 + eb.length);
+        buffer.put(WPILOG_MAGIC);
+        buffer.putShort((short) 0x0100);                // version 1.0
+        buffer.putInt(eb.length);                        // extra-header length
+        buffer.put(eb);                                  // extra-header data
+        buffer.flip();
+        writeFully(buffer);
+    }
+
+    /**
+     * Blocks until every record logged so far has been handed to the file.
+     */
+    public static void flush() {
+        if (asyncWriter != null) {
+            asyncWriter.flush();
+        }
+        if (concurrentWriter != null) {
+            concurrentWriter.flush();
+        }
+    }
+
+    /**
+     * Drains any buffered records, syncs them if the {@link DurabilityPolicy} says so, and
+     * closes the current log file. Call this when the OpMode stops.
+     */
+    public static void closeLog() {
+        try {
+            if (asyncWriter != null) {
+                asyncWriter.close();
+            }
+            if (concurrentWriter != null) {
+                concurrentWriter.close();
+            }
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        if (compressOnClose != null) {
+            final File closed = compressOnClose;
+            housekeeper.submit(() -> LogCompressor.compress(closed));
+        }
+        if (fanOut != null) {
+            for (LogSink sink : sinks) {
+                sink.logClosed();
+            }
+        }
+        asyncWriter = null;
+        concurrentWriter = null;
+        syncedChannel = null;
+        fanOut = null;
+        compressOnClose = null;
+        channel = null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeLog();
+    }
+
+    // ─── Control records ─────────────────────────────────────────────────────
+    private static void startEntry(int entryId, String name, String type, long ts) throws IOException {
+        int nameLength = Utf8.length(name);
+        int typeLength = Utf8.length(type);
+        ByteBuffer b = beginRecord(0, 1 + 4 + 4 + nameLength + 4 + typeLength + 4, ts)
+                .put((byte) 0)
+                .putInt(entryId);
+        b.putInt(nameLength);
+        Utf8.put(b, name);
+        b.putInt(typeLength);
+        Utf8.put(b, type);
+        b.putInt(0);                                    // empty metadata
+        endRecord(b);
+    }
+
+    private static void finishEntry(int entryId, long ts) throws IOException {
+        ByteBuffer b = beginRecord(0, 1 + 4, ts)
+                .put((byte) 1)
+                .putInt(entryId);
+        endRecord(b);
+    }
+
+    private static void setMetadata(int entryId, String metadata, long ts) throws IOException {
+        int length = Utf8.length(metadata);
+        ByteBuffer b = beginRecord(0, 1 + 4 + 4 + length, ts)
+                .put((byte) 2)
+                .putInt(entryId)
+                .putInt(length);
+        Utf8.put(b, metadata);
+        endRecord(b);
+    }
+
+    // ─── Low-level record writer ─────────────────────────────────────────────
+    // Every record is encoded into one reusable direct buffer (one per thread with
+    // concurrent logging), so scalar records allocate nothing once the buffer has grown
+    // to fit the largest payload.
+
+    /**
+     * Clears the encode buffer and writes a record header into it.
+     * The caller puts exactly {@code payloadSize} bytes and then calls {@link #endRecord(ByteBuffer)}.
+     * <p>
+     * Each header field gets the narrowest width that holds it; {@link LogPreamble} has
+     * the layout.
+     */
+    private static ByteBuffer beginRecord(int entryId, int payloadSize, long ts) {
+        int idLen = LogPreamble.byteLength(entryId & 0xFFFFFFFFL);
+        int sizeLen = LogPreamble.byteLength(payloadSize & 0xFFFFFFFFL);
+        int tsLen = LogPreamble.byteLength(ts);
+        int size = 1 + idLen + sizeLen + tsLen + payloadSize;
+        ByteBuffer b = concurrentMode ? producers.get().encoder(size) : ensureCapacity(size);
+        b.put(LogPreamble.bitfield(idLen, sizeLen, tsLen));
+        LogPreamble.putLittleEndian(b, entryId, idLen);
+        LogPreamble.putLittleEndian(b, payloadSize, sizeLen);
+        LogPreamble.putLittleEndian(b, ts, tsLen);
+        return b;
+    }
+
+    private static void endRecord(ByteBuffer b) throws IOException {
+        b.flip();
+        ConcurrentLogWriter concurrent = concurrentWriter;
+        if (concurrent == null && channel == null) {
+            return;                     // no log file open yet
+        }
+        LoggerMetrics m = metrics;
+        if (m != null) {
+            m.recordEncoded(b.remaining());
+        }
+        if (concurrent != null) {
+            concurrent.write(producers.get(), b);
+            return;
+        }
+        if (asyncWriter != null) {
+            asyncWriter.write(b);
+        } else if (batching) {
+            addToBatch(b);
+        } else {
+            writeFully(b);
+        }
+    }
+
+    private static void writeFully(ByteBuffer b) throws IOException {
+        while (b.hasRemaining()) {
+            channel.write(b);
+        }
+    }
+
+    private static void addToBatch(ByteBuffer b) {
+        if (batch.remaining() < b.remaining()) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(batch.capacity() * 2, batch.position() + b.remaining()));
+            batch.flip();
+            batch = grown.put(batch);
+        }
+        batch.put(b);
+    }
+
+    /** Returns the cleared shared buffer, grown to hold at least {@code size} bytes. */
+    private static ByteBuffer ensureCapacity(int size) {
+        if (buffer.capacity() < size) {
+            int newCapacity = Math.max(size, buffer.capacity() * 2);
+            buffer = ByteBuffer.allocateDirect(newCapacity).order(ByteOrder.LITTLE_ENDIAN);
+            bufferViews = new BufferViews(buffer);
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    // ─── Entry handles ───────────────────────────────────────────────────────
+
+    /**
+     * Registers an entry and returns its handle. The handle can be stored once (for example
+     * in a static field) and passed to the {@code log(int, ...)} overloads, which skip the
+     * name lookup done by the {@code log(String, ...)} overloads.
+     * Registering the same name again returns the same handle.
+     *
+     * @param name entry name, e.g. "DriveSubsystem/leftVelocity"
+     * @param type WPILOG type string, one of the {@code TYPE_*} constants
+     */
+    public static int entry(String name, String type) {
+        return entries.register(name, type);
+    }
+
+    /**
+     * Makes room for {@code count} more entries, so registering them afterwards doesn't grow
+     * or rehash the entry table. Generated classes reserve their entries before registering
+     * them; call it once at startup with a rough total if you register many names by hand.
+     */
+    public static void reserveEntries(int count) {
+        entries.reserve(count);
+    }
+
+    /**
+     * Makes an entry write a record only when its value differs from the last one written
+     * to the current file. Arrays are compared by content and strings with equals.
+     *
+     * @param keyframeSeconds if positive, the value is written anyway when this many seconds
+     *                        have passed since the entry's last record, so plots in
+     *                        AdvantageScope stay anchored; 0 disables keyframes
+     */
+    public static void setOnlyOnChange(int entry, double keyframeSeconds) {
+        long keyframeMicros = keyframeSeconds > 0 ? (long) (keyframeSeconds * 1_000_000) : Long.MAX_VALUE;
+        entries.setOnlyOnChange(entry, true, keyframeMicros);
+    }
+
+    /**
+     * Makes an entry write a record on every log call again (the default).
+     */
+    public static void setLogEveryValue(int entry) {
+        entries.setOnlyOnChange(entry, false, Long.MAX_VALUE);
+    }
+
+    /**
+     * Limits how often an entry is written. Calls that come sooner than {@code 1 / hz}
+     * seconds after the entry's last record are skipped with one array comparison.
+     *
+     * @param hz maximum records per second, or 0 for no limit
+     */
+    public static void setMaxRate(int entry, double hz) {
+        entries.setMinPeriod(entry, hz > 0 ? (long) (1_000_000 / hz) : 0);
+    }
+
+    /**
+     * Registers a struct entry (type {@code struct:<name>}) and returns its handle.
+     * The struct's schema is written to each log file before the entry's first record.
+     */
+    public static int structEntry(String name, StructSerializer<?> struct) {
+        int entry = entries.register(name, TYPE_STRUCT_PREFIX + struct.getTypeName());
+        entries.setStruct(entry, struct);
+        return entry;
+    }
+
+    /**
+     * Registers a struct array entry (type {@code struct:<name>[]}) and returns its handle.
+     */
+    public static int structArrayEntry(String name, StructSerializer<?> struct) {
+        int entry = entries.register(name, TYPE_STRUCT_PREFIX + struct.getTypeName() + "[]");
+        entries.setStruct(entry, struct);
+        return entry;
+    }
+
+    private static void ensureStarted(int entry, long ts) throws IOException {
+        if (entries.isStarted(entry)) {
+            return;
+        }
+        // start records are queued under the registry's lock, so only one thread writes each
+        synchronized (entries) {
+            if (!entries.isStarted(entry)) {
+                StructSerializer<?> struct = entries.struct(entry);
+                if (struct != null) {
+                    ensureSchema(struct, ts);
+                }
+                startEntry(entry, entries.name(entry), entries.type(entry), ts);
+                entries.markStarted(entry);
+            }
+        }
+    }
+
+    /** Writes the schema of a struct type, and of the types it nests, once per file. */
+    private static void ensureSchema(StructSerializer<?> struct, long ts) throws IOException {
+        String typeName = TYPE_STRUCT_PREFIX + struct.getTypeName();
+        int schemaEntry = entries.register(SCHEMA_ENTRY_PREFIX + typeName, TYPE_STRUCT_SCHEMA);
+        if (entries.isStarted(schemaEntry)) return;
+        for (StructSerializer<?> nested : struct.getNested()) {
+            ensureSchema(nested, ts);
+        }
+        startEntry(schemaEntry, SCHEMA_ENTRY_PREFIX + typeName, TYPE_STRUCT_SCHEMA, ts);
+        entries.markStarted(schemaEntry);
+        logString(schemaEntry, struct.getSchema(), ts);
+    }
+
+    // ─── public static Logging API ──────────────────────────────────────────────────
+
+    public static boolean log(String name, boolean value, boolean PostToFTCDashboard) {
+        return log(entry(name, TYPE_BOOLEAN), value, PostToFTCDashboard);
+    }
+
+    public static Object log(String name, Object obj, boolean PostToFTCDashboard) {
+        return log(entry(name, TYPE_OBJECT), obj, PostToFTCDashboard);
+    }
+
+    public static long log(String name, long value, boolean PostToFTCDashboard) {
+        return log(entry(name, TYPE_INT64), value, PostToFTCDashboard);
+    }
+
+    public static float log(String name, float value, boolean PostToFTCDashboard) {
+        return log(entry(name, TYPE_FLOAT), value, PostToFTCDashboard);
+    }
+
+    public static double log(String name, double value, boolean PostToFTCDashboard) {
+        return log(entry(name, TYPE_DOUBLE), value, PostToFTCDashboard);
+    }
+
+    public static String log(String name, String value, boolean PostToFTCDashboard) {
+        return log(entry(name, TYPE_STRING), value, PostToFTCDashboard);
+    }
+
+    public static boolean[] log(String name, boolean[] value, boolean PostToFTCDashboard) {
+        return log(entry(name, TYPE_BOOLEAN_ARRAY), value, PostToFTCDashboard);
+    }
+
+    public static long[] log(String name, long[] value, boolean PostToFTCDashboard) {
+        return log(entry(name, TYPE_INT64_ARRAY), value, PostToFTCDashboard);
+    }
+
+    public static float[] log(String name, float[] value, boolean PostToFTCDashboard) {
+        return log(entry(name, TYPE_FLOAT_ARRAY), value, PostToFTCDashboard);
+    }
+
+    public static double[] log(String name, double[] value, boolean PostToFTCDashboard) {
+        return log(entry(name, TYPE_DOUBLE_ARRAY), value, PostToFTCDashboard);
+    }
+
+    public static String[] log(String name, String[] value, boolean PostToFTCDashboard) {
+        return log(entry(name, TYPE_STRING_ARRAY), value, PostToFTCDashboard);
+    }
+
+    public static long[] log(String name, long[] values, int offset, int length, boolean PostToFTCDashboard) {
+        return log(entry(name, TYPE_INT64_ARRAY), values, offset, length, PostToFTCDashboard);
+    }
+
+    public static float[] log(String name, float[] values, int offset, int length, boolean PostToFTCDashboard) {
+        return log(entry(name, TYPE_FLOAT_ARRAY), values, offset, length, PostToFTCDashboard);
+    }
+
+    public static double[] log(String name, double[] values, int offset, int length, boolean PostToFTCDashboard) {
+        return log(entry(name, TYPE_DOUBLE_ARRAY), values, offset, length, PostToFTCDashboard);
+    }
+
+    public static DoubleBuffer log(String name, DoubleBuffer values, boolean PostToFTCDashboard) {
+        return log(entry(name, TYPE_DOUBLE_ARRAY), values, PostToFTCDashboard);
+    }
+
+    public static <T> T log(String name, T value, StructSerializer<T> struct, boolean PostToFTCDashboard) {
+        return log(structEntry(name, struct), value, struct, PostToFTCDashboard);
+    }
+
+    public static <T> T[] log(String name, T[] values, StructSerializer<T> struct, boolean PostToFTCDashboard) {
+        return log(structArrayEntry(name, struct), values, struct, PostToFTCDashboard);
+    }
+
+    public static boolean log(int entry, boolean value, boolean PostToFTCDashboard) {
+        try {
+            long ts = nowMicros();
+            if (!entries.shouldWrite(entry, value ? 1 : 0, ts)) {
+                return value;
+            }
+            ensureStarted(entry, ts);
+            logBoolean(entry, value, ts);
+            if (PostToFTCDashboard) {
+                dashboard.post(entry, entries.name(entry), value);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return value;
+    }
+
+    public static Object log(int entry, Object obj, boolean PostToFTCDashboard) {
+        try {
+            long ts = nowMicros();
+            String s = obj == null ? "null" : obj.toString();
+            if (!entries.shouldWrite(entry, s, ts)) {
+                return obj;
+            }
+            ensureStarted(entry, ts);
+            logString(entry, s, ts);
+            if (PostToFTCDashboard) {
+                dashboard.post(entry, entries.name(entry), s);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return obj;
+    }
+
+    public static long log(int entry, long value, boolean PostToFTCDashboard) {
+        try {
+            long ts = nowMicros();
+            if (!entries.shouldWrite(entry, value, ts)) {
+                return value;
+            }
+            ensureStarted(entry, ts);
+            logInt64(entry, value, ts);
+            if (PostToFTCDashboard) {
+                dashboard.post(entry, entries.name(entry), value);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return value;
+    }
+
+    public static float log(int entry, float value, boolean PostToFTCDashboard) {
+        try {
+            long ts = nowMicros();
+            if (!entries.shouldWrite(entry, Float.floatToRawIntBits(value), ts)) {
+                return value;
+            }
+            ensureStarted(entry, ts);
+            logFloat(entry, value, ts);
+            if (PostToFTCDashboard) {
+                dashboard.post(entry, entries.name(entry), value);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return value;
+    }
+
+    public static double log(int entry, double value, boolean PostToFTCDashboard) {
+        try {
+            long ts = nowMicros();
+            if (!entries.shouldWrite(entry, Double.doubleToRawLongBits(value), ts)) {
+                return value;
+            }
+            ensureStarted(entry, ts);
+            logDouble(entry, value, ts);
+            if (PostToFTCDashboard) {
+                dashboard.post(entry, entries.name(entry), value);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return value;
+    }
+
+    public static String log(int entry, String value, boolean PostToFTCDashboard) {
+        try {
+            long ts = nowMicros();
+            if (!entries.shouldWrite(entry, value, ts)) {
+                return value;
+            }
+            ensureStarted(entry, ts);
+            logString(entry, value, ts);
+            if (PostToFTCDashboard) {
+                dashboard.post(entry, entries.name(entry), value);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return value;
+    }
+
+    public static boolean[] log(int entry, boolean[] value, boolean PostToFTCDashboard) {
+        try {
+            long ts = nowMicros();
+            if (!entries.shouldWrite(entry, value, ts)) {
+                return value;
+            }
+            ensureStarted(entry, ts);
+            logBooleanArray(entry, value, ts);
+            if (PostToFTCDashboard) {
+                dashboard.post(entry, entries.name(entry), value);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return value;
+    }
+
+    public static long[] log(int entry, long[] value, boolean PostToFTCDashboard) {
+        try {
+            long ts = nowMicros();
+            if (!entries.shouldWrite(entry, value, ts)) {
+                return value;
+            }
+            ensureStarted(entry, ts);
+            logInt64Array(entry, value, 0, value.length, ts);
+            if (PostToFTCDashboard) {
+                dashboard.post(entry, entries.name(entry), value);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return value;
+    }
+
+    public static float[] log(int entry, float[] value, boolean PostToFTCDashboard) {
+        try {
+            long ts = nowMicros();
+            if (!entries.shouldWrite(entry, value, ts)) {
+                return value;
+            }
+            ensureStarted(entry, ts);
+            logFloatArray(entry, value, 0, value.length, ts);
+            if (PostToFTCDashboard) {
+                dashboard.post(entry, entries.name(entry), value);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return value;
+    }
+
+    public static double[] log(int entry, double[] value, boolean PostToFTCDashboard) {
+        try {
+            long ts = nowMicros();
+            if (!entries.shouldWrite(entry, value, ts)) {
+                return value;
+            }
+            ensureStarted(entry, ts);
+            logDoubleArray(entry, value, 0, value.length, ts);
+            if (PostToFTCDashboard) {
+                dashboard.post(entry, entries.name(entry), value);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return value;
+    }
+
+    public static String[] log(int entry, String[] value, boolean PostToFTCDashboard) {
+        try {
+            long ts = nowMicros();
+            if (!entries.shouldWrite(entry, value, ts)) {
+                return value;
+            }
+            ensureStarted(entry, ts);
+            logStringArray(entry, value, ts);
+            if (PostToFTCDashboard) {
+                dashboard.post(entry, entries.name(entry), value);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return value;
+    }
+
+
+    public static <T> T log(int entry, T value, StructSerializer<T> struct, boolean PostToFTCDashboard) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            long ts = nowMicros();
+            ByteBuffer b = structBuffer(struct.getSize());
+            struct.pack(b, value);
+            b.flip();
+            if (!entries.shouldWrite(entry, b, ts)) {
+                return value;
+            }
+            ensureStarted(entry, ts);
+            logPacked(entry, b, ts);
+            if (PostToFTCDashboard) {
+                dashboard.post(entry, entries.name(entry), struct, b);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return value;
+    }
+
+    public static <T> T[] log(int entry, T[] values, StructSerializer<T> struct, boolean PostToFTCDashboard) {
+        if (values == null) {
+            return null;
+        }
+        try {
+            long ts = nowMicros();
+            ByteBuffer b = structBuffer(struct.getSize() * values.length);
+            for (T value : values) {
+                struct.pack(b, value);
+            }
+            b.flip();
+            if (!entries.shouldWrite(entry, b, ts)) {
+                return values;
+            }
+            ensureStarted(entry, ts);
+            logPacked(entry, b, ts);
+            if (PostToFTCDashboard) {
+                dashboard.postArray(entry, entries.name(entry), struct, b);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return values;
+    }
+
+    // ─── Bulk arrays ─────────────────────────────────────────────────────────
+    // Log part of a caller-owned array or buffer without making an array of the right
+    // size first. Values are copied straight into the record; only change-only and
+    // rate-limited entries copy them once more, to compare with the last value written.
+
+    /** Logs {@code values[offset]} to {@code values[offset + length - 1]} as an int64[] value. */
+    public static long[] log(int entry, long[] values, int offset, int length, boolean PostToFTCDashboard) {
+        checkRange(values.length, offset, length);
+        try {
+            long ts = nowMicros();
+            if (entries.isFiltered(entry)) {
+                ByteBuffer packed = structBuffer(length * 8);
+                viewsOf(packed).putLongs(values, offset, length);
+                packed.flip();
+                if (!entries.shouldWrite(entry, packed, ts)) {
+                    return values;
+                }
+                ensureStarted(entry, ts);
+                logPacked(entry, packed, ts);
+            } else {
+                ensureStarted(entry, ts);
+                logInt64Array(entry, values, offset, length, ts);
+            }
+            if (PostToFTCDashboard) {
+                dashboard.post(entry, entries.name(entry), values, offset, length);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return values;
+    }
+
+    /** Logs {@code values[offset]} to {@code values[offset + length - 1]} as a float[] value. */
+    public static float[] log(int entry, float[] values, int offset, int length, boolean PostToFTCDashboard) {
+        checkRange(values.length, offset, length);
+        try {
+            long ts = nowMicros();
+            if (entries.isFiltered(entry)) {
+                ByteBuffer packed = structBuffer(length * 4);
+                viewsOf(packed).putFloats(values, offset, length);
+                packed.flip();
+                if (!entries.shouldWrite(entry, packed, ts)) {
+                    return values;
+                }
+                ensureStarted(entry, ts);
+                logPacked(entry, packed, ts);
+            } else {
+                ensureStarted(entry, ts);
+                logFloatArray(entry, values, offset, length, ts);
+            }
+            if (PostToFTCDashboard) {
+                dashboard.post(entry, entries.name(entry), values, offset, length);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return values;
+    }
+
+    /** Logs {@code values[offset]} to {@code values[offset + length - 1]} as a double[] value. */
+    public static double[] log(int entry, double[] values, int offset, int length, boolean PostToFTCDashboard) {
+        checkRange(values.length, offset, length);
+        try {
+            long ts = nowMicros();
+            if (entries.isFiltered(entry)) {
+                ByteBuffer packed = structBuffer(length * 8);
+                viewsOf(packed).putDoubles(values, offset, length);
+                packed.flip();
+                if (!entries.shouldWrite(entry, packed, ts)) {
+                    return values;
+                }
+                ensureStarted(entry, ts);
+                logPacked(entry, packed, ts);
+            } else {
+                ensureStarted(entry, ts);
+                logDoubleArray(entry, values, offset, length, ts);
+            }
+            if (PostToFTCDashboard) {
+                dashboard.post(entry, entries.name(entry), values, offset, length);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return values;
+    }
+
+    /**
+     * Logs the doubles between the buffer's position and limit as a double[] value.
+     * The buffer's position is not changed.
+     */
+    public static DoubleBuffer log(int entry, DoubleBuffer values, boolean PostToFTCDashboard) {
+        try {
+            long ts = nowMicros();
+            int length = values.remaining();
+            if (entries.isFiltered(entry)) {
+                ByteBuffer packed = structBuffer(length * 8);
+                viewsOf(packed).putDoubles(values);
+                packed.flip();
+                if (!entries.shouldWrite(entry, packed, ts)) {
+                    return values;
+                }
+                ensureStarted(entry, ts);
+                logPacked(entry, packed, ts);
+            } else {
+                ensureStarted(entry, ts);
+                ByteBuffer b = beginRecord(entry, length * 8, ts);
+                viewsOf(b).putDoubles(values);
+                endRecord(b);
+            }
+            if (PostToFTCDashboard) {
+                dashboard.post(entry, entries.name(entry), values);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return values;
+    }
+
+    /**
+     * Logs bytes already in the entry's WPILOG encoding, between the buffer's position and
+     * limit, as one value: e.g. doubles put into a {@link ByteOrder#LITTLE_ENDIAN} buffer for
+     * a double[] entry, or a packed struct. The bytes are copied as they are, so the buffer's
+     * byte order must be little-endian. The buffer's position is not changed.
+     */
+    public static ByteBuffer logRaw(int entry, ByteBuffer payload) {
+        try {
+            long ts = nowMicros();
+            if (!entries.shouldWrite(entry, payload, ts)) {
+                return payload;
+            }
+            ensureStarted(entry, ts);
+            logPacked(entry, payload, ts);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return payload;
+    }
+
+    private static void checkRange(int arrayLength, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > arrayLength - length) {
+            throw new IndexOutOfBoundsException(
+                    "offset " + offset + ", length " + length + ", array length " + arrayLength);
+        }
+    }
+
+    // ─── INTERNAL LOGGING ────────────────────────────────────────────────────
+    // ─── Scalar logging ──────────────────────────────────────────────────────
+    private static void logBoolean(int id, boolean v, long ts) throws IOException {
+        ByteBuffer b = beginRecord(id, 1, ts).put((byte) (v ? 1 : 0));
+        endRecord(b);
+    }
+
+    private static void logInt64(int id, long v, long ts) throws IOException {
+        ByteBuffer b = beginRecord(id, 8, ts).putLong(v);
+        endRecord(b);
+    }
+
+    private static void logFloat(int id, float v, long ts) throws IOException {
+        ByteBuffer b = beginRecord(id, 4, ts).putFloat(v);
+        endRecord(b);
+    }
+
+    private static void logDouble(int id, double v, long ts) throws IOException {
+        ByteBuffer b = beginRecord(id, 8, ts).putDouble(v);
+        endRecord(b);
+    }
+
+    /**
+     * Encodes straight into the record buffer, or copies the entry's cached bytes if the
+     * same value was logged before; neither allocates.
+     */
+    private static void logString(int id, String s, long ts) throws IOException {
+        byte[] cached = entries.encoded(id, s);
+        if (cached != null) {
+            ByteBuffer b = beginRecord(id, cached.length, ts).put(cached);
+            endRecord(b);
+            return;
+        }
+        int length = Utf8.length(s);
+        ByteBuffer b = beginRecord(id, length, ts);
+        int start = b.position();
+        Utf8.put(b, s);
+        entries.encodedInto(id, s, b, start, length);
+        endRecord(b);
+    }
+
+    private static ByteBuffer structBuffer(int size) {
+        if (concurrentMode) {
+            return producers.get().structBuffer(size);
+        }
+        if (structBuffer.capacity() < size) {
+            structBuffer = ByteBuffer.allocate(Math.max(size, structBuffer.capacity() * 2))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            structViews = new BufferViews(structBuffer);
+        }
+        structBuffer.clear();
+        return structBuffer;
+    }
+
+    /** The cached typed views of {@code b}, an encode or struct buffer of this thread. */
+    private static BufferViews viewsOf(ByteBuffer b) {
+        BufferViews views;
+        if (concurrentMode) {
+            views = producers.get().viewsOf(b);
+        } else {
+            views = bufferViews.isOf(b) ? bufferViews : structViews;
+        }
+        // a log opened in the other mode since b was handed out
+        return views.isOf(b) ? views : new BufferViews(b);
+    }
+
+    /** Writes an already encoded payload; {@code packed}'s position is not changed. */
+    private static void logPacked(int id, ByteBuffer packed, long ts) throws IOException {
+        int start = packed.position();
+        ByteBuffer b = beginRecord(id, packed.remaining(), ts).put(packed);
+        packed.position(start);
+        endRecord(b);
+    }
+
+    // ─── Array logging ───────────────────────────────────────────────────────
+    private static void logBooleanArray(int id, boolean[] arr, long ts) throws IOException {
+        ByteBuffer b = beginRecord(id, arr.length, ts);
+        for (boolean v : arr) b.put((byte) (v ? 1 : 0));
+        endRecord(b);
+    }
+
+    // arrays go into the record with one bulk copy through the buffer's cached views
+
+    private static void logInt64Array(int id, long[] arr, int offset, int length, long ts) throws IOException {
+        ByteBuffer b = beginRecord(id, length * 8, ts);
+        viewsOf(b).putLongs(arr, offset, length);
+        endRecord(b);
+    }
+
+    private static void logFloatArray(int id, float[] arr, int offset, int length, long ts) throws IOException {
+        ByteBuffer b = beginRecord(id, length * 4, ts);
+        viewsOf(b).putFloats(arr, offset, length);
+        endRecord(b);
+    }
+
+    private static void logDoubleArray(int id, double[] arr, int offset, int length, long ts) throws IOException {
+        ByteBuffer b = beginRecord(id, length * 8, ts);
+        viewsOf(b).putDoubles(arr, offset, length);
+        endRecord(b);
+    }
+
+    private static void logStringArray(int id, String[] arr, long ts) throws IOException {
+        // measure first, then encode every element straight into the record
+        int size = 4;
+        for (String s : arr) {
+            size += 4 + Utf8.length(s);
+        }
+        ByteBuffer b = beginRecord(id, size, ts).putInt(arr.length);
+        for (String s : arr) {
+            b.putInt(Utf8.length(s));
+            Utf8.put(b, s);
+        }
+        endRecord(b);
+    }
+
+    // ─── Utils ───────────────────────────────────────────────────────────────
+    private static long nowMicros() {
+        // while replaying, records are stamped with the replayed cycle's time
+        if (LogReplay.isActive()) return LogReplay.timestampMicros();
+        return System.nanoTime() / 1000 - startTime;
+    }
+}
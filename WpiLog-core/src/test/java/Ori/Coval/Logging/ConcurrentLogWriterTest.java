@@ -0,0 +1,102 @@
+package Ori.Coval.Logging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+public class ConcurrentLogWriterTest {
+    private static final int THREADS = 4;
+    private static final int RECORDS = 20_000;
+
+    @Test
+    public void mergesThreadsKeepingEachEntryInOrder() throws InterruptedException {
+        TestRecords.CapturingChannel out = new TestRecords.CapturingChannel();
+        final ConcurrentLogWriter writer = new ConcurrentLogWriter(out, 1 << 12, OverflowPolicy.BLOCK);
+        final CountDownLatch go = new CountDownLatch(1);
+        Thread[] producers = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            final int id = t + 1;
+            producers[t] = new Thread(() -> {
+                LogProducer producer = new LogProducer();
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                // control records are written under the registry's lock, as WpiLog does
+                synchronized (writer) {
+                    writer.write(producer, ByteBuffer.wrap(TestRecords.start(id, "T" + id, "int64", 0)));
+                }
+                for (int i = 0; i < RECORDS; i++) {
+                    // a shared, slightly jittered clock, so threads interleave out of order
+                    long ts = 1000 + i * 10L + ((i * 7 + id) % 13);
+                    writer.write(producer, ByteBuffer.wrap(TestRecords.int64(id, ts, i)));
+                }
+            });
+            producers[t].start();
+        }
+        go.countDown();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        writer.close();
+
+        List<TestRecords.Parsed> records = TestRecords.parse(out.toByteArray(), 0);
+        Set<Integer> started = new HashSet<>();
+        long[] lastTimestamp = new long[THREADS + 1];
+        long[] nextValue = new long[THREADS + 1];
+        for (TestRecords.Parsed r : records) {
+            if (r.isStart()) {
+                started.add(r.startedId());
+                continue;
+            }
+            assertTrue("data of entry " + r.id + " before its start record", started.contains(r.id));
+            assertTrue("timestamps of entry " + r.id + " go backwards", r.ts >= lastTimestamp[r.id]);
+            lastTimestamp[r.id] = r.ts;
+            // a BLOCK writer drops nothing and keeps each thread's own order
+            assertEquals(nextValue[r.id]++, r.int64());
+        }
+        for (int id = 1; id <= THREADS; id++) {
+            assertEquals(RECORDS, nextValue[id]);
+        }
+        assertEquals(0, writer.getDroppedRecords());
+    }
+
+    @Test
+    public void restampedRecordsAreNeverSplitAcrossWrites() throws InterruptedException {
+        TestRecords.CapturingChannel out = new TestRecords.CapturingChannel();
+        ConcurrentLogWriter writer = new ConcurrentLogWriter(out, 1 << 18, OverflowPolicy.BLOCK);
+        LogProducer producer = new LogProducer();
+        writer.write(producer, ByteBuffer.wrap(TestRecords.start(1, "x", "raw", 0)));
+        writer.write(producer, ByteBuffer.wrap(TestRecords.record(1, 1 << 20, new byte[1])));
+        // older than the entry's last record: each of these is re-stamped with a wider timestamp
+        for (int i = 0; i < 2000; i++) {
+            writer.write(producer, ByteBuffer.wrap(TestRecords.record(1, 5, new byte[1 + (i * 37) % 300])));
+        }
+        writer.write(producer, ByteBuffer.wrap(TestRecords.record(1, 5, new byte[100_000])));
+        writer.close();
+
+        byte[] bytes = out.toByteArray();
+        int offset = 0;
+        int records = 0;
+        for (int length : out.writes) {
+            // parse() fails on a record cut off by the end of the write
+            records += TestRecords.parse(Arrays.copyOfRange(bytes, offset, offset + length), 0).size();
+            offset += length;
+        }
+        assertEquals(2003, records);
+        for (TestRecords.Parsed r : TestRecords.parse(bytes, 0)) {
+            if (!r.isStart()) {
+                assertEquals(1 << 20, r.ts);
+            }
+        }
+    }
+}
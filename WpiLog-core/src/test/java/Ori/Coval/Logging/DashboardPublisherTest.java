@@ -0,0 +1,133 @@
+package Ori.Coval.Logging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class DashboardPublisherTest {
+    /** Keeps a copy of the last map sent. */
+    private static final class Capture implements TelemetryTarget {
+        Map<String, Object> last;
+        int sends;
+
+        @Override
+        public void send(Map<String, Object> values) {
+            last = new LinkedHashMap<>(values);
+            sends++;
+        }
+    }
+
+    private static final StructSerializer<double[]> ROT = new StructSerializer<double[]>() {
+        @Override public String getTypeName() { return "Rot"; }
+        @Override public String getSchema() { return "double radians"; }
+        @Override public int getSize() { return 8; }
+        @Override public void pack(ByteBuffer bb, double[] value) { bb.putDouble(value[0]); }
+    };
+
+    private static final StructSerializer<double[]> POSE = new StructSerializer<double[]>() {
+        @Override public String getTypeName() { return "Pose"; }
+        @Override public String getSchema() { return "double x;int32 tag;Rot heading"; }
+        @Override public int getSize() { return 20; }
+        @Override public void pack(ByteBuffer bb, double[] value) {
+            bb.putDouble(value[0]);
+            bb.putInt((int) value[1]);
+            ROT.pack(bb, new double[] {value[2]});
+        }
+        @Override public StructSerializer<?>[] getNested() { return new StructSerializer<?>[] {ROT}; }
+    };
+
+    private DashboardPublisher publisher;
+    private Capture capture;
+
+    @Before
+    public void setUp() {
+        publisher = new DashboardPublisher();
+        // the publisher thread parks for the whole test; publish() is driven directly
+        publisher.setRate(0.0001);
+        capture = new Capture();
+    }
+
+    @Test
+    public void arraysAreCopiedWhenPosted() {
+        double[] values = {1, 2, 3, 4};
+        publisher.post(0, "arm", values, 1, 2);
+        values[1] = 99;
+        publisher.setTarget(capture);
+        publisher.publish();
+        assertEquals("[2.0, 3.0]", capture.last.get("arm"));
+    }
+
+    @Test
+    public void doubleBuffersAreCopiedWithoutMovingThem() {
+        DoubleBuffer values = DoubleBuffer.wrap(new double[] {1, 2, 3, 4});
+        values.position(2);
+        publisher.post(0, "arm", values);
+        assertEquals(2, values.position());
+        values.put(2, 99);
+        publisher.setTarget(capture);
+        publisher.publish();
+        assertEquals("[3.0, 4.0]", capture.last.get("arm"));
+    }
+
+    @Test
+    public void structsAreDecodedFromTheirPackedBytes() {
+        ByteBuffer packed = ByteBuffer.allocate(40).order(ByteOrder.LITTLE_ENDIAN);
+        POSE.pack(packed, new double[] {1.5, 7, 0.25});
+        packed.flip();
+        publisher.post(0, "pose", POSE, packed);
+        assertEquals(0, packed.position());
+
+        packed.clear();
+        POSE.pack(packed, new double[] {1, 1, 1});
+        POSE.pack(packed, new double[] {2, 2, 2});
+        packed.flip();
+        publisher.postArray(1, "poses", POSE, packed);
+
+        publisher.setTarget(capture);
+        publisher.publish();
+        assertEquals("Pose{x=1.5, tag=7, heading=Rot{radians=0.25}}", capture.last.get("pose"));
+        assertEquals("[Pose{x=1.0, tag=1, heading=Rot{radians=1.0}}, "
+                + "Pose{x=2.0, tag=2, heading=Rot{radians=2.0}}]", capture.last.get("poses"));
+    }
+
+    @Test
+    public void onlyChangedSlotsAreRepublished() {
+        publisher.post(0, "speed", 1.0);
+        publisher.post(1, "ids", new long[] {1, 2});
+        publisher.setTarget(capture);
+        publisher.publish();
+        assertEquals(1, capture.sends);
+
+        // nothing changed: nothing is sent
+        publisher.publish();
+        assertEquals(1, capture.sends);
+
+        publisher.post(1, "ids", new long[] {3});
+        publisher.publish();
+        assertEquals(2, capture.sends);
+        assertEquals("[3]", capture.last.get("ids"));
+        assertEquals(1.0, capture.last.get("speed"));
+
+        // a new target gets everything once
+        Capture other = new Capture();
+        publisher.setTarget(other);
+        publisher.publish();
+        assertEquals(1, other.sends);
+        assertEquals(2, other.last.size());
+    }
+
+    @Test
+    public void nothingIsSentWithoutATarget() {
+        publisher.post(0, "speed", 1.0);
+        publisher.publish();
+        assertNull(capture.last);
+    }
+}
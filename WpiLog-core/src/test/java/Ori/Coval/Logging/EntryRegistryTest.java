@@ -0,0 +1,84 @@
+package Ori.Coval.Logging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+public class EntryRegistryTest {
+
+    @Test
+    public void namesGetStableDistinctIds() {
+        EntryRegistry registry = new EntryRegistry();
+        Set<Integer> ids = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            int id = registry.register("Entry/" + i, WpiLog.TYPE_DOUBLE);
+            assertNotEquals(0, id);
+            ids.add(id);
+        }
+        assertEquals(1000, ids.size());
+        for (int i = 0; i < 1000; i++) {
+            int id = registry.register("Entry/" + i, WpiLog.TYPE_INT64);
+            assertEquals("Entry/" + i, registry.name(id));
+            // the first registration fixes the type
+            assertEquals(WpiLog.TYPE_DOUBLE, registry.type(id));
+        }
+        assertEquals(1000, registry.largestId());
+    }
+
+    @Test
+    public void reserveKeepsExistingIds() {
+        EntryRegistry registry = new EntryRegistry();
+        int a = registry.register("a", WpiLog.TYPE_DOUBLE);
+        registry.reserve(5000);
+        int b = registry.register("b", WpiLog.TYPE_DOUBLE);
+        assertEquals(a, registry.register("a", WpiLog.TYPE_DOUBLE));
+        assertEquals(b, registry.register("b", WpiLog.TYPE_DOUBLE));
+        assertEquals(2, registry.largestId());
+    }
+
+    @Test
+    public void concurrentRegistrationAgreesOnIds() throws InterruptedException {
+        final EntryRegistry registry = new EntryRegistry();
+        final int threads = 8;
+        final int names = 2000;
+        final int[][] seen = new int[threads][names];
+        final CountDownLatch go = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int index = t;
+            workers[t] = new Thread(() -> {
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                // each thread walks the names from a different starting point
+                for (int i = 0; i < names; i++) {
+                    int n = (i + index * 250) % names;
+                    seen[index][n] = registry.register("Shared/" + n, WpiLog.TYPE_DOUBLE);
+                }
+            });
+            workers[t].start();
+        }
+        go.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        Set<Integer> distinct = new HashSet<>();
+        for (int n = 0; n < names; n++) {
+            for (int t = 1; t < threads; t++) {
+                assertEquals("Shared/" + n, seen[0][n], seen[t][n]);
+            }
+            assertEquals("Shared/" + n, registry.name(seen[0][n]));
+            distinct.add(seen[0][n]);
+        }
+        assertEquals(names, distinct.size());
+        assertEquals(names, registry.largestId());
+    }
+}
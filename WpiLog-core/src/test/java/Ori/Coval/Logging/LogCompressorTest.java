@@ -0,0 +1,122 @@
+package Ori.Coval.Logging;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Random;
+
+import Ori.Coval.Logging.reader.WpiLogDecompressor;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LogCompressorTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /** Two and a half blocks of partly repetitive, partly random bytes. */
+    private static byte[] log() {
+        byte[] bytes = new byte[LogCompressor.BLOCK_SIZE * 5 / 2];
+        Random random = new Random(42);
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) ((i / 64) % 2 == 0 ? i : random.nextInt());
+        }
+        return bytes;
+    }
+
+    /** Compresses {@code bytes} as "match.wpilog"; returns the ".wpilogz" file. */
+    private File compress(byte[] bytes) throws IOException {
+        File log = new File(folder.getRoot(), "match.wpilog");
+        try (OutputStream out = new FileOutputStream(log)) {
+            out.write(bytes);
+        }
+        LogCompressor.compress(log);
+        File compressed = new File(folder.getRoot(), "match.wpilogz");
+        assertFalse(log.exists());
+        assertTrue(compressed.isFile());
+        return compressed;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        try (InputStream from = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = from.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    /** File offsets of the blocks, read by walking their length fields. */
+    private static long[] blockOffsets(File compressed, int blocks) throws IOException {
+        long[] offsets = new long[blocks];
+        try (DataInputStream in = new DataInputStream(new FileInputStream(compressed))) {
+            in.skipBytes(12);
+            long p = 12;
+            for (int i = 0; i < blocks; i++) {
+                offsets[i] = p;
+                in.readInt();
+                int compressedLength = in.readInt();
+                in.skipBytes(compressedLength);
+                p += 8 + compressedLength;
+            }
+        }
+        return offsets;
+    }
+
+    @Test
+    public void multiBlockLogRoundTrips() throws IOException {
+        byte[] log = log();
+        File compressed = compress(log);
+        assertTrue(compressed.length() < log.length);
+
+        File restored = folder.newFile("restored.wpilog");
+        assertEquals(log.length, WpiLogDecompressor.decompress(compressed, restored));
+        assertArrayEquals(log, readAll(new FileInputStream(restored)));
+    }
+
+    @Test
+    public void opensAtAnOffsetInsideALaterBlock() throws IOException {
+        byte[] log = log();
+        File compressed = compress(log);
+
+        long offset = 2L * LogCompressor.BLOCK_SIZE + 12345;
+        byte[] rest = readAll(WpiLogDecompressor.open(compressed, offset));
+        assertArrayEquals(Arrays.copyOfRange(log, (int) offset, log.length), rest);
+
+        offset = LogCompressor.BLOCK_SIZE + 1;
+        rest = readAll(WpiLogDecompressor.open(compressed, offset));
+        assertArrayEquals(Arrays.copyOfRange(log, (int) offset, log.length), rest);
+    }
+
+    @Test
+    public void fileCutOffMidBlockDecompressesItsWholeBlocks() throws IOException {
+        byte[] log = log();
+        File compressed = compress(log);
+
+        long[] offsets = blockOffsets(compressed, 3);
+        long cut = offsets[2] + (compressed.length() - offsets[2]) / 2;
+        try (RandomAccessFile raf = new RandomAccessFile(compressed, "rw")) {
+            raf.setLength(cut);
+        }
+
+        File restored = folder.newFile("restored.wpilog");
+        assertEquals(2L * LogCompressor.BLOCK_SIZE, WpiLogDecompressor.decompress(compressed, restored));
+        assertArrayEquals(Arrays.copyOf(log, 2 * LogCompressor.BLOCK_SIZE), readAll(new FileInputStream(restored)));
+    }
+}
@@ -0,0 +1,67 @@
+package Ori.Coval.Logging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LogHousekeeperTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void recognizesOnlyTheLoggersOwnNames() {
+        assertTrue(LogHousekeeper.isOwnLog("2025-05-22_15-42-10.wpilog", "match.wpilog"));
+        assertTrue(LogHousekeeper.isOwnLog("2025-05-22_15-42-10_3.wpilogz", "match.wpilog"));
+        assertTrue(LogHousekeeper.isOwnLog("match.wpilogz", "match.wpilog"));
+        assertTrue(LogHousekeeper.isOwnLog("match_12.wpilog", "match.wpilog"));
+
+        assertFalse(LogHousekeeper.isOwnLog("2025-05-22_15-42-10_dump1.wpilog", "match.wpilog"));
+        assertFalse(LogHousekeeper.isOwnLog("practice.wpilog", "match.wpilog"));
+        assertFalse(LogHousekeeper.isOwnLog("match_final.wpilog", "match.wpilog"));
+        assertFalse(LogHousekeeper.isOwnLog("match.wpilog.bak", "match.wpilog"));
+        assertFalse(LogHousekeeper.isOwnLog("notes.txt", "match.wpilog"));
+    }
+
+    @Test
+    public void retentionDeletesOldestOwnLogsOnly() throws IOException {
+        File dir = folder.getRoot();
+        // oldest first; each 100 bytes
+        String[] names = {
+                "imported.wpilog",
+                "2025-05-20_10-00-00.wpilogz",
+                "2025-05-21_10-00-00_dump1.wpilog",
+                "2025-05-22_10-00-00.wpilog",
+                "match.wpilog",
+                "match_2.wpilog",
+        };
+        long time = 1_000_000_000_000L;
+        for (String name : names) {
+            File f = new File(dir, name);
+            try (OutputStream out = new FileOutputStream(f)) {
+                out.write(new byte[100]);
+            }
+            assertTrue(f.setLastModified(time += 60_000));
+        }
+
+        LogHousekeeper.enforceRetention(dir, 250, "match.wpilog", new File(dir, "match_2.wpilog"));
+
+        Set<String> left = new TreeSet<>(Arrays.asList(dir.list()));
+        assertEquals(new TreeSet<>(Arrays.asList(
+                "imported.wpilog",
+                "2025-05-21_10-00-00_dump1.wpilog",
+                "match.wpilog",
+                "match_2.wpilog")), left);
+    }
+}
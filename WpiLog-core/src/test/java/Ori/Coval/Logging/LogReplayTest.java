@@ -0,0 +1,100 @@
+package Ori.Coval.Logging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LogReplayTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @After
+    public void tearDown() {
+        LogReplay.close();
+        WpiLog.closeLog();
+    }
+
+    @Test
+    public void stepsThroughTheRecordedCycles() throws Exception {
+        File log = folder.newFile("cycles.wpilog");
+        WpiLog.setup(log);
+        AutoLogManager.recordCycles();
+        int speed = WpiLog.entry("ReplayTest/speed", WpiLog.TYPE_DOUBLE);
+        int count = WpiLog.entry("ReplayTest/count", WpiLog.TYPE_INT64);
+        for (int i = 0; i < 10; i++) {
+            WpiLog.log(speed, i * 1.5, false);
+            if (i % 3 == 0) {
+                WpiLog.log(count, (long) i, false);
+            }
+            AutoLogManager.periodic();
+            // cycles a few milliseconds apart, so no value shares a timestamp with the previous mark
+            Thread.sleep(2);
+        }
+        WpiLog.closeLog();
+
+        LogReplay.open(log);
+        int speedHandle = LogReplay.entry("ReplayTest/speed", WpiLog.TYPE_DOUBLE);
+        int countHandle = LogReplay.entry("ReplayTest/count", WpiLog.TYPE_INT64);
+        for (int i = 0; i < 10; i++) {
+            assertTrue("cycle " + i, LogReplay.step());
+            assertEquals("cycle " + i, i * 1.5, LogReplay.getDouble(speedHandle, -1), 0);
+            assertEquals("cycle " + i, i - i % 3, LogReplay.getLong(countHandle, -1));
+        }
+        assertFalse(LogReplay.step());
+    }
+
+    @Test
+    public void logsWithoutCyclesStepEvery20Milliseconds() throws IOException {
+        File log = folder.newFile("plain.wpilog");
+        try (OutputStream out = new FileOutputStream(log)) {
+            out.write(TestRecords.concat(
+                    TestRecords.header(),
+                    TestRecords.start(1, "ReplayTest/plain", WpiLog.TYPE_INT64, 0),
+                    TestRecords.int64(1, 1_000, 1),
+                    TestRecords.int64(1, 15_000, 2),
+                    TestRecords.int64(1, 45_000, 3),
+                    TestRecords.int64(1, 61_000, 4)));
+        }
+
+        int handle = LogReplay.entry("ReplayTest/plain", WpiLog.TYPE_INT64);
+        LogReplay.open(log);
+        // steps at 1, 21 and 41 ms, then one at the last record
+        long[] times = {1_000, 21_000, 41_000, 61_000};
+        long[] values = {1, 2, 2, 4};
+        for (int i = 0; i < times.length; i++) {
+            assertTrue(LogReplay.step());
+            assertEquals(times[i], LogReplay.timestampMicros());
+            assertEquals(values[i], LogReplay.getLong(handle, -1));
+        }
+        assertFalse(LogReplay.step());
+    }
+
+    @Test
+    public void bindingAnEntryWithAnotherTypeThrows() throws IOException {
+        File log = folder.newFile("typed.wpilog");
+        try (OutputStream out = new FileOutputStream(log)) {
+            out.write(TestRecords.concat(
+                    TestRecords.header(),
+                    TestRecords.start(1, "ReplayTest/typed", WpiLog.TYPE_INT64, 0),
+                    TestRecords.int64(1, 1_000, 1)));
+        }
+        LogReplay.open(log);
+        try {
+            LogReplay.entry("ReplayTest/typed", WpiLog.TYPE_DOUBLE);
+            fail();
+        } catch (IllegalArgumentException expected) {
+            // recorded as int64
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package Ori.Coval.Logging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import Ori.Coval.Logging.reader.RecordCursor;
+import Ori.Coval.Logging.reader.WpiLogReader;
+
+/** Clients on the loopback interface get a log {@link WpiLogReader} can read back. */
+public class LogTapServerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private LogTapServer server;
+
+    @Before
+    public void setUp() {
+        WpiLog.setDurability(DurabilityPolicy.NONE);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        WpiLog.closeLog();
+        WpiLog.removeSink(server);
+        server.close();
+        WpiLog.setDurability(DurabilityPolicy.DEFAULT);
+    }
+
+    @Test
+    public void clientReceivesTheWholeLog() throws Exception {
+        server = new LogTapServer(0);
+        WpiLog.addSink(server);
+        Socket socket = new Socket("127.0.0.1", server.getPort());
+        Client client = new Client(socket, null);
+        WpiLog.setup(new TestRecords.DiscardingChannel());
+        int entry = WpiLog.entry("Tap/value", WpiLog.TYPE_INT64);
+        client.awaitAttached();
+
+        for (int i = 0; i < 10_000; i++) {
+            WpiLog.log(entry, (long) i, false);
+        }
+        WpiLog.closeLog();
+
+        List<Long> values = read(client.await(), "Tap/value");
+        assertEquals(10_000, values.size());
+        for (int i = 0; i < values.size(); i++) {
+            assertEquals(i, (long) values.get(i));
+        }
+    }
+
+    @Test
+    public void slowClientDropsOldestRecordsWithoutHoldingUpTheLog() throws Exception {
+        server = new LogTapServer(0, 4096);
+        WpiLog.addSink(server);
+        Socket slowSocket = new Socket();
+        slowSocket.setReceiveBufferSize(1024);
+        slowSocket.connect(new InetSocketAddress("127.0.0.1", server.getPort()));
+        CountDownLatch logged = new CountDownLatch(1);
+        Client slow = new Client(slowSocket, logged);
+        TestRecords.CapturingChannel file = new TestRecords.CapturingChannel();
+        WpiLog.setup(file);
+        int entry = WpiLog.entry("Tap/value", WpiLog.TYPE_INT64);
+        slow.awaitAttached();
+
+        // far more than the slow client's buffer and both socket buffers can hold
+        int records = 1_000_000;
+        for (int i = 0; i < records; i++) {
+            WpiLog.log(entry, (long) i, false);
+        }
+        logged.countDown();
+        WpiLog.closeLog();
+
+        assertEquals(records, read(file.toByteArray(), "Tap/value").size());
+        // the slow client lost records in between, but what it got is still a valid log
+        List<Long> values = read(slow.await(), "Tap/value");
+        assertTrue("slow client got " + values.size() + " of " + records, values.size() < records);
+        for (int i = 1; i < values.size(); i++) {
+            assertTrue(values.get(i) > values.get(i - 1));
+        }
+        assertEquals(records - 1, (long) values.get(values.size() - 1));
+    }
+
+    /** The int64 values of entry {@code name} in {@code log}. */
+    private List<Long> read(byte[] log, String name) throws IOException {
+        File file = folder.newFile();
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(log);
+        }
+        List<Long> values = new ArrayList<>();
+        try (WpiLogReader reader = new WpiLogReader(file)) {
+            RecordCursor cursor = reader.cursor();
+            while (cursor.next()) {
+                if (!cursor.isControl() && cursor.entryInfo().getName().equals(name)) {
+                    values.add(cursor.getInt64());
+                }
+            }
+            assertFalse("partial record in the received log", cursor.isTruncated());
+        }
+        return values;
+    }
+
+    /** Reads a socket to the end on a thread of its own, optionally only once {@code start} opens. */
+    private static final class Client {
+        private final Socket socket;
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final Thread thread;
+        private IOException failure;
+
+        Client(Socket socket, CountDownLatch start) {
+            this.socket = socket;
+            thread = new Thread(() -> {
+                try (Socket s = socket) {
+                    if (start != null) start.await();
+                    InputStream in = s.getInputStream();
+                    byte[] buffer = new byte[8192];
+                    int n;
+                    while ((n = in.read(buffer)) > 0) {
+                        bytes.write(buffer, 0, n);
+                    }
+                } catch (IOException e) {
+                    failure = e;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            thread.start();
+        }
+
+        /** Waits for the header, which the server sends once the client is attached to the log. */
+        void awaitAttached() throws Exception {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (bytes.size() == 0 && socket.getInputStream().available() == 0) {
+                if (System.currentTimeMillis() > deadline) fail("client was not attached");
+                Thread.sleep(5);
+            }
+        }
+
+        byte[] await() throws Exception {
+            thread.join(10_000);
+            if (failure != null) throw failure;
+            return bytes.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package Ori.Coval.Logging;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+
+import org.junit.Test;
+
+public class MemoryLogSinkTest {
+
+    private static byte[] stream() {
+        return TestRecords.concat(
+                TestRecords.header(),
+                TestRecords.start(1, "a", "int64", 0),
+                TestRecords.int64(1, 10, 1),
+                TestRecords.start(2, "b", "int64", 11),
+                TestRecords.int64(2, 20, 2),
+                TestRecords.int64(1, 30, 3),
+                TestRecords.int64(2, 300, 4));
+    }
+
+    @Test
+    public void recordsSplitAcrossWritesAreKept() throws IOException {
+        byte[] stream = stream();
+        byte[] whole = snapshotOf(stream, stream.length);
+        for (int chunk = 1; chunk < stream.length; chunk++) {
+            assertArrayEquals("written " + chunk + " bytes at a time", whole, snapshotOf(stream, chunk));
+        }
+        List<TestRecords.Parsed> records = TestRecords.parse(whole, TestRecords.header().length);
+        assertEquals(6, records.size());
+        assertEquals(4, records.get(5).int64());
+    }
+
+    @Test
+    public void keepsLastDroppedValueOfEachEntry() throws IOException {
+        MemoryLogSink sink = new MemoryLogSink(0.0001, 1 << 16);
+        byte[] stream = stream();
+        write(sink.open(), stream, stream.length);
+
+        // a 100 µs window keeps only the last record; the others are the last dropped values
+        List<TestRecords.Parsed> records = TestRecords.parse(sink.snapshot(), TestRecords.header().length);
+        assertEquals(5, records.size());
+        assertEquals(3, records.get(2).int64());
+        assertEquals(2, records.get(3).int64());
+        assertEquals(4, records.get(4).int64());
+    }
+
+    @Test
+    public void leavesOutEntriesFinishedSinceTheirRecordsWereKept() throws IOException {
+        MemoryLogSink sink = new MemoryLogSink(0.0001, 1 << 16);
+        byte[] finish = TestRecords.record(0, 301, new byte[] {1, 2, 0, 0, 0});
+        byte[] stream = TestRecords.concat(stream(), finish, TestRecords.int64(1, 400, 6));
+        write(sink.open(), stream, stream.length);
+
+        // entry 2 is finished: neither its start, its dropped value nor its window records remain
+        List<TestRecords.Parsed> records = TestRecords.parse(sink.snapshot(), TestRecords.header().length);
+        assertEquals(3, records.size());
+        assertEquals(1, records.get(0).startedId());
+        assertEquals(3, records.get(1).int64());
+        assertEquals(6, records.get(2).int64());
+    }
+
+    private static byte[] snapshotOf(byte[] stream, int chunk) throws IOException {
+        MemoryLogSink sink = new MemoryLogSink(10, 1 << 16);
+        write(sink.open(), stream, chunk);
+        return sink.snapshot();
+    }
+
+    private static void write(WritableByteChannel out, byte[] stream, int chunk) throws IOException {
+        for (int p = 0; p < stream.length; p += chunk) {
+            out.write(ByteBuffer.wrap(stream, p, Math.min(chunk, stream.length - p)));
+        }
+    }
+}
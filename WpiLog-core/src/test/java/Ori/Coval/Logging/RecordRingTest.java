@@ -0,0 +1,85 @@
+package Ori.Coval.Logging;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.junit.Test;
+
+public class RecordRingTest {
+
+    @Test
+    public void drainReturnsRecordsInOrder() {
+        RecordRing ring = new RecordRing(256);
+        byte[] a = TestRecords.int64(1, 10, 100);
+        byte[] b = TestRecords.int64(2, 20, 200);
+        assertTrue(ring.tryWrite(ByteBuffer.wrap(a)));
+        assertTrue(ring.tryWrite(ByteBuffer.wrap(b)));
+
+        byte[] out = new byte[ring.capacity()];
+        int n = ring.drainTo(out);
+        assertEquals(a.length + b.length, n);
+        List<TestRecords.Parsed> records = TestRecords.parse(java.util.Arrays.copyOf(out, n), 0);
+        assertEquals(2, records.size());
+        assertEquals(100, records.get(0).int64());
+        assertEquals(200, records.get(1).int64());
+        assertEquals(0, ring.size());
+    }
+
+    @Test
+    public void fullRingRejectsWithoutConsuming() {
+        RecordRing ring = new RecordRing(32);
+        ByteBuffer record = ByteBuffer.wrap(TestRecords.int64(1, 1, 1));
+        int written = 0;
+        while (ring.tryWrite(record.duplicate())) {
+            written++;
+        }
+        assertTrue(written > 0);
+        assertEquals(0, record.position());
+        assertEquals(written * record.remaining(), ring.size());
+    }
+
+    @Test
+    public void dropOldestDropsDataButNeverControlRecords() {
+        byte[] start = TestRecords.start(1, "a", "int64", 1);
+        byte[] value = TestRecords.int64(1, 2, 7);
+        RecordRing ring = new RecordRing(start.length + 3 * value.length);
+        assertTrue(ring.tryWrite(ByteBuffer.wrap(start)));
+        for (int i = 0; i < 3; i++) {
+            assertTrue(ring.tryWrite(ByteBuffer.wrap(TestRecords.int64(1, 2 + i, i))));
+        }
+
+        // the oldest record is the start record: nothing may be dropped
+        assertFalse(ring.dropOldest());
+
+        // once the start record is drained, data records go oldest first
+        byte[] out = new byte[ring.capacity()];
+        int n = ring.drainTo(out);
+        assertEquals(start.length + 3 * value.length, n);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(ring.tryWrite(ByteBuffer.wrap(TestRecords.int64(1, 10 + i, 10 + i))));
+        }
+        assertTrue(ring.dropOldest());
+        n = ring.drainTo(out);
+        List<TestRecords.Parsed> kept = TestRecords.parse(java.util.Arrays.copyOf(out, n), 0);
+        assertEquals(2, kept.size());
+        assertEquals(11, kept.get(0).int64());
+        assertEquals(12, kept.get(1).int64());
+    }
+
+    @Test
+    public void recordsWrapAroundTheEndOfTheBuffer() {
+        RecordRing ring = new RecordRing(64);
+        byte[] out = new byte[ring.capacity()];
+        for (int i = 0; i < 50; i++) {
+            byte[] record = TestRecords.int64(3, i, i * 31L);
+            assertTrue(ring.tryWrite(ByteBuffer.wrap(record)));
+            int n = ring.drainTo(out);
+            assertArrayEquals(record, java.util.Arrays.copyOf(out, n));
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package Ori.Coval.Logging;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Builds and parses WPILOG records for the tests, with the header helpers of {@link LogPreamble}. */
+final class TestRecords {
+    private TestRecords() {
+    }
+
+    /** A record with minimal-width header fields. */
+    static byte[] record(int id, long ts, byte[] payload) {
+        int idLen = LogPreamble.byteLength(id);
+        int sizeLen = LogPreamble.byteLength(payload.length);
+        int tsLen = LogPreamble.byteLength(ts);
+        ByteBuffer b = ByteBuffer.allocate(1 + idLen + sizeLen + tsLen + payload.length);
+        b.put(LogPreamble.bitfield(idLen, sizeLen, tsLen));
+        LogPreamble.putLittleEndian(b, id, idLen);
+        LogPreamble.putLittleEndian(b, payload.length, sizeLen);
+        LogPreamble.putLittleEndian(b, ts, tsLen);
+        b.put(payload);
+        return b.array();
+    }
+
+    /** A data record holding one int64. */
+    static byte[] int64(int id, long ts, long value) {
+        return record(id, ts, ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(value).array());
+    }
+
+    /** A start record for entry {@code id}. */
+    static byte[] start(int id, String name, String type, long ts) {
+        byte[] n = name.getBytes(StandardCharsets.UTF_8);
+        byte[] t = type.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer b = ByteBuffer.allocate(1 + 4 + 4 + n.length + 4 + t.length + 4).order(ByteOrder.LITTLE_ENDIAN);
+        b.put((byte) 0).putInt(id).putInt(n.length).put(n).putInt(t.length).put(t).putInt(0);
+        return record(0, ts, b.array());
+    }
+
+    /** The WPILOG header with an empty extra string. */
+    static byte[] header() {
+        ByteBuffer b = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+        b.put("WPILOG".getBytes(StandardCharsets.US_ASCII)).putShort((short) 0x0100).putInt(0);
+        return b.array();
+    }
+
+    static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] p : parts) {
+            out.write(p, 0, p.length);
+        }
+        return out.toByteArray();
+    }
+
+    /** One parsed record. */
+    static final class Parsed {
+        final int id;
+        final long ts;
+        final byte[] payload;
+
+        Parsed(int id, long ts, byte[] payload) {
+            this.id = id;
+            this.ts = ts;
+            this.payload = payload;
+        }
+
+        long int64() {
+            return ByteBuffer.wrap(payload).order(ByteOrder.LITTLE_ENDIAN).getLong();
+        }
+
+        /** Entry id a start record declares. */
+        int startedId() {
+            return ByteBuffer.wrap(payload, 1, 4).order(ByteOrder.LITTLE_ENDIAN).getInt();
+        }
+
+        boolean isStart() {
+            return id == 0 && payload.length >= 5 && payload[0] == 0;
+        }
+    }
+
+    /** Parses back-to-back records starting at {@code offset}; fails on a partial record. */
+    static List<Parsed> parse(byte[] bytes, int offset) {
+        List<Parsed> records = new ArrayList<>();
+        ByteBuffer b = ByteBuffer.wrap(bytes);
+        int p = offset;
+        while (p < bytes.length) {
+            int payload = p + LogPreamble.recordHeaderLength(bytes[p] & 0xFF);
+            if (payload > bytes.length) {
+                throw new AssertionError("partial record at " + p);
+            }
+            int id = LogPreamble.entryId(b, p);
+            int size = LogPreamble.payloadSize(b, p);
+            long ts = LogPreamble.timestamp(b, p);
+            if (payload + size > bytes.length) {
+                throw new AssertionError("partial record at " + p);
+            }
+            byte[] data = new byte[size];
+            System.arraycopy(bytes, payload, data, 0, size);
+            records.add(new Parsed(id, ts, data));
+            p = payload + size;
+        }
+        return records;
+    }
+
+    /** Collects everything written to it, and the size of each write. */
+    static final class CapturingChannel implements WritableByteChannel {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final List<Integer> writes = new ArrayList<>();
+        private boolean open = true;
+
+        @Override
+        public synchronized int write(ByteBuffer src) {
+            int n = src.remaining();
+            byte[] copy = new byte[n];
+            src.get(copy);
+            bytes.write(copy, 0, n);
+            writes.add(n);
+            return n;
+        }
+
+        synchronized byte[] toByteArray() {
+            return bytes.toByteArray();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+    }
+
+    /** Accepts every write without looking at it, and without allocating. */
+    static final class DiscardingChannel implements WritableByteChannel {
+        @Override
+        public int write(ByteBuffer src) {
+            int n = src.remaining();
+            src.position(src.limit());
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
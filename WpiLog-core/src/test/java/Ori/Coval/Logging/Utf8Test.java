@@ -0,0 +1,39 @@
+package Ori.Coval.Logging;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class Utf8Test {
+    private static final String[] STRINGS = {
+            "",
+            "/Drive/Pose",                   // ASCII
+            "caf\u00e9 \u00fc\u00df",        // 2-byte
+            "\u20ac \u65e5\u672c",           // 3-byte
+            "\ud83e\udd16 bot \ud83d\ude80", // surrogate pairs, 4 bytes each
+            "a\ud83e",                       // lone high surrogate at the end
+            "\ud83e b",                      // lone high surrogate before a non-surrogate
+            "\udd16 b",                      // lone low surrogate
+            "\udd16\ud83e",                  // low then high: two unpaired surrogates
+            "x\u007f\u0080\u07ff\u0800\uffff", // boundaries of each length
+    };
+
+    @Test
+    public void matchesGetBytes() {
+        for (String s : STRINGS) {
+            byte[] expected = s.getBytes(StandardCharsets.UTF_8);
+            assertEquals(s, expected.length, Utf8.length(s));
+
+            ByteBuffer b = ByteBuffer.allocate(expected.length + 2);
+            b.put((byte) 7);
+            Utf8.put(b, s);
+            assertEquals(s, 1 + expected.length, b.position());
+            assertArrayEquals(s, expected, Arrays.copyOfRange(b.array(), 1, 1 + expected.length));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package Ori.Coval.Logging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/** The logging hot path allocates nothing once its buffers have grown. */
+public class WpiLogAllocationTest {
+    private static final int CALLS = 10_000;
+
+    private com.sun.management.ThreadMXBean threads;
+
+    @Before
+    public void setUp() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        WpiLog.setDurability(DurabilityPolicy.NONE);
+        WpiLog.setup(new TestRecords.DiscardingChannel());
+    }
+
+    @After
+    public void tearDown() {
+        WpiLog.closeLog();
+        WpiLog.setDurability(DurabilityPolicy.DEFAULT);
+    }
+
+    @Test
+    public void loggingThroughHandlesDoesNotAllocate() {
+        int d = WpiLog.entry("Alloc/double", WpiLog.TYPE_DOUBLE);
+        int l = WpiLog.entry("Alloc/long", WpiLog.TYPE_INT64);
+        int b = WpiLog.entry("Alloc/boolean", WpiLog.TYPE_BOOLEAN);
+        int f = WpiLog.entry("Alloc/float", WpiLog.TYPE_FLOAT);
+        int a = WpiLog.entry("Alloc/doubles", WpiLog.TYPE_DOUBLE_ARRAY);
+        int s = WpiLog.entry("Alloc/longs", WpiLog.TYPE_INT64_ARRAY);
+        double[] doubles = {1, 2, 3, 4};
+        long[] longs = {1, 2, 3, 4};
+
+        Runnable calls = () -> {
+            for (int i = 0; i < CALLS; i++) {
+                WpiLog.log(d, i * 0.5, false);
+                WpiLog.log(l, (long) i, false);
+                WpiLog.log(b, (i & 1) == 0, false);
+                WpiLog.log(f, i * 0.25f, false);
+                doubles[0] = i;
+                WpiLog.log(a, doubles, false);
+                longs[0] = i;
+                WpiLog.log(s, longs, 1, 3, false);
+            }
+        };
+        // grow the buffers and let the JIT compile the paths
+        for (int i = 0; i < 20; i++) {
+            calls.run();
+        }
+        // the first measurement still sees one-off allocations of the measuring itself
+        allocatedBy(calls);
+
+        assertEquals("bytes allocated by " + CALLS * 6 + " log calls", 0, allocatedBy(calls));
+    }
+
+    private long allocatedBy(Runnable r) {
+        long id = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(id);
+        r.run();
+        return threads.getThreadAllocatedBytes(id) - before;
+    }
+}
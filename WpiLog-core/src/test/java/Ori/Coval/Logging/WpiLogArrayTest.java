@@ -0,0 +1,84 @@
+package Ori.Coval.Logging;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+/** Array slices logged through the bulk copy land in the record intact, at any alignment. */
+public class WpiLogArrayTest {
+
+    @After
+    public void tearDown() {
+        WpiLog.closeLog();
+    }
+
+    @Test
+    public void slicesRoundTripAtEveryAlignment() {
+        TestRecords.CapturingChannel out = new TestRecords.CapturingChannel();
+        WpiLog.setup(out);
+        int longs = WpiLog.entry("Array/longs", WpiLog.TYPE_INT64_ARRAY);
+        int floats = WpiLog.entry("Array/floats", WpiLog.TYPE_FLOAT_ARRAY);
+        int doubles = WpiLog.entry("Array/doubles", WpiLog.TYPE_DOUBLE_ARRAY);
+        int buffers = WpiLog.entry("Array/buffer", WpiLog.TYPE_DOUBLE_ARRAY);
+        int changes = WpiLog.entry("Array/changes", WpiLog.TYPE_DOUBLE_ARRAY);
+        WpiLog.setOnlyOnChange(changes, 0);
+
+        long[] l = new long[300];
+        float[] f = new float[300];
+        double[] d = new double[300];
+        for (int i = 0; i < l.length; i++) {
+            l[i] = i * 0x0101010101L;
+            f[i] = i * 1.5f;
+            d[i] = i * -2.25;
+        }
+        DoubleBuffer source = DoubleBuffer.wrap(d);
+        // lengths past 31 widen the size field; offsets shift the source
+        for (int length = 0; length < 40; length++) {
+            int offset = length % 7;
+            WpiLog.log(longs, l, offset, length, false);
+            WpiLog.log(floats, f, offset, length, false);
+            WpiLog.log(doubles, d, offset, length, false);
+            source.limit(offset + length).position(offset);
+            WpiLog.log(buffers, source, false);
+            assertEquals(offset, source.position());
+            WpiLog.log(changes, d, offset, length + 1, false);
+        }
+        WpiLog.closeLog();
+
+        List<List<ByteBuffer>> payloads = new ArrayList<>();
+        for (int i = 0; i <= Math.max(Math.max(longs, floats), Math.max(doubles, Math.max(buffers, changes))); i++) {
+            payloads.add(new ArrayList<>());
+        }
+        for (TestRecords.Parsed r : TestRecords.parse(out.toByteArray(), TestRecords.header().length)) {
+            if (r.id != 0) {
+                payloads.get(r.id).add(ByteBuffer.wrap(r.payload).order(ByteOrder.LITTLE_ENDIAN));
+            }
+        }
+        for (int length = 0; length < 40; length++) {
+            int offset = length % 7;
+            long[] gotLongs = new long[length];
+            payloads.get(longs).get(length).asLongBuffer().get(gotLongs);
+            assertArrayEquals(Arrays.copyOfRange(l, offset, offset + length), gotLongs);
+            float[] gotFloats = new float[length];
+            payloads.get(floats).get(length).asFloatBuffer().get(gotFloats);
+            assertArrayEquals(Arrays.copyOfRange(f, offset, offset + length), gotFloats, 0);
+            double[] gotDoubles = new double[length];
+            payloads.get(doubles).get(length).asDoubleBuffer().get(gotDoubles);
+            assertArrayEquals(Arrays.copyOfRange(d, offset, offset + length), gotDoubles, 0);
+            payloads.get(buffers).get(length).asDoubleBuffer().get(gotDoubles);
+            assertArrayEquals(Arrays.copyOfRange(d, offset, offset + length), gotDoubles, 0);
+            double[] gotChanges = new double[length + 1];
+            payloads.get(changes).get(length).asDoubleBuffer().get(gotChanges);
+            assertArrayEquals(Arrays.copyOfRange(d, offset, offset + length + 1), gotChanges, 0);
+        }
+    }
+}
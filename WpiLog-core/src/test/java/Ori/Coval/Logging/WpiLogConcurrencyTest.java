@@ -0,0 +1,55 @@
+package Ori.Coval.Logging;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class WpiLogConcurrencyTest {
+    private static final int THREADS = 4;
+    private static final int RECORDS = 50_000;
+
+    @After
+    public void tearDown() {
+        WpiLog.closeLog();
+        WpiLog.disableConcurrentLogging();
+    }
+
+    @Test
+    public void openLogKeepsItsModeWhenTheSettingChanges() throws InterruptedException {
+        TestRecords.CapturingChannel out = new TestRecords.CapturingChannel();
+        WpiLog.enableConcurrentLogging(1 << 16, OverflowPolicy.BLOCK);
+        WpiLog.setup(out);
+        // only applies to the next log: this one still encodes on each thread
+        WpiLog.disableConcurrentLogging();
+
+        Thread[] threads = new Thread[THREADS];
+        Set<Integer> ids = new HashSet<>();
+        for (int t = 0; t < THREADS; t++) {
+            final int id = WpiLog.entry("Thread/" + t, WpiLog.TYPE_INT64);
+            ids.add(id);
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < RECORDS; i++) {
+                    WpiLog.log(id, (long) i, false);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        WpiLog.closeLog();
+
+        List<TestRecords.Parsed> records = TestRecords.parse(out.toByteArray(), TestRecords.header().length);
+        // entries registered by other tests are declared in this log too
+        int values = 0;
+        for (TestRecords.Parsed r : records) {
+            if (ids.contains(r.id)) values++;
+        }
+        assertEquals(THREADS * RECORDS, values);
+    }
+}
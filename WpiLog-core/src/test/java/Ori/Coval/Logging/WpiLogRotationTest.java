@@ -0,0 +1,85 @@
+package Ori.Coval.Logging;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Every segment of a rotated log opens on its own. */
+public class WpiLogRotationTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final StructSerializer<double[]> POINT = new StructSerializer<double[]>() {
+        @Override public String getTypeName() { return "RotationTestPoint"; }
+        @Override public String getSchema() { return "double x;double y"; }
+        @Override public int getSize() { return 16; }
+        @Override public void pack(ByteBuffer bb, double[] value) { bb.putDouble(value[0]).putDouble(value[1]); }
+    };
+
+    @After
+    public void tearDown() {
+        WpiLog.closeLog();
+        WpiLog.setRotation(RotationPolicy.NONE);
+    }
+
+    @Test
+    public void everySegmentStartsWithTheHeaderAndStartRecords() throws IOException {
+        File first = new File(folder.getRoot(), "match.wpilog");
+        WpiLog.setRotation(new RotationPolicy(4096, 0, 0));
+        WpiLog.setup(first);
+        int speed = WpiLog.entry("Rotation/speed", WpiLog.TYPE_DOUBLE);
+        int mode = WpiLog.entry("Rotation/mode", WpiLog.TYPE_STRING);
+        for (int i = 0; i < 2000; i++) {
+            WpiLog.log(speed, (double) i, false);
+            if (i % 100 == 0) {
+                WpiLog.log(mode, "mode " + i, false);
+            }
+            WpiLog.log("Rotation/point", new double[] {i, -i}, POINT, false);
+        }
+        WpiLog.closeLog();
+
+        byte[] header = TestRecords.header();
+        int segments = 0;
+        int values = 0;
+        for (int index = 1; ; index++) {
+            File file = RotatingChannel.segmentFile(first, index);
+            if (!file.exists()) break;
+            segments++;
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            assertArrayEquals(file.getName(), header, Arrays.copyOf(bytes, header.length));
+
+            // parses to the end on its own, and every value's entry was started in this segment
+            List<TestRecords.Parsed> records = TestRecords.parse(bytes, header.length);
+            Set<Integer> started = new HashSet<>();
+            boolean schemaSeen = false;
+            for (TestRecords.Parsed record : records) {
+                if (record.isStart()) {
+                    started.add(record.startedId());
+                } else if (record.id != 0) {
+                    assertTrue(file.getName() + ": entry " + record.id + " not started", started.contains(record.id));
+                    schemaSeen |= record.payload.length == POINT.getSchema().length()
+                            && new String(record.payload, StandardCharsets.UTF_8).equals(POINT.getSchema());
+                    if (record.id == speed) values++;
+                }
+            }
+            assertTrue(file.getName() + ": no struct schema", schemaSeen);
+        }
+        assertTrue("only " + segments + " segments", segments >= 5);
+        assertEquals(2000, values);
+    }
+}
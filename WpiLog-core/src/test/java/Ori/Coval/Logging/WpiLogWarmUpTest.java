@@ -0,0 +1,62 @@
+package Ori.Coval.Logging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Warming up writes nothing and leaves the real entries alone. */
+public class WpiLogWarmUpTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @After
+    public void tearDown() {
+        WpiLog.closeLog();
+    }
+
+    @Test
+    public void warmUpLeavesTheLogAndTheEntriesAsTheyWere() throws IOException {
+        File log = folder.newFile("warm.wpilog");
+        WpiLog.setup(log);
+        int speed = WpiLog.entry("WarmUpTest/speed", WpiLog.TYPE_DOUBLE);
+        WpiLog.declareEntries();
+        WpiLog.log(speed, 1.0, false);
+
+        WpiLog.warmUp(50);
+
+        // the throwaway registry's entries didn't take ids in the real one
+        int after = WpiLog.entry("WarmUpTest/after", WpiLog.TYPE_INT64);
+        assertEquals(speed + 1, after);
+        WpiLog.declareEntries();
+        WpiLog.declareEntries();
+        WpiLog.log(speed, 2.0, false);
+        WpiLog.closeLog();
+
+        byte[] bytes = Files.readAllBytes(log.toPath());
+        List<TestRecords.Parsed> records = TestRecords.parse(bytes, TestRecords.header().length);
+        int speedStarts = 0;
+        int afterStarts = 0;
+        int speedValues = 0;
+        for (TestRecords.Parsed record : records) {
+            if (record.isStart()) {
+                if (record.startedId() == speed) speedStarts++;
+                if (record.startedId() == after) afterStarts++;
+            } else if (record.id != 0) {
+                assertTrue("record of entry " + record.id, record.id <= after);
+                if (record.id == speed) speedValues++;
+            }
+        }
+        assertEquals(1, speedStarts);
+        assertEquals(1, afterStarts);
+        assertEquals(2, speedValues);
+    }
+}
@@ -0,0 +1,76 @@
+package Ori.Coval.Logging.reader;
+
+import java.util.Arrays;
+
+/**
+ * File offsets and timestamps of every data record of one entry, in file order.
+ * Pass an offset to {@link RecordCursor#seek(long)} to read that record.
+ */
+public final class EntryIndex {
+    private final EntryInfo info;
+    private long[] offsets;
+    private long[] timestamps;
+    private int count;
+
+    EntryIndex(EntryInfo info, int capacity) {
+        this.info = info;
+        this.offsets = new long[Math.max(capacity, 4)];
+        this.timestamps = new long[offsets.length];
+    }
+
+    void add(long offset, long timestamp) {
+        if (count == offsets.length) {
+            offsets = Arrays.copyOf(offsets, count * 2);
+            timestamps = Arrays.copyOf(timestamps, count * 2);
+        }
+        offsets[count] = offset;
+        timestamps[count] = timestamp;
+        count++;
+    }
+
+    public EntryInfo getInfo() {
+        return info;
+    }
+
+    public int getRecordCount() {
+        return count;
+    }
+
+    public long getOffset(int i) {
+        if (i >= count) throw new IndexOutOfBoundsException(i + " >= " + count);
+        return offsets[i];
+    }
+
+    public long getTimestamp(int i) {
+        if (i >= count) throw new IndexOutOfBoundsException(i + " >= " + count);
+        return timestamps[i];
+    }
+
+    /** Timestamp of the first record, or -1 if the entry has none. */
+    public long getFirstTimestamp() {
+        return count == 0 ? -1 : timestamps[0];
+    }
+
+    /** Timestamp of the last record, or -1 if the entry has none. */
+    public long getLastTimestamp() {
+        return count == 0 ? -1 : timestamps[count - 1];
+    }
+
+    /**
+     * Index of the first record at or after {@code timestamp}, or {@link #getRecordCount()}
+     * if every record is earlier.
+     */
+    public int indexAtOrAfter(long timestamp) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[mid] < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,62 @@
+package Ori.Coval.Logging.reader;
+
+/**
+ * An entry as defined by its start record: id, name, type and metadata, plus where in
+ * the file it was started and finished.
+ */
+public final class EntryInfo {
+    private final int id;
+    private final String name;
+    private final String type;
+    private String metadata;
+    private final long startOffset;
+    private long finishOffset = Long.MAX_VALUE;
+
+    EntryInfo(int id, String name, String type, String metadata, long startOffset) {
+        this.id = id;
+        this.name = name;
+        this.type = type;
+        this.metadata = metadata;
+        this.startOffset = startOffset;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    /** Metadata from the start record, or from the latest setMetadata record read so far. */
+    public String getMetadata() {
+        return metadata;
+    }
+
+    /** Offset of the entry's start record. */
+    public long getStartOffset() {
+        return startOffset;
+    }
+
+    /** Offset of the entry's finish record, or {@link Long#MAX_VALUE} if it was never finished. */
+    public long getFinishOffset() {
+        return finishOffset;
+    }
+
+    void setMetadata(String metadata) {
+        this.metadata = metadata;
+    }
+
+    void setFinishOffset(long finishOffset) {
+        this.finishOffset = finishOffset;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + type + ", id " + id + ")";
+    }
+}
@@ -0,0 +1,283 @@
+package Ori.Coval.Logging.reader;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Walks the records of a mapped WPILOG file one at a time.
+ * <p>
+ * Call {@link #next()} to move to the next record, then read it through the getters.
+ * Nothing is decoded until a getter asks for it, so skipping uninteresting records
+ * costs only the header parse. Control records (start, finish, setMetadata) are
+ * returned like any other record and also keep the cursor's entry table up to date,
+ * so {@link #entryInfo()} can name the entry of every data record.
+ */
+public final class RecordCursor {
+    private static final int CONTROL_START = 0;
+    private static final int CONTROL_FINISH = 1;
+    private static final int CONTROL_SET_METADATA = 2;
+
+    private final ByteBuffer data;
+    private final Map<Integer, EntryInfo> active = new HashMap<>();
+
+    private int position;
+    private int offset = -1;
+    private int entry;
+    private long timestamp;
+    private int payloadStart;
+    private int payloadSize;
+    private boolean truncated;
+
+    RecordCursor(ByteBuffer data, int position) {
+        this.data = data;
+        this.position = position;
+    }
+
+    void define(EntryInfo info) {
+        active.put(info.getId(), info);
+    }
+
+    /** Positions the cursor so the next call to {@link #next()} reads the record at {@code offset}. */
+    public void seek(long offset) {
+        if (offset < 0 || offset > data.capacity()) {
+            throw new IllegalArgumentException("offset out of range: " + offset);
+        }
+        this.position = (int) offset;
+        this.offset = -1;
+    }
+
+    /**
+     * Moves to the next record.
+     *
+     * @return false at the end of the file, or if the remaining bytes are not a whole
+     * record (see {@link #isTruncated()})
+     */
+    public boolean next() {
+        int end = data.capacity();
+        if (position >= end) return false;
+        int p = position;
+        int header = data.get(p++) & 0xFF;
+        int idLength = (header & 0x3) + 1;
+        int sizeLength = ((header >> 2) & 0x3) + 1;
+        int timestampLength = ((header >> 4) & 0x7) + 1;
+        if (p + idLength + sizeLength + timestampLength > end) {
+            truncated = true;
+            return false;
+        }
+        int id = (int) readLittleEndian(p, idLength);
+        p += idLength;
+        long size = readLittleEndian(p, sizeLength);
+        p += sizeLength;
+        long ts = readLittleEndian(p, timestampLength);
+        p += timestampLength;
+        if (size > end - p || (id == 0 && size < 5)) {
+            // cut off by the end of the file, or zero padding left by a preallocated file
+            truncated = true;
+            return false;
+        }
+
+        offset = position;
+        entry = id;
+        timestamp = ts;
+        payloadStart = p;
+        payloadSize = (int) size;
+        position = p + payloadSize;
+        if (id == 0) {
+            applyControl();
+        }
+        return true;
+    }
+
+    /**
+     * True if {@link #next()} stopped before the end of the file, at a record cut off by a
+     * crash or at zero padding. {@link WpiLogRecovery} trims such a tail.
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /** Offset of the current record. */
+    public long offset() {
+        return offset;
+    }
+
+    /** Offset just past the current record, where the next one starts. */
+    public long nextOffset() {
+        return position;
+    }
+
+    /** Entry id of the current record; 0 for control records. */
+    public int entry() {
+        return entry;
+    }
+
+    /** Timestamp of the current record, in microseconds. */
+    public long timestamp() {
+        return timestamp;
+    }
+
+    public int payloadSize() {
+        return payloadSize;
+    }
+
+    /** The entry the current data record belongs to, or null if it was never started. */
+    public EntryInfo entryInfo() {
+        return active.get(entry);
+    }
+
+    /** Returns the started entry with the given id, or null. */
+    public EntryInfo entryInfo(int id) {
+        return active.get(id);
+    }
+
+    // ─── Control records ─────────────────────────────────────────────────────
+
+    public boolean isControl() {
+        return entry == 0;
+    }
+
+    public boolean isStart() {
+        return isControl() && payloadSize > 0 && data.get(payloadStart) == CONTROL_START;
+    }
+
+    public boolean isFinish() {
+        return isControl() && payloadSize > 0 && data.get(payloadStart) == CONTROL_FINISH;
+    }
+
+    public boolean isSetMetadata() {
+        return isControl() && payloadSize > 0 && data.get(payloadStart) == CONTROL_SET_METADATA;
+    }
+
+    /** For a control record, the id of the entry it starts, finishes or updates. */
+    public int controlEntry() {
+        return data.getInt(payloadStart + 1);
+    }
+
+    private void applyControl() {
+        if (payloadSize < 5) return;
+        int target = controlEntry();
+        int p = payloadStart + 5;
+        switch (data.get(payloadStart)) {
+            case CONTROL_START: {
+                String name = readString(p);
+                p += 4 + data.getInt(p);
+                String type = readString(p);
+                p += 4 + data.getInt(p);
+                String metadata = readString(p);
+                active.put(target, new EntryInfo(target, name, type, metadata, offset));
+                break;
+            }
+            case CONTROL_FINISH: {
+                EntryInfo info = active.remove(target);
+                if (info != null) info.setFinishOffset(offset);
+                break;
+            }
+            case CONTROL_SET_METADATA: {
+                EntryInfo info = active.get(target);
+                if (info != null) info.setMetadata(readString(p));
+                break;
+            }
+            default:
+                break;
+        }
+    }
+
+    // ─── Data records ────────────────────────────────────────────────────────
+
+    public boolean getBoolean() {
+        return data.get(payloadStart) != 0;
+    }
+
+    public long getInt64() {
+        return data.getLong(payloadStart);
+    }
+
+    public float getFloat() {
+        return data.getFloat(payloadStart);
+    }
+
+    public double getDouble() {
+        return data.getDouble(payloadStart);
+    }
+
+    public String getString() {
+        return decode(payloadStart, payloadSize);
+    }
+
+    /** Raw payload bytes, for struct entries and other types without a getter. */
+    public byte[] getRaw() {
+        return copy(payloadStart, payloadSize);
+    }
+
+    /** Read-only little-endian view of the payload, without copying it. */
+    public ByteBuffer payload() {
+        ByteBuffer view = data.duplicate();
+        view.limit(payloadStart + payloadSize).position(payloadStart);
+        return view.slice().asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public boolean[] getBooleanArray() {
+        boolean[] values = new boolean[payloadSize];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = data.get(payloadStart + i) != 0;
+        }
+        return values;
+    }
+
+    public long[] getInt64Array() {
+        long[] values = new long[payloadSize / 8];
+        payload().asLongBuffer().get(values);
+        return values;
+    }
+
+    public float[] getFloatArray() {
+        float[] values = new float[payloadSize / 4];
+        payload().asFloatBuffer().get(values);
+        return values;
+    }
+
+    public double[] getDoubleArray() {
+        double[] values = new double[payloadSize / 8];
+        payload().asDoubleBuffer().get(values);
+        return values;
+    }
+
+    public String[] getStringArray() {
+        int p = payloadStart;
+        String[] values = new String[data.getInt(p)];
+        p += 4;
+        for (int i = 0; i < values.length; i++) {
+            values[i] = readString(p);
+            p += 4 + data.getInt(p);
+        }
+        return values;
+    }
+
+    private long readLittleEndian(int p, int length) {
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            value |= (long) (data.get(p + i) & 0xFF) << (8 * i);
+        }
+        return value;
+    }
+
+    /** Reads a string prefixed by its 4-byte length. */
+    private String readString(int p) {
+        return decode(p + 4, data.getInt(p));
+    }
+
+    private String decode(int start, int length) {
+        return new String(copy(start, length), StandardCharsets.UTF_8);
+    }
+
+    private byte[] copy(int start, int length) {
+        byte[] bytes = new byte[length];
+        ByteBuffer view = data.duplicate();
+        view.position(start);
+        view.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,238 @@
+package Ori.Coval.Logging.reader;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Restores {@code .wpilogz} files, written by the logger's background compression, to
+ * plain {@code .wpilog} files AdvantageScope can open:
+ * <pre>
+ * java -cp wpilog-reader.jar Ori.Coval.Logging.reader.WpiLogDecompressor match.wpilogz ...
+ * </pre>
+ * The log is stored as independently deflated blocks with a table of block offsets at the
+ * end, so {@link #open(File, long)} can start reading anywhere without inflating what
+ * comes before. A file cut off during compression still decompresses up to its last
+ * whole block.
+ */
+public final class WpiLogDecompressor {
+    public static final String COMPRESSED_SUFFIX = ".wpilogz";
+
+    private static final int MAGIC = 0x5750495A; // "WPIZ"
+    private static final int FORMAT_VERSION = 1;
+    /** Magic, version and block size. */
+    private static final int HEADER_LENGTH = 12;
+    /** Block count, original length and magic. */
+    private static final int TRAILER_LENGTH = 16;
+
+    private WpiLogDecompressor() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("usage: WpiLogDecompressor <file.wpilogz>...");
+            System.exit(2);
+        }
+        int failures = 0;
+        for (String arg : args) {
+            File file = new File(arg);
+            File out = decompressedFile(file);
+            try {
+                long length = decompress(file, out);
+                System.out.println(file + " -> " + out + " (" + length + " bytes)");
+            } catch (IOException e) {
+                System.err.println(file + ": " + e.getMessage());
+                failures++;
+            }
+        }
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    /** "match.wpilogz" becomes "match.wpilog" in the same directory. */
+    public static File decompressedFile(File compressed) {
+        String name = compressed.getName();
+        if (name.endsWith(COMPRESSED_SUFFIX)) {
+            name = name.substring(0, name.length() - COMPRESSED_SUFFIX.length());
+        }
+        return new File(compressed.getParentFile(), name + ".wpilog");
+    }
+
+    /**
+     * Writes the original log of {@code compressed} to {@code out}.
+     *
+     * @return the length of the restored log
+     */
+    public static long decompress(File compressed, File out) throws IOException {
+        long total = 0;
+        byte[] buffer = new byte[1 << 16];
+        try (InputStream in = open(compressed, 0);
+             OutputStream dst = new FileOutputStream(out)) {
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                dst.write(buffer, 0, n);
+                total += n;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Streams the original log of {@code compressed} starting at byte {@code offset} of the
+     * log. Only the block holding that offset and the ones after it are inflated.
+     */
+    public static InputStream open(File compressed, long offset) throws IOException {
+        if (offset < 0) throw new IllegalArgumentException("offset can't be negative: " + offset);
+        int blockSize;
+        long start = HEADER_LENGTH;
+        try (RandomAccessFile raf = new RandomAccessFile(compressed, "r")) {
+            if (raf.length() < HEADER_LENGTH || raf.readInt() != MAGIC) {
+                throw new IOException("not a compressed WPILOG file");
+            }
+            if (raf.readInt() != FORMAT_VERSION) {
+                throw new IOException("unsupported compressed WPILOG version");
+            }
+            blockSize = raf.readInt();
+            long block = offset / blockSize;
+            if (block > 0) {
+                start = blockOffset(raf, block);
+            }
+        }
+        BlockInputStream in = new BlockInputStream(compressed, start);
+        long skip = start == HEADER_LENGTH ? offset : offset % blockSize;
+        while (skip > 0) {
+            long skipped = in.skip(skip);
+            if (skipped <= 0) break;
+            skip -= skipped;
+        }
+        return in;
+    }
+
+    /** Offset of block {@code block} from the footer table, or the end of the data if it is past the end. */
+    private static long blockOffset(RandomAccessFile raf, long block) throws IOException {
+        long length = raf.length();
+        if (length < HEADER_LENGTH + TRAILER_LENGTH) {
+            throw new IOException("compressed WPILOG has no block table; decompress it from the start");
+        }
+        raf.seek(length - TRAILER_LENGTH);
+        int blocks = raf.readInt();
+        raf.readLong();
+        if (raf.readInt() != MAGIC) {
+            throw new IOException("compressed WPILOG has no block table; decompress it from the start");
+        }
+        long table = length - TRAILER_LENGTH - 8L * blocks;
+        if (block >= blocks) return table;
+        raf.seek(table + 8 * block);
+        return raf.readLong();
+    }
+
+    // ─── Blocks ──────────────────────────────────────────────────────────────
+
+    /** Inflates one block at a time, up to the footer or a block cut off by a crash. */
+    private static final class BlockInputStream extends InputStream {
+        private final DataInputStream in;
+        private final Inflater inflater = new Inflater(true);
+        private byte[] compressed = new byte[0];
+        private byte[] block = new byte[0];
+        private int position;
+        private int length;
+        private boolean done;
+
+        BlockInputStream(File file, long start) throws IOException {
+            FileInputStream stream = new FileInputStream(file);
+            try {
+                stream.getChannel().position(start);
+            } catch (IOException e) {
+                stream.close();
+                throw e;
+            }
+            this.in = new DataInputStream(new BufferedInputStream(stream, 1 << 16));
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!fill()) return -1;
+            return block[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (!fill()) return -1;
+            int n = Math.min(len, length - position);
+            System.arraycopy(block, position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            if (n <= 0 || !fill()) return 0;
+            int skipped = (int) Math.min(n, length - position);
+            position += skipped;
+            return skipped;
+        }
+
+        /** Makes sure there are bytes left in the current block; false at the end of the log. */
+        private boolean fill() throws IOException {
+            while (position == length) {
+                if (done || !nextBlock()) {
+                    done = true;
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean nextBlock() throws IOException {
+            int originalLength;
+            int compressedLength;
+            try {
+                originalLength = in.readInt();
+                compressedLength = in.readInt();
+                if (originalLength <= 0 || compressedLength <= 0) {
+                    // the footer's first block offset, or garbage after a crash
+                    return false;
+                }
+                if (compressed.length < compressedLength) compressed = new byte[compressedLength];
+                in.readFully(compressed, 0, compressedLength);
+            } catch (EOFException e) {
+                return false;
+            }
+            if (block.length < originalLength) block = new byte[originalLength];
+            inflater.reset();
+            inflater.setInput(compressed, 0, compressedLength);
+            try {
+                int n = 0;
+                while (n < originalLength && !inflater.finished()) {
+                    int r = inflater.inflate(block, n, originalLength - n);
+                    if (r == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                    n += r;
+                }
+                if (n != originalLength) {
+                    throw new IOException("corrupt compressed block");
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("corrupt compressed block", e);
+            }
+            position = 0;
+            length = originalLength;
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            inflater.end();
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package Ori.Coval.Logging.reader;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-entry record offsets and time ranges of a WPILOG file, built in one pass and
+ * saved next to the log as {@code <log>.idx} so later runs skip the scan.
+ * <pre>
+ * try (WpiLogReader reader = new WpiLogReader(file)) {
+ *     WpiLogIndex index = WpiLogIndex.open(reader);
+ *     EntryIndex speed = index.get("Drive/getSpeed");
+ *     RecordCursor c = reader.cursor();
+ *     for (int i = speed.indexAtOrAfter(startMicros); i &lt; speed.getRecordCount(); i++) {
+ *         c.seek(speed.getOffset(i));
+ *         c.next();
+ *         double value = c.getDouble();
+ *     }
+ * }
+ * </pre>
+ */
+public final class WpiLogIndex {
+    public static final String SIDECAR_SUFFIX = ".idx";
+
+    private static final int MAGIC = 0x57504958; // "WPIX"
+    private static final int FORMAT_VERSION = 1;
+    /** A checkpoint (offset and timestamp) is kept every this many records, for time seeks. */
+    private static final int CHECKPOINT_INTERVAL = 256;
+
+    private final long logLength;
+    private final long logModified;
+    private final long validLength;
+    private final Map<EntryInfo, EntryIndex> entries;
+    private final long[] checkpointOffsets;
+    private final long[] checkpointTimestamps;
+
+    private WpiLogIndex(long logLength, long logModified, long validLength,
+                        Map<EntryInfo, EntryIndex> entries,
+                        long[] checkpointOffsets, long[] checkpointTimestamps) {
+        this.logLength = logLength;
+        this.logModified = logModified;
+        this.validLength = validLength;
+        this.entries = entries;
+        this.checkpointOffsets = checkpointOffsets;
+        this.checkpointTimestamps = checkpointTimestamps;
+    }
+
+    /**
+     * Loads the sidecar index of the reader's file if it is up to date, or builds it and
+     * tries to save it. A sidecar that can't be written (read-only directory) is skipped.
+     */
+    public static WpiLogIndex open(WpiLogReader reader) throws IOException {
+        File sidecar = sidecarFile(reader.getFile());
+        if (sidecar.isFile()) {
+            WpiLogIndex index = read(sidecar, reader);
+            if (index != null) return index;
+        }
+        WpiLogIndex index = build(reader);
+        try {
+            index.write(sidecar);
+        } catch (IOException e) {
+            // the index is still usable in memory
+            sidecar.delete();
+        }
+        return index;
+    }
+
+    public static File sidecarFile(File log) {
+        return new File(log.getPath() + SIDECAR_SUFFIX);
+    }
+
+    /** Walks every record of the file once. */
+    public static WpiLogIndex build(WpiLogReader reader) {
+        Map<EntryInfo, EntryIndex> entries = new LinkedHashMap<>();
+        Map<Integer, EntryIndex> byId = new HashMap<>();
+        long[] offsets = new long[64];
+        long[] timestamps = new long[64];
+        int checkpoints = 0;
+
+        RecordCursor cursor = reader.cursor();
+        long records = 0;
+        while (cursor.next()) {
+            if (records++ % CHECKPOINT_INTERVAL == 0) {
+                if (checkpoints == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, checkpoints * 2);
+                    timestamps = Arrays.copyOf(timestamps, checkpoints * 2);
+                }
+                offsets[checkpoints] = cursor.offset();
+                timestamps[checkpoints] = cursor.timestamp();
+                checkpoints++;
+            }
+            if (cursor.isControl()) {
+                if (cursor.isStart()) {
+                    EntryIndex entry = new EntryIndex(cursor.entryInfo(cursor.controlEntry()), 64);
+                    entries.put(entry.getInfo(), entry);
+                    byId.put(entry.getInfo().getId(), entry);
+                } else if (cursor.isFinish()) {
+                    byId.remove(cursor.controlEntry());
+                }
+                continue;
+            }
+            EntryIndex entry = byId.get(cursor.entry());
+            if (entry != null) {
+                entry.add(cursor.offset(), cursor.timestamp());
+            }
+        }
+        long validLength = cursor.isTruncated() ? cursor.nextOffset() : reader.size();
+        return new WpiLogIndex(reader.size(), reader.getFile().lastModified(), validLength, entries,
+                Arrays.copyOf(offsets, checkpoints), Arrays.copyOf(timestamps, checkpoints));
+    }
+
+    // ─── Queries ─────────────────────────────────────────────────────────────
+
+    /** Every entry started in the file, in file order. */
+    public List<EntryInfo> getEntries() {
+        return Collections.unmodifiableList(new ArrayList<>(entries.keySet()));
+    }
+
+    /** Records of the first entry started with {@code name}, or null if there is none. */
+    public EntryIndex get(String name) {
+        for (EntryIndex entry : entries.values()) {
+            if (entry.getInfo().getName().equals(name)) return entry;
+        }
+        return null;
+    }
+
+    public EntryIndex get(EntryInfo info) {
+        return entries.get(info);
+    }
+
+    /**
+     * Offset to start reading from to see every record at or after {@code timestamp}.
+     * Use with {@link WpiLogReader#cursor(WpiLogIndex, long)} and skip the few earlier
+     * records before the window.
+     */
+    public long offsetBefore(long timestamp) {
+        int low = 0;
+        int high = checkpointOffsets.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (checkpointTimestamps[mid] < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        // the checkpoint before the first one at or after the timestamp
+        return low == 0 ? (checkpointOffsets.length == 0 ? validLength : checkpointOffsets[0])
+                : checkpointOffsets[low - 1];
+    }
+
+    /** Length of the file covered by whole records; less than the file size if the tail is cut off. */
+    public long getValidLength() {
+        return validLength;
+    }
+
+    public boolean isTruncated() {
+        return validLength < logLength;
+    }
+
+    // ─── Sidecar file ────────────────────────────────────────────────────────
+
+    public void write(File sidecar) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(sidecar), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(logLength);
+            out.writeLong(logModified);
+            out.writeLong(validLength);
+            out.writeInt(entries.size());
+            for (EntryIndex entry : entries.values()) {
+                EntryInfo info = entry.getInfo();
+                out.writeInt(info.getId());
+                writeString(out, info.getName());
+                writeString(out, info.getType());
+                writeString(out, info.getMetadata());
+                out.writeLong(info.getStartOffset());
+                out.writeLong(info.getFinishOffset());
+                out.writeInt(entry.getRecordCount());
+                for (int i = 0; i < entry.getRecordCount(); i++) {
+                    out.writeLong(entry.getOffset(i));
+                    out.writeLong(entry.getTimestamp(i));
+                }
+            }
+            out.writeInt(checkpointOffsets.length);
+            for (int i = 0; i < checkpointOffsets.length; i++) {
+                out.writeLong(checkpointOffsets[i]);
+                out.writeLong(checkpointTimestamps[i]);
+            }
+        }
+    }
+
+    /** Reads a sidecar, or returns null if it is from another version or describes another file. */
+    public static WpiLogIndex read(File sidecar, WpiLogReader reader) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(sidecar), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) return null;
+            long logLength = in.readLong();
+            long logModified = in.readLong();
+            if (logLength != reader.size() || logModified != reader.getFile().lastModified()) return null;
+            long validLength = in.readLong();
+
+            int entryCount = in.readInt();
+            Map<EntryInfo, EntryIndex> entries = new LinkedHashMap<>();
+            for (int e = 0; e < entryCount; e++) {
+                int id = in.readInt();
+                String name = readString(in);
+                String type = readString(in);
+                String metadata = readString(in);
+                EntryInfo info = new EntryInfo(id, name, type, metadata, in.readLong());
+                info.setFinishOffset(in.readLong());
+                int count = in.readInt();
+                EntryIndex entry = new EntryIndex(info, count);
+                for (int i = 0; i < count; i++) {
+                    entry.add(in.readLong(), in.readLong());
+                }
+                entries.put(info, entry);
+            }
+            int checkpoints = in.readInt();
+            long[] offsets = new long[checkpoints];
+            long[] timestamps = new long[checkpoints];
+            for (int i = 0; i < checkpoints; i++) {
+                offsets[i] = in.readLong();
+                timestamps[i] = in.readLong();
+            }
+            return new WpiLogIndex(logLength, logModified, validLength, entries, offsets, timestamps);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,129 @@
+package Ori.Coval.Logging.reader;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Memory-mapped reader for {@code .wpilog} files.
+ * <p>
+ * Opening a file only maps it and checks the header; records are decoded one at a time
+ * by a {@link RecordCursor}, so a multi-hundred-MB log is never copied onto the heap.
+ * Use {@link WpiLogIndex} to jump to a time window or to the records of one entry
+ * without walking the whole file.
+ * <pre>
+ * try (WpiLogReader reader = new WpiLogReader(new File("match.wpilog"))) {
+ *     RecordCursor c = reader.cursor();
+ *     while (c.next()) {
+ *         if (!c.isControl() &amp;&amp; c.entryInfo().getType().equals("double")) {
+ *             System.out.println(c.entryInfo().getName() + " " + c.getDouble());
+ *         }
+ *     }
+ * }
+ * </pre>
+ */
+public class WpiLogReader implements Closeable {
+    private static final byte[] MAGIC = {'W', 'P', 'I', 'L', 'O', 'G'};
+    private static final int SUPPORTED_VERSION = 0x0100;
+
+    private final File file;
+    private final RandomAccessFile raf;
+    private final ByteBuffer data;
+    private final int version;
+    private final String extraHeader;
+    private final int firstRecord;
+
+    public WpiLogReader(File file) throws IOException {
+        this.file = file;
+        this.raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(file + " is larger than 2 GB");
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            this.data = mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (size < 12) {
+                throw new IOException(file + " is too short to be a WPILOG file");
+            }
+            for (int i = 0; i < MAGIC.length; i++) {
+                if (data.get(i) != MAGIC[i]) {
+                    throw new IOException(file + " is not a WPILOG file");
+                }
+            }
+            this.version = data.getShort(6) & 0xFFFF;
+            if (version != SUPPORTED_VERSION) {
+                throw new IOException(String.format("%s has unsupported WPILOG version 0x%04x", file, version));
+            }
+            int extraLength = data.getInt(8);
+            if (extraLength < 0 || 12L + extraLength > size) {
+                throw new IOException(file + " has a corrupt header");
+            }
+            byte[] extra = new byte[extraLength];
+            for (int i = 0; i < extraLength; i++) {
+                extra[i] = data.get(12 + i);
+            }
+            this.extraHeader = new String(extra, StandardCharsets.UTF_8);
+            this.firstRecord = 12 + extraLength;
+        } catch (IOException | RuntimeException e) {
+            raf.close();
+            throw e;
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public String getExtraHeader() {
+        return extraHeader;
+    }
+
+    /** File size in bytes. */
+    public long size() {
+        return data.capacity();
+    }
+
+    /** Offset of the first record, just past the header. */
+    public long firstRecordOffset() {
+        return firstRecord;
+    }
+
+    /** Returns a cursor positioned before the first record. */
+    public RecordCursor cursor() {
+        return new RecordCursor(data, firstRecord);
+    }
+
+    /**
+     * Returns a cursor positioned before the record at {@code offset}, with the entries
+     * started before that point taken from {@code index}.
+     */
+    public RecordCursor cursor(WpiLogIndex index, long offset) {
+        RecordCursor cursor = new RecordCursor(data, firstRecord);
+        for (EntryInfo entry : index.getEntries()) {
+            if (entry.getStartOffset() < offset && entry.getFinishOffset() >= offset) {
+                cursor.define(entry);
+            }
+        }
+        cursor.seek(offset);
+        return cursor;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // the mapping itself is released when the buffer is garbage collected
+        raf.close();
+    }
+}
@@ -0,0 +1,132 @@
+package Ori.Coval.Logging.reader;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+
+/**
+ * Repairs a log whose tail was cut off by a brown-out or a killed app: the file is trimmed
+ * after its last whole record, dropping a partial final record and any zero padding left by
+ * a preallocated (memory-mapped) log. Everything before that point is kept as is.
+ * <p>
+ * The file is read as a stream rather than mapped, so it can be truncated in place on any
+ * OS. Run it from the command line:
+ * <pre>
+ * java -cp wpilog-reader.jar Ori.Coval.Logging.reader.WpiLogRecovery match.wpilog ...
+ * </pre>
+ */
+public final class WpiLogRecovery {
+    private WpiLogRecovery() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("usage: WpiLogRecovery <file.wpilog>...");
+            System.exit(2);
+        }
+        int failures = 0;
+        for (String arg : args) {
+            File file = new File(arg);
+            try {
+                long before = file.length();
+                long after = recover(file);
+                if (after == before) {
+                    System.out.println(file + ": ok");
+                } else {
+                    System.out.println(file + ": trimmed " + (before - after) + " bytes");
+                }
+            } catch (IOException e) {
+                System.err.println(file + ": " + e.getMessage());
+                failures++;
+            }
+        }
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    /**
+     * Trims {@code file} after its last whole record; a valid file is left untouched.
+     *
+     * @return the file's length afterwards
+     * @throws IOException if the file can't be read or doesn't start with a WPILOG header
+     */
+    public static long recover(File file) throws IOException {
+        long valid = validLength(file);
+        if (valid < file.length()) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(valid);
+                raf.getFD().sync();
+            }
+        }
+        return valid;
+    }
+
+    /** Length of the header plus every whole record, scanning from the start of the file. */
+    public static long validLength(File file) throws IOException {
+        long length = file.length();
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+            byte[] magic = new byte[6];
+            int extraLength;
+            try {
+                in.readFully(magic);
+                in.readShort();
+                extraLength = Integer.reverseBytes(in.readInt());
+            } catch (EOFException e) {
+                throw new IOException("not a WPILOG file (too short)");
+            }
+            if (!new String(magic, "US-ASCII").equals("WPILOG") || extraLength < 0) {
+                throw new IOException("not a WPILOG file");
+            }
+            if (12L + extraLength > length || skip(in, extraLength) < extraLength) {
+                throw new IOException("WPILOG header is cut off");
+            }
+            long valid = 12L + extraLength;
+
+            while (true) {
+                int header = in.read();
+                if (header < 0) return valid;
+                int idLength = (header & 0x3) + 1;
+                int sizeLength = ((header >> 2) & 0x3) + 1;
+                int timestampLength = ((header >> 4) & 0x7) + 1;
+                long id = readLittleEndian(in, idLength);
+                long size = readLittleEndian(in, sizeLength);
+                if (id < 0 || size < 0 || readLittleEndian(in, timestampLength) < 0) return valid;
+                // control records carry at least a type byte and an entry id; all zeros is padding
+                if (id == 0 && size < 5) return valid;
+                long end = valid + 1 + idLength + sizeLength + timestampLength + size;
+                // FileInputStream can skip past the end of the file, so check the length too
+                if (end > length || skip(in, size) < size) return valid;
+                valid = end;
+            }
+        }
+    }
+
+    /** Reads a little-endian field, or returns -1 if the stream ends first. */
+    private static long readLittleEndian(InputStream in, int length) throws IOException {
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            int b = in.read();
+            if (b < 0) return -1;
+            value |= (long) b << (8 * i);
+        }
+        return value;
+    }
+
+    private static long skip(InputStream in, long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n) {
+            long s = in.skip(n - skipped);
+            if (s <= 0) {
+                if (in.read() < 0) break;
+                s = 1;
+            }
+            skipped += s;
+        }
+        return skipped;
+    }
+}
@@ -0,0 +1,95 @@
+package Ori.Coval.Logging.reader;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class WpiLogRecoveryTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /** Header, a start record for entry 1 and three int64 values: 79 bytes. */
+    private static byte[] validLog() {
+        ByteBuffer b = ByteBuffer.allocate(256).order(ByteOrder.LITTLE_ENDIAN);
+        b.put("WPILOG".getBytes(StandardCharsets.US_ASCII)).putShort((short) 0x0100).putInt(0);
+        byte[] name = "x".getBytes(StandardCharsets.UTF_8);
+        byte[] type = "int64".getBytes(StandardCharsets.UTF_8);
+        int startSize = 1 + 4 + 4 + name.length + 4 + type.length + 4;
+        b.put((byte) 0).put((byte) 0).put((byte) startSize).put((byte) 1);      // id 0, 1-byte fields
+        b.put((byte) 0).putInt(1).putInt(name.length).put(name).putInt(type.length).put(type).putInt(0);
+        for (int i = 0; i < 3; i++) {
+            b.put((byte) 0).put((byte) 1).put((byte) 8).put((byte) (10 + i)).putLong(i);
+        }
+        byte[] bytes = new byte[b.position()];
+        b.flip();
+        b.get(bytes);
+        return bytes;
+    }
+
+    private File write(byte[]... parts) throws IOException {
+        File file = folder.newFile();
+        try (OutputStream out = new FileOutputStream(file)) {
+            for (byte[] part : parts) {
+                out.write(part);
+            }
+        }
+        return file;
+    }
+
+    @Test
+    public void leavesValidLogUntouched() throws IOException {
+        byte[] log = validLog();
+        File file = write(log);
+        assertEquals(log.length, WpiLogRecovery.recover(file));
+        assertEquals(log.length, file.length());
+    }
+
+    @Test
+    public void trimsPartialFinalRecord() throws IOException {
+        byte[] log = validLog();
+        // header bitfield, id 1, size 8, timestamp, then only 3 of the 8 payload bytes
+        File file = write(log, new byte[]{0, 1, 8, 20, 1, 2, 3});
+        assertEquals(log.length, WpiLogRecovery.recover(file));
+        assertEquals(log.length, file.length());
+    }
+
+    @Test
+    public void trimsPartialRecordHeader() throws IOException {
+        byte[] log = validLog();
+        File file = write(log, new byte[]{0x0C, 1});
+        assertEquals(log.length, WpiLogRecovery.recover(file));
+    }
+
+    @Test
+    public void trimsZeroPaddingOfPreallocatedLog() throws IOException {
+        byte[] log = validLog();
+        File file = write(log, new byte[4096]);
+        assertEquals(log.length, WpiLogRecovery.recover(file));
+        assertEquals(log.length, file.length());
+        try (WpiLogReader reader = new WpiLogReader(file)) {
+            RecordCursor cursor = reader.cursor();
+            int values = 0;
+            while (cursor.next()) {
+                if (!cursor.isControl()) {
+                    assertEquals(values++, cursor.getInt64());
+                }
+            }
+            assertEquals(3, values);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsFilesThatAreNotLogs() throws IOException {
+        WpiLogRecovery.recover(write("not a log at all".getBytes(StandardCharsets.US_ASCII)));
+    }
+}
@@ -0,0 +1,49 @@
+package Ori.Coval.Logging.benchmarks;
+
+import Ori.Coval.Logging.AutoLogManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one AutoLogManager.periodic() call with N registered generated classes,
+ * i.e. the logging share of one robot loop.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class AutoLogManagerBenchmark {
+
+    @Param({"1", "10", "50"})
+    public int instances;
+
+    private BenchSubsystem[] subsystems;
+    private long cycle;
+
+    @Setup
+    public void register() {
+        // every parameter combination runs in its own fork, so the static manager starts empty
+        subsystems = new BenchSubsystem[instances];
+        for (int i = 0; i < instances; i++) {
+            subsystems[i] = new BenchSubsystemAutoLogged();
+        }
+    }
+
+    @Benchmark
+    public void periodic(LogFileState file) {
+        cycle++;
+        for (BenchSubsystem subsystem : subsystems) {
+            subsystem.update(cycle);
+            subsystem.voltage.getAsDouble();
+        }
+        AutoLogManager.periodic();
+    }
+}
@@ -0,0 +1,35 @@
+package Ori.Coval.Logging.benchmarks;
+
+import Ori.Coval.Logging.AutoLog;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * A typical subsystem shape for the AutoLogManager benchmark; the processor generates
+ * BenchSubsystemAutoLogged from it.
+ */
+@AutoLog(postToFtcDashboard = false)
+public class BenchSubsystem {
+    public double leftVelocity;
+    public double rightVelocity;
+    public double heading;
+    public long encoderTicks;
+    public int mode;
+    public boolean atTarget;
+    public String state = "IDLE";
+    public double[] wheelPowers = new double[4];
+    public DoubleSupplier voltage = () -> 12.5;
+
+    public BenchSubsystem() {
+    }
+
+    public void update(long cycle) {
+        leftVelocity = cycle * 0.01;
+        rightVelocity = -leftVelocity;
+        heading = (cycle % 360) * Math.PI / 180;
+        encoderTicks = cycle * 4;
+        mode = (int) (cycle & 3);
+        atTarget = (cycle & 8) == 0;
+        wheelPowers[0] = leftVelocity;
+    }
+}
@@ -0,0 +1,74 @@
+package Ori.Coval.Logging.benchmarks;
+
+import Ori.Coval.Logging.OverflowPolicy;
+import Ori.Coval.Logging.WpiLog;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Logging from several threads at once with {@link WpiLog#enableConcurrentLogging}.
+ * Compare the 1- and 4-thread results: per-call time should stay flat as threads are added.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ConcurrentLogBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class ConcurrentFile {
+        private File file;
+
+        @Setup(Level.Iteration)
+        public void open() {
+            WpiLog.enableConcurrentLogging(1 << 22, OverflowPolicy.DROP_OLDEST);
+            file = new File(System.getProperty("java.io.tmpdir"), "wpilog-bench-concurrent.wpilog");
+            WpiLog.setup(file.toPath());
+        }
+
+        @TearDown(Level.Iteration)
+        public void close() {
+            WpiLog.closeLog();
+            WpiLog.disableConcurrentLogging();
+            if (!file.delete()) {
+                file.deleteOnExit();
+            }
+        }
+    }
+
+    /** One entry per benchmark thread, like a vision thread logging its own values. */
+    @State(Scope.Thread)
+    public static class ThreadEntry {
+        private static final AtomicInteger threads = new AtomicInteger();
+        int entry;
+        double value;
+
+        @Setup
+        public void setup() {
+            entry = WpiLog.entry("Bench/thread" + threads.getAndIncrement(), WpiLog.TYPE_DOUBLE);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public double oneThread(ConcurrentFile file, ThreadEntry entry) {
+        return WpiLog.log(entry.entry, entry.value++, false);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public double fourThreads(ConcurrentFile file, ThreadEntry entry) {
+        return WpiLog.log(entry.entry, entry.value++, false);
+    }
+}
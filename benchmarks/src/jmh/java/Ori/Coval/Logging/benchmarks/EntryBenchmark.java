@@ -0,0 +1,55 @@
+package Ori.Coval.Logging.benchmarks;
+
+import Ori.Coval.Logging.WpiLog;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of resolving entry names to handles, both for new and for known names.
+ */
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class EntryBenchmark {
+    private static final int BATCH = 10_000;
+
+    private String[] freshNames;
+    private int next;
+    private int generation;
+
+    @Setup(Level.Iteration)
+    public void newNames() {
+        // names are unique per iteration so every entry() call in the batch registers
+        generation++;
+        freshNames = new String[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            freshNames[i] = "Bench" + generation + "/signal" + i;
+        }
+        next = 0;
+        WpiLog.entry("DriveSubsystem/leftVelocity", WpiLog.TYPE_DOUBLE);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 5, batchSize = BATCH)
+    @Measurement(iterations = 10, batchSize = BATCH)
+    public int createEntry() {
+        return WpiLog.entry(freshNames[next++], WpiLog.TYPE_DOUBLE);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public int lookupEntry() {
+        return WpiLog.entry("DriveSubsystem/leftVelocity", WpiLog.TYPE_DOUBLE);
+    }
+}
@@ -0,0 +1,54 @@
+package Ori.Coval.Logging.benchmarks;
+
+import Ori.Coval.Logging.MappedLogChannel;
+import Ori.Coval.Logging.OverflowPolicy;
+import Ori.Coval.Logging.WpiLog;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Opens a fresh log file in the temp directory for every measurement iteration and
+ * deletes it afterwards, so long runs don't fill the disk.
+ */
+@State(Scope.Benchmark)
+public class LogFileState {
+    /**
+     * SYNC writes from the benchmark thread, ASYNC only queues into the writer ring,
+     * MAPPED copies into a memory-mapped file from the benchmark thread.
+     */
+    @Param({"SYNC", "ASYNC", "MAPPED"})
+    public String writer;
+
+    private File file;
+
+    @Setup(Level.Iteration)
+    public void open() throws IOException {
+        if (writer.equals("ASYNC")) {
+            WpiLog.enableAsyncWriter(1 << 22, OverflowPolicy.DROP_OLDEST);
+        } else {
+            WpiLog.disableAsyncWriter();
+        }
+        file = new File(System.getProperty("java.io.tmpdir"), "wpilog-bench-" + writer + ".wpilog");
+        if (writer.equals("MAPPED")) {
+            WpiLog.setup(new MappedLogChannel(file));
+        } else {
+            WpiLog.setup(file.toPath());
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void close() {
+        WpiLog.closeLog();
+        if (!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+}
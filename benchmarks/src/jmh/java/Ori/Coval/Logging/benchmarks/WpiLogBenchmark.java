@@ -0,0 +1,135 @@
+package Ori.Coval.Logging.benchmarks;
+
+import Ori.Coval.Logging.LogStruct;
+import Ori.Coval.Logging.WpiLog;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call cost of the WpiLog hot path for each kind of value.
+ * Run with the gc profiler (the default in build.gradle) to see bytes allocated per record.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class WpiLogBenchmark {
+
+    /** Stand-in for a composite value such as a pose, logged through toString() or as a struct. */
+    @LogStruct
+    static final class Pose {
+        final double x, y, heading;
+
+        Pose(double x, double y, double heading) {
+            this.x = x;
+            this.y = y;
+            this.heading = heading;
+        }
+
+        @Override
+        public String toString() {
+            return "Pose(" + x + ", " + y + ", " + heading + ")";
+        }
+    }
+
+    @Param({"8", "360"})
+    public int arraySize;
+
+    private int booleanEntry;
+    private int int64Entry;
+    private int doubleEntry;
+    private int stringEntry;
+    private int doubleArrayEntry;
+    private int stringArrayEntry;
+    private int objectEntry;
+    private int structEntry;
+
+    private double[] doubles;
+    private String[] strings;
+    private final String[] states = {"IDLE", "INTAKING", "SCORING", "PARKED"};
+    private final Pose pose = new Pose(1.25, -0.5, 0.75);
+    private long counter;
+
+    @Setup
+    public void setup() {
+        booleanEntry = WpiLog.entry("Bench/boolean", WpiLog.TYPE_BOOLEAN);
+        int64Entry = WpiLog.entry("Bench/int64", WpiLog.TYPE_INT64);
+        doubleEntry = WpiLog.entry("Bench/double", WpiLog.TYPE_DOUBLE);
+        stringEntry = WpiLog.entry("Bench/string", WpiLog.TYPE_STRING);
+        doubleArrayEntry = WpiLog.entry("Bench/doubleArray", WpiLog.TYPE_DOUBLE_ARRAY);
+        stringArrayEntry = WpiLog.entry("Bench/stringArray", WpiLog.TYPE_STRING_ARRAY);
+        objectEntry = WpiLog.entry("Bench/object", WpiLog.TYPE_OBJECT);
+        structEntry = WpiLog.structEntry("Bench/struct", PoseStruct.INSTANCE);
+
+        doubles = new double[arraySize];
+        for (int i = 0; i < arraySize; i++) doubles[i] = i * 0.1;
+        strings = new String[Math.min(arraySize, 16)];
+        for (int i = 0; i < strings.length; i++) strings[i] = "corner" + i;
+    }
+
+    @Benchmark
+    public boolean logBoolean(LogFileState file) {
+        return WpiLog.log(booleanEntry, (counter++ & 1) == 0, false);
+    }
+
+    @Benchmark
+    public long logInt64(LogFileState file) {
+        return WpiLog.log(int64Entry, counter++, false);
+    }
+
+    @Benchmark
+    public double logDouble(LogFileState file) {
+        return WpiLog.log(doubleEntry, counter++ * 0.5, false);
+    }
+
+    @Benchmark
+    public double logDoubleByName(LogFileState file) {
+        return WpiLog.log("Bench/doubleByName", counter++ * 0.5, false);
+    }
+
+    @Benchmark
+    public double logDoubleToDashboard(LogFileState file) {
+        return WpiLog.log(doubleEntry, counter++ * 0.5, true);
+    }
+
+    @Benchmark
+    public String logString(LogFileState file) {
+        return WpiLog.log(stringEntry, states[(int) (counter++ & 3)], false);
+    }
+
+    @Benchmark
+    public double[] logDoubleArray(LogFileState file) {
+        doubles[0] = counter++;
+        return WpiLog.log(doubleArrayEntry, doubles, false);
+    }
+
+    @Benchmark
+    public double[] logDoubleArrayRange(LogFileState file) {
+        doubles[1] = counter++;
+        return WpiLog.log(doubleArrayEntry, doubles, 1, doubles.length - 1, false);
+    }
+
+    @Benchmark
+    public String[] logStringArray(LogFileState file) {
+        return WpiLog.log(stringArrayEntry, strings, false);
+    }
+
+    /** Composite values have no binary encoding yet and go through toString(). */
+    @Benchmark
+    public Object logComposite(LogFileState file) {
+        return WpiLog.log(objectEntry, pose, false);
+    }
+
+    @Benchmark
+    public Object logStruct(LogFileState file) {
+        return WpiLog.log(structEntry, pose, PoseStruct.INSTANCE, false);
+    }
+}